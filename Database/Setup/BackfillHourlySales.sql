@@ -0,0 +1,16 @@
+-- Rebuilds the HourlySales rollup from the full Orders history.
+-- Run once after creating the HourlySales table; afterwards submitOrder keeps it up to date.
+INSERT INTO HourlySales (salesDate, salesHour, orderCount, totalSales)
+SELECT 
+    orderDate,
+    EXTRACT(HOUR FROM orderTime)::int,
+    COUNT(orderID),
+    COALESCE(SUM(orderPrice), 0)
+FROM 
+    Orders
+GROUP BY 
+    orderDate, EXTRACT(HOUR FROM orderTime)
+ON CONFLICT (salesDate, salesHour) DO UPDATE
+SET 
+    orderCount = EXCLUDED.orderCount,
+    totalSales = EXCLUDED.totalSales;
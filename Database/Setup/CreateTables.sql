@@ -20,15 +20,21 @@ CREATE TABLE EmployeeShifts (
     FOREIGN KEY (shiftID) REFERENCES shifts(shiftID)
 );
 
+-- Orders and their lines are partitioned by month of orderDate, so date range
+-- reports only scan the months they cover. Run OrderPartitions.sql after this
+-- file to create the monthly partitions.
 CREATE TABLE Orders (
-    orderID SERIAL PRIMARY KEY,
+    orderID SERIAL,
     orderTime time,
-    orderDate date,
+    orderDate date NOT NULL,
     employeeID int,
     orderPrice float,
     paymentMethod varchar(100),
+    PRIMARY KEY (orderID, orderDate),
     FOREIGN KEY (employeeID) REFERENCES employees(employeeID)
-);
+) PARTITION BY RANGE (orderDate);
+
+CREATE TABLE Orders_default PARTITION OF Orders DEFAULT;
 
 CREATE TABLE Inventory (
     inventoryID SERIAL PRIMARY KEY,
@@ -39,6 +45,27 @@ CREATE TABLE Inventory (
     unitPrice float
 );
 
+-- Every change to an item's stock, appended and never updated: 'sale' for
+-- ingredients used by orders, 'delivery' for stock received and 'adjustment'
+-- for manual corrections. Inventory.quantityInStock is kept in step with it.
+CREATE TABLE InventoryLedger (
+    entryID bigserial PRIMARY KEY,
+    inventoryID int NOT NULL,
+    entryTime timestamp NOT NULL DEFAULT clock_timestamp(),
+    quantityChange float NOT NULL,
+    reason varchar(20) NOT NULL
+);
+
+CREATE INDEX inventoryledger_item_time_idx ON InventoryLedger (inventoryID, entryTime);
+
+-- Each item's stock at a point in time, counting every ledger entry up to it
+CREATE TABLE InventorySnapshots (
+    inventoryID int,
+    snapshotTime timestamp,
+    quantityInStock float NOT NULL,
+    PRIMARY KEY (inventoryID, snapshotTime)
+);
+
 CREATE TABLE MenuItem (
     menuID SERIAL PRIMARY KEY,
     price float,
@@ -58,6 +85,24 @@ CREATE TABLE MenuItemInventory (
 CREATE TABLE OrderMenuItem (
     orderID int,
     menuItemID int,
-    FOREIGN KEY (orderID) REFERENCES orders(orderID),
+    orderDate date NOT NULL,
+    FOREIGN KEY (orderID, orderDate) REFERENCES orders(orderID, orderDate),
     FOREIGN KEY (menuItemID) REFERENCES MenuItem(menuID)
-);
\ No newline at end of file
+) PARTITION BY RANGE (orderDate);
+
+CREATE TABLE OrderMenuItem_default PARTITION OF OrderMenuItem DEFAULT;
+
+CREATE TABLE HourlySales (
+    salesDate date,
+    salesHour int,
+    orderCount int NOT NULL DEFAULT 0,
+    totalSales float NOT NULL DEFAULT 0,
+    PRIMARY KEY (salesDate, salesHour)
+);
+
+-- Orders are appended in date order, so a BRIN index on the date is tiny and
+-- narrows scans within each month's partition
+CREATE INDEX orders_orderdate_brin ON Orders USING brin (orderDate);
+CREATE INDEX ordermenuitem_orderdate_brin ON OrderMenuItem USING brin (orderDate);
+CREATE INDEX ordermenuitem_orderid_idx ON OrderMenuItem (orderID);
+CREATE INDEX ordermenuitem_menuitemid_idx ON OrderMenuItem (menuItemID);
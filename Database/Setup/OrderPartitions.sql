@@ -0,0 +1,99 @@
+-- Creates monthly partitions of an orders table and its order lines table.
+-- Partitions are named after their parent and month, such as orders_2024_01.
+-- Months that already have a partition are skipped. Orders that landed in a
+-- default partition before their month had a partition are moved into the new
+-- one, since a partition cannot be created while the default holds its rows.
+CREATE OR REPLACE FUNCTION create_order_partitions(orders_table text, lines_table text, first_month date, last_month date)
+RETURNS int
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    month date := date_trunc('month', first_month)::date;
+    next_month date;
+    orders_partition text;
+    lines_partition text;
+    orders_default regclass;
+    lines_default regclass;
+    orders_waiting boolean;
+    lines_waiting boolean;
+    created int := 0;
+BEGIN
+    SELECT c.oid::regclass INTO orders_default
+    FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = to_regclass(orders_table) AND pg_get_expr(c.relpartbound, c.oid) = 'DEFAULT';
+    SELECT c.oid::regclass INTO lines_default
+    FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = to_regclass(lines_table) AND pg_get_expr(c.relpartbound, c.oid) = 'DEFAULT';
+
+    WHILE month <= last_month LOOP
+        next_month := (month + interval '1 month')::date;
+        orders_partition := orders_table || '_' || to_char(month, 'YYYY_MM');
+        lines_partition := lines_table || '_' || to_char(month, 'YYYY_MM');
+
+        IF to_regclass(orders_partition) IS NULL OR to_regclass(lines_partition) IS NULL THEN
+            orders_waiting := false;
+            lines_waiting := false;
+            IF orders_default IS NOT NULL THEN
+                EXECUTE format('SELECT EXISTS (SELECT 1 FROM %s WHERE orderDate >= $1 AND orderDate < $2)', orders_default)
+                    INTO orders_waiting USING month, next_month;
+            END IF;
+            IF lines_default IS NOT NULL THEN
+                EXECUTE format('SELECT EXISTS (SELECT 1 FROM %s WHERE orderDate >= $1 AND orderDate < $2)', lines_default)
+                    INTO lines_waiting USING month, next_month;
+            END IF;
+
+            IF orders_waiting OR lines_waiting THEN
+                -- Holds off new orders until the month is moved. Orders is locked before its lines,
+                -- in the same order inserts take them, so the two cannot deadlock.
+                EXECUTE format('LOCK TABLE %I, %I IN ACCESS EXCLUSIVE MODE', orders_table, lines_table);
+            END IF;
+            -- Lines come out first and go back last, since they reference their orders
+            IF lines_waiting THEN
+                EXECUTE format('CREATE TEMP TABLE moved_order_lines ON COMMIT DROP AS SELECT * FROM %s WHERE orderDate >= %L AND orderDate < %L',
+                               lines_default, month, next_month);
+                EXECUTE format('DELETE FROM %s WHERE orderDate >= %L AND orderDate < %L', lines_default, month, next_month);
+            END IF;
+            IF orders_waiting THEN
+                EXECUTE format('CREATE TEMP TABLE moved_orders ON COMMIT DROP AS SELECT * FROM %s WHERE orderDate >= %L AND orderDate < %L',
+                               orders_default, month, next_month);
+                EXECUTE format('DELETE FROM %s WHERE orderDate >= %L AND orderDate < %L', orders_default, month, next_month);
+            END IF;
+
+            IF to_regclass(orders_partition) IS NULL THEN
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                               orders_partition, orders_table, month, next_month);
+                created := created + 1;
+            END IF;
+            IF to_regclass(lines_partition) IS NULL THEN
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                               lines_partition, lines_table, month, next_month);
+                created := created + 1;
+            END IF;
+
+            IF orders_waiting THEN
+                EXECUTE format('INSERT INTO %I SELECT * FROM moved_orders', orders_table);
+                DROP TABLE moved_orders;
+            END IF;
+            IF lines_waiting THEN
+                EXECUTE format('INSERT INTO %I SELECT * FROM moved_order_lines', lines_table);
+                DROP TABLE moved_order_lines;
+            END IF;
+        END IF;
+        month := next_month;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- On a freshly created schema, cover the seed data and the coming year.
+-- Run this again, or call create_order_partitions, before the year runs out.
+-- Orders past the last partition land in the default partition until then,
+-- and are moved out when their month's partition is created.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('orders') AND relkind = 'p') THEN
+        PERFORM create_order_partitions('orders', 'ordermenuitem', date '2023-09-01',
+                                        (date_trunc('month', current_date) + interval '12 months')::date);
+    END IF;
+END
+$$;
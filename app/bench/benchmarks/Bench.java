@@ -0,0 +1,124 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A small benchmark harness for the backend hot paths. Each benchmark is
+ * warmed up, then timed over a fixed number of operations on the current
+ * thread while the bytes allocated by that thread are counted, so both
+ * throughput and allocation rate can be tracked across changes.
+ *
+ * It runs with nothing but javac, the way the rest of the project is built.
+ * Unlike JMH it does not fork a fresh JVM per benchmark, so results are only
+ * comparable between runs on the same machine; the in-memory benchmarks are
+ * also written for JMH in the Maven module under app/jmh.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class Bench {
+    /**
+     * A single benchmarked operation. The returned value is folded into a sink
+     * so the JIT cannot optimize the work away.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * Runs the operation once.
+         *
+         * @return Any value derived from the work done
+         * @throws Exception If the operation fails
+         */
+        long run() throws Exception;
+    }
+
+    /**
+     * The measured throughput and allocation of one benchmark.
+     */
+    public static final class Result {
+        private final String name;
+        private final double opsPerSecond;
+        private final double bytesPerOp;
+
+        private Result(String name, double opsPerSecond, double bytesPerOp) {
+            this.name = name;
+            this.opsPerSecond = opsPerSecond;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        /**
+         * Gets the operations completed per second.
+         *
+         * @return the throughput
+         */
+        public double getOpsPerSecond() {
+            return opsPerSecond;
+        }
+
+        /**
+         * Gets the bytes allocated per operation.
+         *
+         * @return the allocation per operation
+         */
+        public double getBytesPerOp() {
+            return bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-45s %15.0f ops/s %12.1f B/op", name, opsPerSecond, bytesPerOp);
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sink;
+
+    private Bench() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Warms up and measures an operation, printing and returning the result.
+     *
+     * @param name The name to report the benchmark under
+     * @param warmupOps The number of untimed operations to run first
+     * @param measuredOps The number of timed operations
+     * @param operation The operation to measure
+     * @return The measured result
+     * @throws Exception If the operation fails
+     */
+    public static Result measure(String name, int warmupOps, int measuredOps, Operation operation) throws Exception {
+        long acc = 0;
+        for (int i = 0; i < warmupOps; i++) {
+            acc += operation.run();
+        }
+
+        long threadID = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadID);
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredOps; i++) {
+            acc += operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(threadID) - bytesBefore;
+        sink += acc;
+
+        Result result = new Result(name, measuredOps * 1e9 / elapsed, (double) bytes / measuredOps);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Returns the accumulated sink so it is observably used.
+     *
+     * @return The sink value
+     */
+    public static long sink() {
+        return sink;
+    }
+}
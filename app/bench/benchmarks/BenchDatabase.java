@@ -0,0 +1,41 @@
+package benchmarks;
+
+import backend.ConnectionPool;
+import java.sql.SQLException;
+
+/**
+ * Connects the database-bound benchmarks to a local Postgres stand-in
+ * rather than the shared course database. The connection is configured with
+ * the bench.db.url, bench.db.user and bench.db.password system properties,
+ * and the pool size with bench.db.poolMax.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class BenchDatabase {
+    /**
+     * JDBC URL used when bench.db.url is not set.
+     */
+    public static final String DEFAULT_URL = "jdbc:postgresql://localhost:5432/pos_bench";
+
+    private BenchDatabase() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Opens a small connection pool to the benchmark database.
+     *
+     * @return The connection pool
+     * @throws SQLException If the benchmark database cannot be reached
+     */
+    public static ConnectionPool connect() throws SQLException {
+        String url = System.getProperty("bench.db.url", DEFAULT_URL);
+        String user = System.getProperty("bench.db.user", "postgres");
+        String password = System.getProperty("bench.db.password", "");
+        int maxSize = Integer.getInteger("bench.db.poolMax", 4);
+        return new ConnectionPool(url, user, password, 1, maxSize, 60_000, 10_000);
+    }
+}
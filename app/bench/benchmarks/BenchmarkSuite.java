@@ -0,0 +1,34 @@
+package benchmarks;
+
+/**
+ * Runs every benchmark in turn. The database-bound benchmarks are skipped
+ * when the local benchmark database cannot be reached.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class BenchmarkSuite {
+    private BenchmarkSuite() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Runs all benchmarks.
+     *
+     * @param args Command-line arguments, passed on to {@link ManagerBenchmark}.
+     * @throws Exception If a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        System.out.println("== Cart ==");
+        CartBenchmark.main(new String[0]);
+        System.out.println("== Cashier ==");
+        CashierBenchmark.main(new String[0]);
+        System.out.println("== Report rendering ==");
+        ReportRenderingBenchmark.main(new String[0]);
+        System.out.println("== Manager (database) ==");
+        ManagerBenchmark.main(args);
+    }
+}
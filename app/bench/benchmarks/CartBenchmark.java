@@ -0,0 +1,63 @@
+package benchmarks;
+
+import backend.Cart;
+import models.MenuItem;
+
+/**
+ * Benchmarks the cashier cart totals. Reading the subtotal, tax and total
+ * must be constant time and allocation-free no matter how large the cart is;
+ * the run fails if any allocation is measured.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class CartBenchmark {
+    private CartBenchmark() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Runs the cart benchmarks.
+     *
+     * @param args Command-line arguments.
+     * @throws Exception If a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        MenuItem[] menu = {
+            new MenuItem(1, "Orange Chicken", "Entree", 5.20),
+            new MenuItem(2, "Chow Mein", "Side", 4.40),
+            new MenuItem(3, "Bowl", "Combo", 8.30),
+            new MenuItem(4, "Cream Cheese Rangoon", "Appetizer", 2.00),
+        };
+
+        boolean allocated = false;
+        for (int size : new int[] {1, 10, 100}) {
+            Cart cart = new Cart();
+            for (int i = 0; i < size; i++) {
+                cart.add(menu[i % menu.length]);
+            }
+            Bench.Result totals = Bench.measure("cart totals (" + size + " items)", 1_000_000, 10_000_000,
+                    () -> cart.getSubtotalCents() + cart.getTaxCents() + cart.getTotalCents());
+            allocated |= totals.getBytesPerOp() > 0.01;
+        }
+
+        Cart cart = new Cart();
+        for (int i = 0; i < 10; i++) {
+            cart.add(menu[i % menu.length]);
+        }
+        Bench.measure("cart add + remove (10 items)", 1_000_000, 10_000_000, () -> {
+            cart.add(menu[0]);
+            cart.remove(menu[0]);
+            return cart.getTotalCents();
+        });
+
+        System.out.println("sink " + Bench.sink());
+        if (allocated) {
+            System.err.println("Cart totals allocated memory");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import backend.CashierFunctions;
+import models.MenuItem;
+
+/**
+ * Benchmarks the cashier cart operations a register runs on every tap:
+ * adding an item, removing it again and reading the order total. None of
+ * these touch the database, so the cashier is built without one.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class CashierBenchmark {
+    private CashierBenchmark() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Runs the cashier benchmarks.
+     *
+     * @param args Command-line arguments.
+     * @throws Exception If a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        MenuItem[] menu = {
+            new MenuItem(1, "Orange Chicken", "Entree", 5.20),
+            new MenuItem(2, "Chow Mein", "Side", 4.40),
+            new MenuItem(3, "Bowl", "Combo", 8.30),
+            new MenuItem(4, "Cream Cheese Rangoon", "Appetizer", 2.00),
+        };
+
+        for (int size : new int[] {1, 10, 100}) {
+            CashierFunctions cashier = new CashierFunctions(null, null, null, null, null, null, null, null, 1);
+            for (int i = 0; i < size; i++) {
+                cashier.addToOrder(menu[i % menu.length]);
+            }
+            Bench.measure("cashier addToOrder + removeFromOrder (" + size + ")", 1_000_000, 10_000_000, () -> {
+                cashier.addToOrder(menu[1]);
+                cashier.removeFromOrder(menu[1]);
+                return cashier.getItemsOrdered().size();
+            });
+            Bench.measure("cashier getTotal (" + size + " items)", 1_000_000, 10_000_000,
+                    () -> Double.doubleToRawLongBits(cashier.getTotal()));
+        }
+
+        System.out.println("sink " + Bench.sink());
+    }
+}
@@ -0,0 +1,139 @@
+package benchmarks;
+
+/**
+ * A fixed-size latency histogram in the style of HdrHistogram. Values are
+ * bucketed by power of two, and each power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so every recorded value is kept
+ * to within 1% no matter its magnitude. Recording is allocation-free.
+ *
+ * Histograms are not thread-safe; give each thread its own and merge them
+ * with {@link #add(LatencyHistogram)} when reporting.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAGNITUDES = 64 - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(MAGNITUDES + 1) * SUB_BUCKETS];
+    private long totalCount;
+    private long totalValue;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records a value, such as a latency in nanoseconds.
+     *
+     * @param value The value to record, zero or more
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        counts[indexOf(value)]++;
+        totalCount++;
+        totalValue += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds every value recorded in another histogram to this one.
+     *
+     * @param other The histogram to merge in
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalValue += other.totalValue;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return The count
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return The mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) totalValue / totalCount;
+    }
+
+    /**
+     * Returns the smallest value recorded.
+     *
+     * @return The minimum, or 0 if nothing was recorded
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return The maximum
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the value at or below which the given percentage of values fall.
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return The highest value equivalent to the percentile's bucket, capped at the maximum
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(max, highestValueAt(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Maps a value to its bucket. Values below {@value #SUB_BUCKETS} are
+     * counted exactly; larger values keep the {@value #SUB_BUCKET_BITS} bits
+     * after their leading one.
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+        int subBucket = (int) (value >>> magnitude) - SUB_BUCKETS;
+        return magnitude * SUB_BUCKETS + SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+}
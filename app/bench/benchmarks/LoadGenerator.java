@@ -0,0 +1,227 @@
+package benchmarks;
+
+import backend.ConnectionPool;
+import backend.DemandForecast;
+import backend.InventoryDeltaBuffer;
+import backend.InventoryLedger;
+import backend.LiveSalesCounters;
+import backend.MenuCatalog;
+import backend.OrderBitmapIndex;
+import backend.OrderEventBus;
+import backend.OrderService;
+import backend.RecipeCache;
+import backend.SalesCube;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays historical order compositions from ordermenuitem.csv through the
+ * order service from many simulated cashiers at once, and reports
+ * throughput and checkout latency percentiles.
+ *
+ * Without a rate, each cashier submits its next order as soon as the last
+ * one completes. With a rate, orders are scheduled at fixed intervals and
+ * latency is measured from when each order was due rather than when it was
+ * sent, so a stall is charged to every order that queued up behind it.
+ *
+ * Options, given as --name=value:
+ * <pre>
+ * --csv       Order lines to replay (default ../Database/SeedData/Scripts/ordermenuitem.csv)
+ * --cashiers  Number of concurrent cashiers (default 20)
+ * --rate      Orders per second across all cashiers at normal speed, 0 for back to back (default 0)
+ * --speedup   Factor the rate is multiplied by (default 1)
+ * --warmup    Seconds to run before measuring (default 5)
+ * --duration  Seconds to measure (default 60)
+ * </pre>
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class LoadGenerator {
+    private LoadGenerator() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Runs the load generator against the local benchmark database.
+     *
+     * @param args Command-line options.
+     * @throws Exception If the order file cannot be read or the database cannot be reached
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String csv = options.getOrDefault("csv", "../Database/SeedData/Scripts/ordermenuitem.csv");
+        int cashiers = Integer.parseInt(options.getOrDefault("cashiers", "20"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"))
+                * Double.parseDouble(options.getOrDefault("speedup", "1"));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "5")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "60")));
+
+        int[][] orders = readOrders(csv);
+        System.out.println("Replaying " + orders.length + " orders from " + csv + " with " + cashiers + " cashiers"
+                + (rate > 0 ? String.format(" at %.1f orders/s", rate) : " back to back"));
+
+        ConnectionPool pool = BenchDatabase.connect();
+        MenuCatalog catalog = new MenuCatalog(pool);
+        RecipeCache recipes = new RecipeCache(pool);
+        InventoryDeltaBuffer inventoryUsage = new InventoryDeltaBuffer(pool, recipes, 1000);
+        try (OrderService service = new OrderService(pool, catalog, new LiveSalesCounters(), inventoryUsage,
+                new InventoryLedger(pool), new SalesCube(), new OrderBitmapIndex(), new DemandForecast(),
+                new OrderEventBus())) {
+            catalog.getMenuItems();
+
+            long intervalNanos = rate > 0 ? (long) (cashiers * 1e9 / rate) : 0;
+            long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            long measureFrom = start + warmupNanos;
+            long measureUntil = measureFrom + durationNanos;
+            LatencyHistogram[] histograms = new LatencyHistogram[cashiers];
+            AtomicLong errors = new AtomicLong();
+            CountDownLatch done = new CountDownLatch(cashiers);
+
+            for (int c = 0; c < cashiers; c++) {
+                int cashier = c;
+                LatencyHistogram histogram = new LatencyHistogram();
+                histograms[c] = histogram;
+                String sessionID = service.openSession(1);
+                Thread thread = new Thread(() -> {
+                    try {
+                        // Stagger the cashiers so scheduled orders do not all arrive at once
+                        long due = start + (intervalNanos * cashier) / cashiers;
+                        for (int next = cashier; ; next += cashiers) {
+                            if (intervalNanos > 0) {
+                                sleepUntil(due);
+                            } else {
+                                due = System.nanoTime();
+                            }
+                            if (due >= measureUntil) {
+                                return;
+                            }
+                            try {
+                                for (int menuID : orders[next % orders.length]) {
+                                    service.addItem(sessionID, menuID);
+                                }
+                                service.submit(sessionID).get();
+                                long finished = System.nanoTime();
+                                if (due >= measureFrom) {
+                                    histogram.record(finished - due);
+                                }
+                            } catch (ExecutionException | SQLException e) {
+                                errors.incrementAndGet();
+                                service.getCashier(sessionID).clearOrder();
+                            }
+                            due += intervalNanos;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }, "cashier-" + cashier);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            done.await();
+
+            LatencyHistogram total = new LatencyHistogram();
+            for (LatencyHistogram histogram : histograms) {
+                total.add(histogram);
+            }
+            report(total, errors.get(), durationNanos);
+            OrderEventBus orderEvents = service.getOrderEvents();
+            System.out.printf("Events:      %d published, %d dropped%n",
+                    orderEvents.getPublished(), orderEvents.getDropped());
+            for (OrderEventBus.SubscriberStats stats : orderEvents.getStats()) {
+                System.out.println("             " + stats);
+            }
+        }
+    }
+
+    /**
+     * Reads the order lines and groups them into orders. Lines of one order
+     * are expected to be next to each other, as they are in the seed data.
+     *
+     * @param path The CSV file with an orderid and menuitemid column
+     * @return The menu IDs of each order
+     * @throws IOException If the file cannot be read
+     */
+    static int[][] readOrders(String path) throws IOException {
+        List<int[]> orders = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        String currentOrder = null;
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            String line = reader.readLine(); // Skip header
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    continue;
+                }
+                String orderID = line.substring(0, comma);
+                if (!orderID.equals(currentOrder) && !current.isEmpty()) {
+                    orders.add(toArray(current));
+                    current.clear();
+                }
+                currentOrder = orderID;
+                current.add(Integer.parseInt(line.substring(comma + 1).trim()));
+            }
+        }
+        if (!current.isEmpty()) {
+            orders.add(toArray(current));
+        }
+        return orders.toArray(new int[0][]);
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private static void sleepUntil(long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    private static void report(LatencyHistogram latency, long errors, long durationNanos) {
+        double seconds = durationNanos / 1e9;
+        System.out.printf("Orders:      %d (%d errors)%n", latency.getCount(), errors);
+        System.out.printf("Throughput:  %.1f orders/s%n", latency.getCount() / seconds);
+        System.out.printf("Latency ms:  mean %.2f  p50 %.2f  p99 %.2f  p999 %.2f  max %.2f%n",
+                latency.getMean() / 1e6,
+                latency.getValueAtPercentile(50) / 1e6,
+                latency.getValueAtPercentile(99) / 1e6,
+                latency.getValueAtPercentile(99.9) / 1e6,
+                latency.getMax() / 1e6);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
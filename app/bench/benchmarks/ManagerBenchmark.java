@@ -0,0 +1,65 @@
+package benchmarks;
+
+import backend.ConnectionPool;
+import backend.ManagerFunctions;
+import backend.TextReportRenderer;
+import java.io.StringWriter;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Benchmarks the manager queries that build models and reports from result
+ * sets: loading the menu and inventory and rendering the sales by item and X
+ * reports. These run against the local database from {@link BenchDatabase},
+ * which should be set up with Database/Setup/CreateTables.sql and the seed data.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class ManagerBenchmark {
+    private ManagerBenchmark() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Runs the manager benchmarks. The sales report covers the last 30 days,
+     * or the range given as two ISO dates in the arguments.
+     *
+     * @param args Command-line arguments.
+     * @throws Exception If a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        Date end = Date.valueOf(args.length > 1 ? LocalDate.parse(args[1]) : LocalDate.now().plusDays(1));
+        Date start = Date.valueOf(args.length > 0 ? LocalDate.parse(args[0]) : end.toLocalDate().minusDays(30));
+
+        ConnectionPool pool;
+        try {
+            pool = BenchDatabase.connect();
+        } catch (SQLException e) {
+            System.err.println("Skipping database benchmarks, cannot reach "
+                    + System.getProperty("bench.db.url", BenchDatabase.DEFAULT_URL) + ": " + e.getMessage());
+            return;
+        }
+
+        try (pool) {
+            ManagerFunctions manager = new ManagerFunctions(pool);
+            Bench.measure("getMenuItems", 200, 2_000, () -> manager.getMenuItems().size());
+            Bench.measure("getInventoryItems", 200, 2_000, () -> manager.getInventoryItems().size());
+            StringWriter out = new StringWriter();
+            Bench.measure("writeSalesReportByItem (" + start + " to " + end + ")", 5, 50, () -> {
+                out.getBuffer().setLength(0);
+                manager.writeSalesReportByItem(start, end, new TextReportRenderer(out));
+                return out.getBuffer().length();
+            });
+            Bench.measure("getMenuEngineering (" + start + " to " + end + ")", 5, 50,
+                    () -> manager.getMenuEngineering(start, end).size());
+            Bench.measure("getXReport", 200, 2_000, () -> manager.getXReport().size());
+        }
+
+        System.out.println("sink " + Bench.sink());
+    }
+}
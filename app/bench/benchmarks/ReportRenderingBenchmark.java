@@ -0,0 +1,112 @@
+package benchmarks;
+
+import backend.LiveSalesCounters;
+import backend.ManagerFunctions;
+import backend.ReportRenderer;
+import java.io.StringWriter;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import models.ItemSales;
+
+/**
+ * Benchmarks formatting reports in memory, separately from the database work
+ * measured in {@link ManagerBenchmark}. Covers the X report built from the
+ * in-process sales counters, and the sales report by item written through
+ * each {@link ReportRenderer} next to the String.format list it replaced.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class ReportRenderingBenchmark {
+    private static final int MENU_ITEMS = 40;
+
+    private ReportRenderingBenchmark() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Runs the report rendering benchmarks.
+     *
+     * @param args Command-line arguments.
+     * @throws Exception If a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        LiveSalesCounters counters = new LiveSalesCounters();
+        LocalDate today = LocalDate.now();
+        int[] orderID = {0};
+        for (int hour = 10; hour < 22; hour++) {
+            for (int order = 0; order < 50; order++) {
+                counters.recordOrder(++orderID[0], today.atTime(hour, order % 60), 1_250 + order, 3);
+            }
+        }
+
+        Bench.measure("live X report (12 open hours)", 20_000, 200_000,
+                () -> counters.getXReport().size());
+        StringWriter out = new StringWriter();
+        Bench.measure("live X report, text renderer", 20_000, 200_000, () -> {
+            out.getBuffer().setLength(0);
+            ManagerFunctions.writeXReport(counters.getHourlySales(), ReportRenderer.forFormat("text", out));
+            return out.getBuffer().length();
+        });
+        // Every order is new, as at a register, so the day's set of counted orders grows with the run
+        Bench.measure("record order", 200_000, 1_000_000, () -> {
+            counters.recordOrder(++orderID[0], LocalDateTime.now(), 1_250, 3);
+            return 1;
+        });
+
+        List<ItemSales> rows = itemSales();
+        Date start = Date.valueOf(today.minusDays(30));
+        Date end = Date.valueOf(today);
+        Bench.measure("sales by item, String.format (" + MENU_ITEMS + " items)", 20_000, 200_000,
+                () -> formatSalesReport(start, end, rows).size());
+        for (String format : new String[] {"text", "csv", "json"}) {
+            Bench.measure("sales by item, " + format + " renderer", 20_000, 200_000, () -> {
+                out.getBuffer().setLength(0);
+                ManagerFunctions.writeSalesReportByItem(start, end, rows, ReportRenderer.forFormat(format, out));
+                return out.getBuffer().length();
+            });
+        }
+
+        System.out.println("sink " + Bench.sink());
+    }
+
+    /**
+     * Returns a month of sales for a full menu.
+     *
+     * @return One row per menu item
+     */
+    static List<ItemSales> itemSales() {
+        List<ItemSales> rows = new ArrayList<>();
+        for (int menuID = 1; menuID <= MENU_ITEMS; menuID++) {
+            rows.add(new ItemSales(menuID, "Menu Item " + menuID, 1_000 + menuID * 37, 1_250_000L + menuID * 4_321));
+        }
+        return rows;
+    }
+
+    /**
+     * Builds the sales report by item the way the POS did before the
+     * renderers, one String.format per line, as a baseline.
+     *
+     * @param start The start date of the report period
+     * @param end The end date of the report period
+     * @param rows The item sales
+     * @return The report lines
+     */
+    static List<String> formatSalesReport(Date start, Date end, List<ItemSales> rows) {
+        List<String> report = new ArrayList<>();
+        report.add("Sales Report by Item from " + start + " to " + end + "\n");
+        report.add("--------------------------------------------------------------\n");
+        report.add(String.format("%-30s %-15s %-15s", "Item ID", "Quantity Sold", "Total Sales ($)\n"));
+        report.add("--------------------------------------------------------------\n");
+        for (ItemSales row : rows) {
+            report.add(String.format("%-30s %-15d %-15.2f\n", row.getMenuName(), row.getQuantitySold(), row.getSales()));
+        }
+        return report;
+    }
+}
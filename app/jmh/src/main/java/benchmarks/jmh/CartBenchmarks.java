@@ -0,0 +1,80 @@
+package benchmarks.jmh;
+
+import backend.Cart;
+import java.util.concurrent.TimeUnit;
+import models.MenuItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the cashier cart totals, which must stay constant time
+ * whatever the size of the cart. Run with -prof gc to check that reading the
+ * totals allocates nothing.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmarks {
+    private static final MenuItem[] MENU = {
+        new MenuItem(1, "Orange Chicken", "Entree", 5.20),
+        new MenuItem(2, "Chow Mein", "Side", 4.40),
+        new MenuItem(3, "Bowl", "Combo", 8.30),
+        new MenuItem(4, "Cream Cheese Rangoon", "Appetizer", 2.00),
+    };
+
+    @Param({"1", "10", "100"})
+    private int size;
+
+    private Cart cart;
+
+    /**
+     * Fills the cart with the number of items being measured.
+     */
+    @Setup
+    public void fillCart() {
+        cart = new Cart();
+        for (int i = 0; i < size; i++) {
+            cart.add(MENU[i % MENU.length]);
+        }
+    }
+
+    /**
+     * Reads the subtotal, tax and total.
+     *
+     * @return The sum of the three, so the reads are not optimized away
+     */
+    @Benchmark
+    public long totals() {
+        return cart.getSubtotalCents() + cart.getTaxCents() + cart.getTotalCents();
+    }
+
+    /**
+     * Adds an item and takes it out again.
+     *
+     * @return The total afterwards
+     */
+    @Benchmark
+    public long addAndRemove() {
+        cart.add(MENU[0]);
+        cart.remove(MENU[0]);
+        return cart.getTotalCents();
+    }
+}
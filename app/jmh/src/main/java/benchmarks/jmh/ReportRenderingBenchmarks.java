@@ -0,0 +1,141 @@
+package benchmarks.jmh;
+
+import backend.LiveSalesCounters;
+import backend.ManagerFunctions;
+import backend.ReportRenderer;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import models.ItemSales;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of formatting reports in memory: the X report from the live
+ * sales counters, and the sales report by item written through each
+ * {@link ReportRenderer} format next to the String.format list the POS used
+ * to build.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportRenderingBenchmarks {
+    /**
+     * The renderer format, kept in its own state so the String.format
+     * baselines run once rather than once per format.
+     */
+    @State(Scope.Thread)
+    public static class Format {
+        @Param({"text", "csv", "json"})
+        private String format;
+    }
+
+    @Param({"40"})
+    private int menuItems;
+
+    private final StringWriter out = new StringWriter();
+    private LiveSalesCounters counters;
+    private List<ItemSales> itemSales;
+    private Date start;
+    private Date end;
+
+    /**
+     * Records twelve busy hours of orders and a month of sales for the menu.
+     */
+    @Setup
+    public void loadSales() {
+        LocalDate today = LocalDate.now();
+        counters = new LiveSalesCounters();
+        int orderID = 0;
+        for (int hour = 10; hour < 22; hour++) {
+            for (int order = 0; order < 50; order++) {
+                counters.recordOrder(++orderID, today.atTime(hour, order % 60), 1_250 + order, 3);
+            }
+        }
+        itemSales = new ArrayList<>();
+        for (int menuID = 1; menuID <= menuItems; menuID++) {
+            itemSales.add(new ItemSales(menuID, "Menu Item " + menuID, 1_000 + menuID * 37, 1_250_000L + menuID * 4_321));
+        }
+        start = Date.valueOf(today.minusDays(30));
+        end = Date.valueOf(today);
+    }
+
+    /**
+     * Builds the live X report as String.format lines.
+     *
+     * @return The report lines
+     */
+    @Benchmark
+    public List<String> xReportLines() {
+        return counters.getXReport();
+    }
+
+    /**
+     * Writes the live X report through the renderer.
+     *
+     * @param renderer The renderer format
+     * @return The characters written
+     * @throws IOException Never, the writer is in memory
+     */
+    @Benchmark
+    public int xReportRenderer(Format renderer) throws IOException {
+        out.getBuffer().setLength(0);
+        ManagerFunctions.writeXReport(counters.getHourlySales(), ReportRenderer.forFormat(renderer.format, out));
+        return out.getBuffer().length();
+    }
+
+    /**
+     * Writes the sales report by item through the renderer.
+     *
+     * @param renderer The renderer format
+     * @return The characters written
+     * @throws IOException Never, the writer is in memory
+     */
+    @Benchmark
+    public int salesByItemRenderer(Format renderer) throws IOException {
+        out.getBuffer().setLength(0);
+        ManagerFunctions.writeSalesReportByItem(start, end, itemSales, ReportRenderer.forFormat(renderer.format, out));
+        return out.getBuffer().length();
+    }
+
+    /**
+     * Builds the sales report by item as String.format lines, the way the
+     * POS did before the renderers, as a baseline.
+     *
+     * @return The report lines
+     */
+    @Benchmark
+    public List<String> salesByItemLines() {
+        List<String> report = new ArrayList<>();
+        report.add("Sales Report by Item from " + start + " to " + end + "\n");
+        report.add("--------------------------------------------------------------\n");
+        report.add(String.format("%-30s %-15s %-15s", "Item ID", "Quantity Sold", "Total Sales ($)\n"));
+        report.add("--------------------------------------------------------------\n");
+        for (ItemSales row : itemSales) {
+            report.add(String.format("%-30s %-15d %-15.2f\n", row.getMenuName(), row.getQuantitySold(), row.getSales()));
+        }
+        return report;
+    }
+}
@@ -0,0 +1,146 @@
+package backend;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends a line for every submitted order to a log file. Registers record
+ * each order after it commits by adding its line to an unbounded queue, so
+ * an order is never dropped and a slow disk never holds up a register. A
+ * writer thread takes whatever has queued up since its last write, writes it
+ * and flushes once per batch rather than once per order.
+ *
+ * Until the log is opened, recorded orders are ignored.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class AuditLog implements AutoCloseable {
+    /** The most lines written between flushes. */
+    private static final int MAX_BATCH = 4096;
+
+    private final BlockingQueue<String> pending = new LinkedBlockingQueue<>();
+    private BufferedWriter writer;
+    private Thread thread;
+    private volatile boolean open;
+    private volatile boolean closing;
+
+    /**
+     * Opens the log file and starts the writer thread. Later calls do
+     * nothing.
+     *
+     * @param file The file to append to, created if it does not exist
+     * @throws IOException If the file cannot be opened
+     */
+    public synchronized void open(Path file) throws IOException {
+        if (writer != null) {
+            return;
+        }
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        thread = new Thread(this::writeBatches, "audit-log");
+        thread.setDaemon(true);
+        thread.start();
+        open = true;
+    }
+
+    /**
+     * Queues a committed order to be written.
+     *
+     * @param orderID The ID of the order
+     * @param cashierID The ID of the cashier who took it
+     * @param orderTime When the order was taken
+     * @param priceCents The order total in cents
+     * @param menuIDs The IDs of the menu items ordered
+     */
+    public void record(int orderID, int cashierID, LocalDateTime orderTime, long priceCents, int[] menuIDs) {
+        if (!open) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(64 + menuIDs.length * 4);
+        line.append(orderTime).append(" order ").append(orderID)
+                .append(" cashier ").append(cashierID)
+                .append(" total ").append(priceCents).append(" items");
+        for (int menuID : menuIDs) {
+            line.append(' ').append(menuID);
+        }
+        pending.add(line.toString());
+    }
+
+    /**
+     * Returns the number of orders waiting to be written.
+     *
+     * @return The number of queued lines
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Writes queued lines until the log is closed and the queue is empty.
+     */
+    private void writeBatches() {
+        List<String> batch = new ArrayList<>();
+        while (true) {
+            try {
+                String first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closing) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, MAX_BATCH - 1);
+                for (String line : batch) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+                writer.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                System.err.println("Error writing audit log, " + batch.size() + " orders not written: "
+                        + e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Stops taking orders, waits for the queued ones to be written and
+     * closes the file.
+     */
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        open = false;
+        closing = true;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Error closing audit log: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package backend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import models.MenuItem;
+
+/**
+ * The items in a cashier's current order along with its running totals.
+ * Prices are kept as whole cents and the subtotal, tax and total are updated
+ * as items are added and removed, so reading a total is constant time and
+ * never drifts the way summing doubles does.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class Cart {
+    /**
+     * Sales tax rate in basis points (hundredths of a percent).
+     */
+    public static final long TAX_RATE_BASIS_POINTS = 800;
+
+    private final List<MenuItem> items = new ArrayList<>();
+    private final List<MenuItem> itemsView = Collections.unmodifiableList(items);
+    private long subtotalCents;
+    private long taxCents;
+    private long totalCents;
+
+    /**
+     * Computes the tax on an amount, rounding half a cent up.
+     *
+     * @param subtotalCents The taxable amount in cents
+     * @return The tax in cents
+     */
+    public static long taxCents(long subtotalCents) {
+        return (subtotalCents * TAX_RATE_BASIS_POINTS + 5_000) / 10_000;
+    }
+
+    /**
+     * Adds an item to the cart.
+     *
+     * @param item The menu item to add
+     */
+    public void add(MenuItem item) {
+        items.add(item);
+        updateTotals(subtotalCents + item.getPriceCents());
+    }
+
+    /**
+     * Removes one occurrence of an item from the cart.
+     *
+     * @param item The menu item to remove
+     * @return Whether the item was in the cart
+     */
+    public boolean remove(MenuItem item) {
+        if (!items.remove(item)) {
+            return false;
+        }
+        updateTotals(subtotalCents - item.getPriceCents());
+        return true;
+    }
+
+    /**
+     * Empties the cart.
+     */
+    public void clear() {
+        items.clear();
+        updateTotals(0);
+    }
+
+    /**
+     * Returns the items in the cart.
+     *
+     * @return An unmodifiable view of the items in the cart
+     */
+    public List<MenuItem> getItems() {
+        return itemsView;
+    }
+
+    /**
+     * Returns the subtotal of the cart.
+     *
+     * @return The subtotal in cents
+     */
+    public long getSubtotalCents() {
+        return subtotalCents;
+    }
+
+    /**
+     * Returns the tax on the cart.
+     *
+     * @return The tax in cents
+     */
+    public long getTaxCents() {
+        return taxCents;
+    }
+
+    /**
+     * Returns the total of the cart including tax.
+     *
+     * @return The total in cents
+     */
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    private void updateTotals(long subtotalCents) {
+        this.subtotalCents = subtotalCents;
+        this.taxCents = taxCents(subtotalCents);
+        this.totalCents = subtotalCents + taxCents;
+    }
+}
@@ -4,9 +4,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Timestamp;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import models.MenuItem;
@@ -21,55 +19,104 @@ import models.MenuItem;
  * @author Richard Huynh
  */
 public class CashierFunctions {
-    private double total;
+    /**
+     * Inserts the order header and its line items and adds the order to the
+     * hourly sales rollup in a single statement. Parameters are the order
+     * time, date, cashier ID, price, payment method and an array of menu item IDs.
+     */
+    private static final String SUBMIT_ORDER_QUERY =
+            "WITH new_order AS (" +
+            "    INSERT INTO Orders (orderTime, orderDate, employeeID, orderPrice, paymentMethod) " +
+            "    VALUES (?, ?, ?, ?, ?) RETURNING orderID, orderTime, orderDate, orderPrice" +
+            "), cart AS (" +
+            "    SELECT unnest(?::int[]) AS menuItemID" +
+            "), order_items AS (" +
+            "    INSERT INTO OrderMenuItem (orderID, menuItemID, orderDate) " +
+            "    SELECT new_order.orderID, cart.menuItemID, new_order.orderDate FROM new_order CROSS JOIN cart" +
+            "), hourly AS (" +
+            "    INSERT INTO HourlySales (salesDate, salesHour, orderCount, totalSales) " +
+            "    SELECT orderDate, EXTRACT(HOUR FROM orderTime)::int, 1, orderPrice FROM new_order " +
+            "    ON CONFLICT (salesDate, salesHour) DO UPDATE " +
+            "    SET orderCount = HourlySales.orderCount + 1, " +
+            "        totalSales = HourlySales.totalSales + EXCLUDED.totalSales" +
+            ") " +
+            "SELECT orderID FROM new_order";
+
+    /**
+     * Database round trips per submitted order: the set-based insert and the
+     * commit. Fixed by the shape of {@link #SUBMIT_ORDER_QUERY}, not measured.
+     */
+    private static final int SUBMIT_ROUND_TRIPS = 2;
+
+    private final Cart cart;
     private int cashierID;
-    private List<MenuItem> itemsOrdered;
-    private Connection conn;
+    private final ConnectionPool pool;
+    private final MenuCatalog catalog;
+    private final LiveSalesCounters salesCounters;
+    private final InventoryDeltaBuffer inventoryUsage;
+    private final SalesCube salesCube;
+    private final OrderBitmapIndex orderIndex;
+    private final OrderEventBus orderEvents;
+    private final AuditLog auditLog;
+    private volatile int lastOrderID;
+    private volatile int lastOrderRoundTrips;
 
     /**
      * Cashier constructor.
      * 
-     * @param conn The database connection
+     * @param pool The pool database connections are borrowed from
+     * @param catalog The menu catalog used for menu lookups
+     * @param salesCounters The live sales counters submitted orders are recorded in
+     * @param inventoryUsage The buffer the ingredients used by submitted orders are written through
+     * @param salesCube The per-item sales totals submitted orders are recorded in
+     * @param orderIndex The order bitmap index submitted orders are added to
+     * @param orderEvents The bus submitted orders are published to
+     * @param auditLog The log submitted orders are written to
      * @param cashierID The ID of the cashier
      */
-    public CashierFunctions(Connection conn, int cashierID) {
-        this.conn = conn;
+    public CashierFunctions(ConnectionPool pool, MenuCatalog catalog, LiveSalesCounters salesCounters,
+                            InventoryDeltaBuffer inventoryUsage, SalesCube salesCube, OrderBitmapIndex orderIndex,
+                            OrderEventBus orderEvents, AuditLog auditLog, int cashierID) {
+        this.pool = pool;
+        this.catalog = catalog;
+        this.salesCounters = salesCounters;
+        this.inventoryUsage = inventoryUsage;
+        this.salesCube = salesCube;
+        this.orderIndex = orderIndex;
+        this.orderEvents = orderEvents;
+        this.auditLog = auditLog;
         this.cashierID = cashierID;
-        this.itemsOrdered = new ArrayList<>();
-        this.total = 0.0;
+        this.cart = new Cart();
     }
 
     /**
      * Returns list of items ordered.
      * 
-     * @return The list of items ordered
+     * @return An unmodifiable view of the items ordered
      */
     public List<MenuItem> getItemsOrdered() {
-        return itemsOrdered;
+        return cart.getItems();
     }
 
     /**
-     * Returns menu items from the database.
+     * Returns menu items from the menu catalog.
      * 
      * @return A list of all menu items
      * @throws SQLException If there's an error retrieving menu items
      */
     public List<MenuItem> getMenuItems() throws SQLException {
-        List<MenuItem> menuItems = new ArrayList<>();
-        String query = "SELECT menuID, menuName, itemType, price FROM MenuItem";
-    
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
-             ResultSet result = pstmt.executeQuery()) {           
-            while (result.next()) {
-                int menuID = result.getInt("menuID");
-                String menuName = result.getString("menuName");
-                String itemType = result.getString("itemType");
-                double price = result.getDouble("price");
-                menuItems.add(new MenuItem(menuID, menuName, itemType, price));
-            }
-        }
-    
-        return menuItems;
+        return catalog.getMenuItems();
+    }
+
+    /**
+     * Returns the menu items of one category from the menu catalog.
+     * 
+     * @param itemType The category of the menu items, such as "Entree"
+     * @return A list of the menu items in the category
+     * @throws SQLException If there's an error retrieving menu items
+     */
+    public List<MenuItem> getMenuItems(String itemType) throws SQLException {
+        return catalog.getMenuItems(itemType);
     }
     
     /**
@@ -80,17 +127,11 @@ public class CashierFunctions {
      * @throws SQLException If the menu item is not found
      */
     public double getPrice(int menuItemID) throws SQLException {
-        String query = "SELECT price FROM MenuItem WHERE menuID = ?";
-        
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, menuItemID);
-            try (ResultSet result = pstmt.executeQuery()) {           
-                if (result.next()) {
-                    return result.getDouble("price");
-                }
-            }
+        MenuItem item = catalog.getMenuItem(menuItemID);
+        if (item == null) {
+            throw new SQLException("Menu item not found: " + menuItemID);
         }
-        throw new SQLException("Menu item not found: " + menuItemID);
+        return item.getPrice();
     }
 
     /**
@@ -99,7 +140,7 @@ public class CashierFunctions {
      * @param item The menu item to remove from the order
      */
     public void removeFromOrder(MenuItem item) {
-        itemsOrdered.remove(item);
+        cart.remove(item);
     }
 
     /**
@@ -108,12 +149,7 @@ public class CashierFunctions {
      * @return The subtotal of the current order
      */
     public double getSubtotal() {
-        total = 0;
-        
-        for (MenuItem item : itemsOrdered) {
-            total += item.getPrice();
-        }
-        return total;
+        return cart.getSubtotalCents() / 100.0;
     }
 
     /**
@@ -122,7 +158,7 @@ public class CashierFunctions {
      * @return The tax amount for the current order
      */
     public double getTaxes() {
-        return getSubtotal() * 0.08;
+        return cart.getTaxCents() / 100.0;
     }
 
     /**
@@ -131,7 +167,34 @@ public class CashierFunctions {
      * @return The total amount for the current order, including taxes
      */
     public double getTotal() {
-        return getSubtotal() + getTaxes();
+        return cart.getTotalCents() / 100.0;
+    }
+
+    /**
+     * Returns subtotal of current order in cents.
+     * 
+     * @return The subtotal of the current order in cents
+     */
+    public long getSubtotalCents() {
+        return cart.getSubtotalCents();
+    }
+
+    /**
+     * Returns the taxes for current order in cents.
+     * 
+     * @return The tax amount for the current order in cents
+     */
+    public long getTaxCents() {
+        return cart.getTaxCents();
+    }
+
+    /**
+     * Returns total for current order in cents.
+     * 
+     * @return The total amount for the current order in cents, including taxes
+     */
+    public long getTotalCents() {
+        return cart.getTotalCents();
     }
 
     /**
@@ -140,83 +203,132 @@ public class CashierFunctions {
      * @param item The menu item to add to the order
      */
     public void addToOrder(MenuItem item) {
-        itemsOrdered.add(item);
+        cart.add(item);
     }
 
     /**
-     * Submits and processes order. Updates associated inventory 
-     * item quantities in the inventory database.
+     * Removes every item from the current order.
+     */
+    public void clearOrder() {
+        cart.clear();
+    }
+
+    /**
+     * Submits and processes order. The order is priced from the given items,
+     * so it may be a copy of the cart taken before submitting; the list itself
+     * is left unchanged. The order header and its line items are sent as one
+     * set-based statement, so the number of round trips does not grow with the
+     * size of the cart. The ingredients used are totalled in memory and handed
+     * to the inventory buffer, which writes them in batches.
      * 
      * @param items The list of menu items to submit as an order
+     * @return The ID of the new order
      * @throws SQLException If there's an error submitting the order
      * @throws IllegalStateException If the order is empty
      */
-    public void submitOrder(List<MenuItem> items) throws SQLException {
+    public int submitOrder(List<MenuItem> items) throws SQLException {
         if (items.isEmpty()) {
             throw new IllegalStateException("Cannot submit an empty order");
         }
-    
-        conn.setAutoCommit(false);
-        try {
-            String orderQuery = "INSERT INTO Orders (orderTime, orderDate, employeeID, orderPrice, paymentMethod) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(orderQuery, Statement.RETURN_GENERATED_KEYS)) {
-                Timestamp now = new Timestamp(new Date().getTime());
-                pstmt.setTimestamp(1, now);
-                pstmt.setDate(2, new java.sql.Date(now.getTime()));
-                pstmt.setInt(3, cashierID);
-                pstmt.setDouble(4, getTotal());
-                pstmt.setString(5, "Cash");
-                updateInventory();
-    
-                pstmt.executeUpdate();
-    
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        int orderID = generatedKeys.getInt(1);
-    
-                        String orderMenuItemQuery = "INSERT INTO OrderMenuItem (orderID, menuItemID) VALUES (?, ?)";
-                        try (PreparedStatement orderMenuItemStmt = conn.prepareStatement(orderMenuItemQuery)) {
-                            for (MenuItem item : items) {
-                                orderMenuItemStmt.setInt(1, orderID);
-                                orderMenuItemStmt.setInt(2, item.getMenuID());
-                                orderMenuItemStmt.addBatch();
-                            }
-                            orderMenuItemStmt.executeBatch();
+
+        Integer[] menuItemIDs = new Integer[items.size()];
+        int[] menuIDs = new int[items.size()];
+        long subtotalCents = 0;
+        for (int i = 0; i < menuItemIDs.length; i++) {
+            menuIDs[i] = items.get(i).getMenuID();
+            menuItemIDs[i] = menuIDs[i];
+            subtotalCents += items.get(i).getPriceCents();
+        }
+
+        long orderPriceCents = subtotalCents + Cart.taxCents(subtotalCents);
+        Timestamp now = new Timestamp(new Date().getTime());
+        int orderID;
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(SUBMIT_ORDER_QUERY)) {
+                    pstmt.setTimestamp(1, now);
+                    pstmt.setDate(2, new java.sql.Date(now.getTime()));
+                    pstmt.setInt(3, cashierID);
+                    pstmt.setDouble(4, orderPriceCents / 100.0);
+                    pstmt.setString(5, "Cash");
+                    pstmt.setArray(6, conn.createArrayOf("integer", menuItemIDs));
+
+                    try (ResultSet result = pstmt.executeQuery()) {
+                        if (!result.next()) {
+                            throw new SQLException("Creating order failed, no ID obtained.");
                         }
-                    } else {
-                        throw new SQLException("Creating order failed, no ID obtained.");
+                        orderID = result.getInt("orderID");
                     }
                 }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-    
-            conn.commit();
-    
-            items.clear();
-            total = 0.0;
+        }
+
+        lastOrderID = orderID;
+        lastOrderRoundTrips = SUBMIT_ROUND_TRIPS;
+        try {
+            inventoryUsage.record(menuIDs);
         } catch (SQLException e) {
-            conn.rollback();
-            throw e;
-        } finally {
-            conn.setAutoCommit(true);
+            // The order is already committed, so only the inventory decrement is lost
+            System.err.println("Error recording inventory usage for order " + orderID + ": " + e.getMessage());
+        }
+        salesCounters.recordOrder(orderID, now.toLocalDateTime(), orderPriceCents, items.size());
+        salesCube.record(orderID, now.toLocalDateTime().toLocalDate(), menuIDs, orderPriceCents);
+        orderIndex.record(orderID, now.toLocalDateTime().toLocalDate(), menuIDs);
+        auditLog.record(orderID, cashierID, now.toLocalDateTime(), orderPriceCents, menuIDs);
+        if (!orderEvents.publish(orderID, cashierID, now.toLocalDateTime(), orderPriceCents, menuIDs)) {
+            System.err.println("Order " + orderID + " was not published to the order event subscribers");
         }
+        return orderID;
+    }
+
+    /**
+     * Returns the ID of the last order submitted by this cashier.
+     * 
+     * @return The last order ID, or 0 if no order has been submitted
+     */
+    public int getLastOrderID() {
+        return lastOrderID;
+    }
+
+    /**
+     * Returns the number of database round trips used by the last order
+     * submission. Every order takes the same {@value #SUBMIT_ROUND_TRIPS},
+     * whatever the size of the cart.
+     * 
+     * @return The round trips of the last submitted order, or 0 if no order has been submitted
+     */
+    public int getLastOrderRoundTrips() {
+        return lastOrderRoundTrips;
     }
 
     /**
      * Updates the inventory quantities by subtracting the quantities used in each menu item.
      * For each MenuItem in the list, this method will update the associated
      * inventory records, reducing the current inventory by the specified quantity.
+     * 
+     * @deprecated {@link #submitOrder(List)} now decrements inventory through
+     *             {@link InventoryDeltaBuffer}.
      */
+    @Deprecated
     public void updateInventory() {
         String orderQuery = "UPDATE inventory SET quantityinstock = inventory.quantityinstock - mi.quantityused FROM menuiteminventory mi WHERE inventory.inventoryid = mi.inventoryid AND mi.menuid = ?;";
 
-        try (PreparedStatement preparedStatement = conn.prepareStatement(orderQuery)) {
-            for (MenuItem item : itemsOrdered) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement preparedStatement = conn.prepareStatement(orderQuery)) {
+            for (MenuItem item : cart.getItems()) {
                 // Set the menuid for each menu item
                 preparedStatement.setInt(1, item.getMenuID());
 
                 // Execute the update query
                 int rowsAffected = preparedStatement.executeUpdate();
-                conn.commit();
                 
                 if (rowsAffected > 0) {
                     System.out.println("Inventory updated for menu item: " + item.getMenuID());
@@ -238,16 +350,10 @@ public class CashierFunctions {
      * @throws SQLException If the menu item is not found
      */
     public String getMenuItemName(int menuItemID) throws SQLException {
-        String query = "SELECT menuName FROM MenuItem WHERE menuID = ?";
-        
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, menuItemID);
-            try (ResultSet result = pstmt.executeQuery()) {           
-                if (result.next()) {
-                    return result.getString("menuName");
-                }
-            }
+        MenuItem item = catalog.getMenuItem(menuItemID);
+        if (item == null) {
+            throw new SQLException("Menu item not found: " + menuItemID);
         }
-        throw new SQLException("Menu item not found: " + menuItemID);
+        return item.getMenuName();
     }
 }
\ No newline at end of file
@@ -0,0 +1,380 @@
+package backend;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of database connections shared by the cashier and manager
+ * functions. Connections are borrowed with {@link #getConnection()} and given
+ * back by closing them, so callers use the usual try-with-resources pattern.
+ *
+ * Idle connections are validated before being handed out, idle connections
+ * above the minimum size are evicted in the background, and broken
+ * connections are replaced with fresh ones automatically.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long VALIDATION_INTERVAL_MILLIS = 5_000;
+    private static final int CONNECT_ATTEMPTS = 3;
+    private static final long CONNECT_BACKOFF_MILLIS = 500;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private int totalConnections;
+    private boolean closed;
+
+    /**
+     * Creates a pool and opens the minimum number of connections.
+     *
+     * @param url The JDBC URL of the database
+     * @param user The database user
+     * @param password The database password
+     * @param minSize The number of connections kept open while idle
+     * @param maxSize The maximum number of open connections
+     * @param idleTimeoutMillis How long a connection above the minimum may sit idle
+     * @param borrowTimeoutMillis How long {@link #getConnection()} waits for a free connection
+     * @throws SQLException If the initial connections cannot be opened
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min " + minSize + ", max " + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+
+        for (int i = 0; i < minSize; i++) {
+            idle.push(new IdleConnection(openPhysical()));
+            totalConnections++;
+        }
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1_000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool. Closing the returned connection gives
+     * it back to the pool instead of closing the underlying socket.
+     *
+     * @return A validated database connection
+     * @throws SQLException If no connection becomes available in time or a new one cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        long deadline = System.currentTimeMillis() + borrowTimeoutMillis;
+
+        while (true) {
+            IdleConnection candidate = null;
+            boolean mayOpen = false;
+
+            synchronized (this) {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    if (!idle.isEmpty()) {
+                        candidate = idle.pop();
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        mayOpen = true;
+                        break;
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new SQLException("Timed out waiting for a database connection");
+                    }
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+            }
+
+            if (mayOpen) {
+                try {
+                    return wrap(openPhysical());
+                } catch (SQLException e) {
+                    discarded();
+                    throw e;
+                }
+            }
+
+            if (isUsable(candidate)) {
+                return wrap(candidate.connection);
+            }
+            closeQuietly(candidate.connection);
+            discarded();
+        }
+    }
+
+    /**
+     * Returns the number of connections currently open, idle or borrowed.
+     *
+     * @return The number of open connections
+     */
+    public synchronized int getTotalConnections() {
+        return totalConnections;
+    }
+
+    /**
+     * Returns the number of connections currently waiting in the pool.
+     *
+     * @return The number of idle connections
+     */
+    public synchronized int getIdleConnections() {
+        return idle.size();
+    }
+
+    /**
+     * Closes every idle connection and stops the evictor. Borrowed connections
+     * are closed as they are returned.
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        synchronized (this) {
+            closed = true;
+            for (IdleConnection connection : idle) {
+                closeQuietly(connection.connection);
+                totalConnections--;
+            }
+            idle.clear();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Takes a connection back from a borrower, resetting any transaction state
+     * it was left in. Broken connections are dropped so a fresh one is opened
+     * on the next borrow.
+     *
+     * @param connection The physical connection being returned
+     */
+    private void release(Connection connection) {
+        boolean healthy;
+        try {
+            healthy = !connection.isClosed();
+            if (healthy && !connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        synchronized (this) {
+            if (healthy && !closed) {
+                idle.push(new IdleConnection(connection));
+                notifyAll();
+                return;
+            }
+        }
+        closeQuietly(connection);
+        discarded();
+    }
+
+    /**
+     * Closes idle connections that have exceeded the idle timeout while the pool
+     * is above its minimum size, then tops the pool back up to the minimum.
+     */
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Deque<Connection> expired = new ArrayDeque<>();
+        int missing;
+
+        synchronized (this) {
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections - expired.size() > minSize) {
+                IdleConnection connection = it.next();
+                if (now - connection.idleSince >= idleTimeoutMillis) {
+                    it.remove();
+                    expired.add(connection.connection);
+                }
+            }
+            totalConnections -= expired.size();
+            missing = closed ? 0 : minSize - totalConnections;
+            totalConnections += Math.max(0, missing);
+        }
+
+        for (Connection connection : expired) {
+            closeQuietly(connection);
+        }
+        for (int i = 0; i < missing; i++) {
+            try {
+                Connection connection = openPhysical();
+                synchronized (this) {
+                    idle.addLast(new IdleConnection(connection));
+                    notifyAll();
+                }
+            } catch (SQLException e) {
+                System.err.println("Error reopening pooled connection: " + e.getMessage());
+                discarded();
+            }
+        }
+    }
+
+    /**
+     * Checks an idle connection before handing it out. Connections used
+     * recently are trusted; older ones are pinged.
+     *
+     * @param connection The idle connection to check
+     * @return Whether the connection can be handed out
+     */
+    private boolean isUsable(IdleConnection connection) {
+        if (System.currentTimeMillis() - connection.idleSince < VALIDATION_INTERVAL_MILLIS) {
+            return true;
+        }
+        try {
+            return connection.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a new physical connection, retrying with a short backoff so a
+     * dropped network link is reconnected transparently.
+     *
+     * @return The new connection
+     * @throws SQLException If every attempt fails
+     */
+    private Connection openPhysical() throws SQLException {
+        SQLException lastError = null;
+        for (int attempt = 1; attempt <= CONNECT_ATTEMPTS; attempt++) {
+            try {
+                return DriverManager.getConnection(url, user, password);
+            } catch (SQLException e) {
+                lastError = e;
+                try {
+                    Thread.sleep(CONNECT_BACKOFF_MILLIS * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * Records that a connection slot was given up and wakes any waiting borrower.
+     */
+    private synchronized void discarded() {
+        totalConnections--;
+        notifyAll();
+    }
+
+    /**
+     * Wraps a physical connection so that closing it returns it to this pool.
+     *
+     * @param connection The physical connection
+     * @return The borrowed connection handed to callers
+     */
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new BorrowedConnection(connection));
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Already broken, nothing more to do
+        }
+    }
+
+    /**
+     * An idle connection along with the time it was returned to the pool.
+     */
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long idleSince;
+
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+            this.idleSince = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Forwards calls to the physical connection until the borrower closes it,
+     * at which point the connection goes back to the pool.
+     */
+    private final class BorrowedConnection implements InvocationHandler {
+        private final Connection connection;
+        private boolean returned;
+
+        private BorrowedConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(connection);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + connection;
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package backend;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a report as CSV, with a header row of column keys. Money is
+ * written in dollars with two decimals, and text is quoted when it holds a
+ * comma, quote or line break.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class CsvReportRenderer implements ReportRenderer {
+    private final Writer out;
+    private boolean firstCell;
+
+    /**
+     * Creates a renderer writing to a writer.
+     *
+     * @param out The writer to write the report to
+     */
+    public CsvReportRenderer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Creates a renderer writing UTF-8 to a stream.
+     *
+     * @param out The stream to write the report to
+     */
+    public CsvReportRenderer(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void begin(String title, Column... columns) throws IOException {
+        beginRow();
+        for (Column column : columns) {
+            text(column.getKey());
+        }
+        endRow();
+    }
+
+    @Override
+    public void beginRow() {
+        firstCell = true;
+    }
+
+    @Override
+    public void text(String value) throws IOException {
+        separate();
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    @Override
+    public void number(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+    }
+
+    @Override
+    public void money(long cents) throws IOException {
+        separate();
+        ReportRenderer.writeMoney(out, cents);
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        out.write("\r\n");
+    }
+
+    @Override
+    public void end() throws IOException {
+        out.flush();
+    }
+
+    private void separate() throws IOException {
+        if (!firstCell) {
+            out.write(',');
+        }
+        firstCell = false;
+    }
+}
@@ -0,0 +1,410 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Forecasts how many of each menu item will be ordered in each coming
+ * 15-minute slot, for planning what the kitchen cooks ahead. For every day of
+ * the week it keeps how many of each item were sold in each slot, read from
+ * the last few weeks of orders; the forecast for a slot is the average for
+ * that weekday and slot, scaled by how busy today has been compared with the
+ * same weekday so far.
+ *
+ * Counts live in flat arrays indexed by slot and menu ID, so recording an
+ * order costs one increment per item and can run alongside checkout. When
+ * the first order of a new day is recorded, the previous day is folded into
+ * the history. Today's orders are counted by order ID, so an order that is
+ * both read from the database and recorded by a register is counted once,
+ * however the two overlap.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class DemandForecast {
+    /** The length of a forecast slot in minutes. */
+    public static final int SLOT_MINUTES = 15;
+    /** The number of slots in a day. */
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    private static final int DAYS_OF_WEEK = 7;
+    /** Today's pace is trusted no further than halving or doubling the usual demand. */
+    private static final double MIN_TREND = 0.5;
+    private static final double MAX_TREND = 2.0;
+
+    private static final String SLOT_OF_ORDER =
+            "(EXTRACT(HOUR FROM o.orderTime)::int * 60 + EXTRACT(MINUTE FROM o.orderTime)::int) / " + SLOT_MINUTES;
+    private static final String HISTORY_QUERY =
+            "SELECT EXTRACT(ISODOW FROM o.orderDate)::int AS dayOfWeek, " + SLOT_OF_ORDER + " AS slot, " +
+            "omi.menuItemID, COUNT(*) AS quantity " +
+            "FROM Orders o JOIN OrderMenuItem omi ON o.orderID = omi.orderID AND o.orderDate = omi.orderDate " +
+            "WHERE o.orderDate >= ? AND o.orderDate < ? AND omi.orderDate >= ? AND omi.orderDate < ? " +
+            "AND o.orderTime IS NOT NULL " +
+            "GROUP BY 1, 2, 3";
+    /** Today's items one order at a time, so orders already recorded can be skipped. */
+    private static final String TODAY_QUERY =
+            "SELECT o.orderID, " + SLOT_OF_ORDER + " AS slot, omi.menuItemID " +
+            "FROM Orders o JOIN OrderMenuItem omi ON o.orderID = omi.orderID AND o.orderDate = omi.orderDate " +
+            "WHERE o.orderDate = ? AND omi.orderDate = ? AND o.orderTime IS NOT NULL " +
+            "ORDER BY o.orderID";
+    private static final String DAYS_QUERY =
+            "SELECT EXTRACT(ISODOW FROM orderDate)::int AS dayOfWeek, COUNT(DISTINCT orderDate) AS days " +
+            "FROM Orders WHERE orderDate >= ? AND orderDate < ? GROUP BY 1";
+
+    private int menuIDLimit;
+    private long[][] history = new long[DAYS_OF_WEEK][0];
+    private long[][] historySlotTotals = new long[DAYS_OF_WEEK][SLOTS_PER_DAY];
+    private int[] historyDays = new int[DAYS_OF_WEEK];
+    private LocalDate today = LocalDate.now();
+    private long[] todayCounts = new long[0];
+    private long[] todaySlotTotals = new long[SLOTS_PER_DAY];
+    private Set<Integer> todayOrders = new HashSet<>();
+    private boolean loaded;
+
+    /**
+     * Reads the items sold in each slot over the last few weeks, replacing
+     * the history the forecast held, and adds today's orders that have not
+     * been recorded yet. Orders recorded while the queries run are kept, and
+     * any of them the queries also read are skipped.
+     *
+     * @param pool The pool database connections are borrowed from
+     * @param weeks How many weeks of history to read
+     * @throws SQLException If the orders cannot be read
+     */
+    public void load(ConnectionPool pool, int weeks) throws SQLException {
+        LocalDate date = LocalDate.now();
+        LocalDate start = date.minusWeeks(weeks);
+        synchronized (this) {
+            rollOver(date);
+        }
+
+        int limit = 0;
+        long[][] rows = new long[0][];
+        int rowCount = 0;
+        // Order ID, slot and menu ID of each of today's items
+        int[] todayItems = new int[0];
+        int todayItemCount = 0;
+        int[] days = new int[DAYS_OF_WEEK];
+        try (Connection conn = pool.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(HISTORY_QUERY)) {
+                pstmt.setDate(1, Date.valueOf(start));
+                pstmt.setDate(2, Date.valueOf(date));
+                pstmt.setDate(3, Date.valueOf(start));
+                pstmt.setDate(4, Date.valueOf(date));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (rowCount == rows.length) {
+                            long[][] grown = new long[Math.max(1024, rowCount * 2)][];
+                            System.arraycopy(rows, 0, grown, 0, rowCount);
+                            rows = grown;
+                        }
+                        int menuID = rs.getInt("menuItemID");
+                        rows[rowCount++] = new long[] {rs.getInt("dayOfWeek") % DAYS_OF_WEEK,
+                                rs.getInt("slot"), menuID, rs.getLong("quantity")};
+                        limit = Math.max(limit, menuID + 1);
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(TODAY_QUERY)) {
+                pstmt.setDate(1, Date.valueOf(date));
+                pstmt.setDate(2, Date.valueOf(date));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (todayItemCount + 3 > todayItems.length) {
+                            int[] grown = new int[Math.max(3 * 1024, todayItems.length * 2)];
+                            System.arraycopy(todayItems, 0, grown, 0, todayItemCount);
+                            todayItems = grown;
+                        }
+                        int menuID = rs.getInt("menuItemID");
+                        todayItems[todayItemCount++] = rs.getInt("orderID");
+                        todayItems[todayItemCount++] = rs.getInt("slot");
+                        todayItems[todayItemCount++] = menuID;
+                        limit = Math.max(limit, menuID + 1);
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(DAYS_QUERY)) {
+                pstmt.setDate(1, Date.valueOf(start));
+                pstmt.setDate(2, Date.valueOf(date));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        days[rs.getInt("dayOfWeek") % DAYS_OF_WEEK] = rs.getInt("days");
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (limit > menuIDLimit) {
+                grow(limit);
+            }
+            limit = menuIDLimit;
+            long[][] newHistory = new long[DAYS_OF_WEEK][SLOTS_PER_DAY * limit];
+            long[][] newSlotTotals = new long[DAYS_OF_WEEK][SLOTS_PER_DAY];
+            for (int i = 0; i < rowCount; i++) {
+                long[] row = rows[i];
+                int slot = (int) row[1];
+                newHistory[(int) row[0]][slot * limit + (int) row[2]] += row[3];
+                newSlotTotals[(int) row[0]][slot] += row[3];
+            }
+            if (today.equals(date)) {
+                // Add the orders the registers have not recorded, each once
+                int orderID = 0;
+                boolean counted = false;
+                for (int i = 0; i < todayItemCount; i += 3) {
+                    if (i == 0 || todayItems[i] != orderID) {
+                        orderID = todayItems[i];
+                        counted = todayOrders.add(orderID);
+                    }
+                    if (counted) {
+                        todayCounts[todayItems[i + 1] * limit + todayItems[i + 2]]++;
+                        todaySlotTotals[todayItems[i + 1]]++;
+                    }
+                }
+            } else if (todayItemCount > 0) {
+                // A new day started while loading, so the day read is history now
+                int dayOfWeek = date.getDayOfWeek().getValue() % DAYS_OF_WEEK;
+                for (int i = 0; i < todayItemCount; i += 3) {
+                    newHistory[dayOfWeek][todayItems[i + 1] * limit + todayItems[i + 2]]++;
+                    newSlotTotals[dayOfWeek][todayItems[i + 1]]++;
+                }
+                days[dayOfWeek]++;
+            }
+            history = newHistory;
+            historySlotTotals = newSlotTotals;
+            historyDays = days;
+            loaded = true;
+        }
+    }
+
+    /**
+     * Returns whether the history has been loaded.
+     *
+     * @return True once {@link #load(ConnectionPool, int)} has completed
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Records the items of a submitted order. An order already counted today
+     * is skipped.
+     *
+     * @param orderID The ID of the order
+     * @param orderTime When the order was placed
+     * @param menuIDs The menu item ID of every item in the order
+     */
+    public synchronized void record(int orderID, LocalDateTime orderTime, int[] menuIDs) {
+        LocalDate date = orderTime.toLocalDate();
+        if (date.isBefore(today)) {
+            return;
+        }
+        rollOver(date);
+        if (!todayOrders.add(orderID)) {
+            return;
+        }
+        int slot = slotOf(orderTime.toLocalTime());
+        for (int menuID : menuIDs) {
+            if (menuID < 0) {
+                continue;
+            }
+            if (menuID >= menuIDLimit) {
+                grow(menuID + 1);
+            }
+            todayCounts[slot * menuIDLimit + menuID]++;
+            todaySlotTotals[slot]++;
+        }
+    }
+
+    /**
+     * Forecasts each menu item's demand in the slots starting with the one a
+     * time falls in.
+     *
+     * @param from The time to forecast from
+     * @param slots How many slots to forecast
+     * @return The forecast
+     */
+    public synchronized Plan getPlan(LocalDateTime from, int slots) {
+        rollOver(from.toLocalDate());
+        LocalDateTime start = from.toLocalDate().atStartOfDay().plusMinutes((long) slotOf(from.toLocalTime()) * SLOT_MINUTES);
+        double trend = getTrend(from);
+        double[] demand = new double[slots * menuIDLimit];
+        LocalTime[] slotStarts = new LocalTime[slots];
+        for (int i = 0; i < slots; i++) {
+            LocalDateTime slotStart = start.plusMinutes((long) i * SLOT_MINUTES);
+            slotStarts[i] = slotStart.toLocalTime();
+            int dayOfWeek = slotStart.getDayOfWeek().getValue() % DAYS_OF_WEEK;
+            int days = historyDays[dayOfWeek];
+            if (days == 0) {
+                continue;
+            }
+            int slot = slotOf(slotStart.toLocalTime());
+            for (int menuID = 0; menuID < menuIDLimit; menuID++) {
+                demand[i * menuIDLimit + menuID] = trend * history[dayOfWeek][slot * menuIDLimit + menuID] / days;
+            }
+        }
+        return new Plan(slotStarts, menuIDLimit, demand, trend);
+    }
+
+    /**
+     * A forecast of each menu item's demand over a run of slots.
+     */
+    public static final class Plan {
+        private final LocalTime[] slotStarts;
+        private final int menuIDLimit;
+        private final double[] demand;
+        private final double trend;
+
+        private Plan(LocalTime[] slotStarts, int menuIDLimit, double[] demand, double trend) {
+            this.slotStarts = slotStarts;
+            this.menuIDLimit = menuIDLimit;
+            this.demand = demand;
+            this.trend = trend;
+        }
+
+        /**
+         * Returns the number of slots forecast.
+         *
+         * @return The number of slots
+         */
+        public int getSlots() {
+            return slotStarts.length;
+        }
+
+        /**
+         * Returns when a slot starts.
+         *
+         * @param slot The slot, from 0
+         * @return The start time of the slot
+         */
+        public LocalTime getSlotStart(int slot) {
+            return slotStarts[slot];
+        }
+
+        /**
+         * Returns one more than the highest menu ID in the forecast.
+         *
+         * @return The menu ID limit
+         */
+        public int getMenuIDLimit() {
+            return menuIDLimit;
+        }
+
+        /**
+         * Returns how many of a menu item are expected to be ordered in a slot.
+         *
+         * @param menuID The ID of the menu item
+         * @param slot The slot, from 0
+         * @return The expected quantity
+         */
+        public double getDemand(int menuID, int slot) {
+            return menuID >= 0 && menuID < menuIDLimit ? demand[slot * menuIDLimit + menuID] : 0;
+        }
+
+        /**
+         * Returns how many of a menu item are expected to be ordered over all the slots.
+         *
+         * @param menuID The ID of the menu item
+         * @return The expected quantity
+         */
+        public double getTotal(int menuID) {
+            double total = 0;
+            for (int slot = 0; slot < slotStarts.length; slot++) {
+                total += getDemand(menuID, slot);
+            }
+            return total;
+        }
+
+        /**
+         * Returns how busy today has been compared with the same weekday in the
+         * history, which every slot's usual demand was scaled by.
+         *
+         * @return The trend, 1 when today is as busy as usual
+         */
+        public double getTrend() {
+            return trend;
+        }
+    }
+
+    /**
+     * Compares the items sold today before the current slot with the usual
+     * number for this weekday.
+     */
+    private double getTrend(LocalDateTime now) {
+        int dayOfWeek = now.getDayOfWeek().getValue() % DAYS_OF_WEEK;
+        int days = historyDays[dayOfWeek];
+        int currentSlot = slotOf(now.toLocalTime());
+        double expected = 0;
+        long actual = 0;
+        for (int slot = 0; slot < currentSlot; slot++) {
+            expected += days == 0 ? 0 : (double) historySlotTotals[dayOfWeek][slot] / days;
+            actual += todaySlotTotals[slot];
+        }
+        if (expected < 1) {
+            return 1;
+        }
+        return Math.max(MIN_TREND, Math.min(MAX_TREND, actual / expected));
+    }
+
+    /**
+     * Folds today's counts into the history once a later day starts.
+     */
+    private void rollOver(LocalDate date) {
+        if (!date.isAfter(today)) {
+            return;
+        }
+        if (loaded) {
+            int dayOfWeek = today.getDayOfWeek().getValue() % DAYS_OF_WEEK;
+            long items = 0;
+            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                historySlotTotals[dayOfWeek][slot] += todaySlotTotals[slot];
+                items += todaySlotTotals[slot];
+            }
+            for (int i = 0; i < todayCounts.length; i++) {
+                history[dayOfWeek][i] += todayCounts[i];
+            }
+            if (items > 0) {
+                historyDays[dayOfWeek]++;
+            }
+        }
+        today = date;
+        todayCounts = new long[SLOTS_PER_DAY * menuIDLimit];
+        todaySlotTotals = new long[SLOTS_PER_DAY];
+        todayOrders = new HashSet<>();
+    }
+
+    /**
+     * Widens every count array to hold more menu IDs.
+     */
+    private void grow(int minimumLimit) {
+        int limit = Math.max(minimumLimit, menuIDLimit * 2);
+        for (int dayOfWeek = 0; dayOfWeek < DAYS_OF_WEEK; dayOfWeek++) {
+            history[dayOfWeek] = widen(history[dayOfWeek], limit);
+        }
+        todayCounts = widen(todayCounts, limit);
+        menuIDLimit = limit;
+    }
+
+    private long[] widen(long[] counts, int limit) {
+        long[] widened = new long[SLOTS_PER_DAY * limit];
+        for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+            System.arraycopy(counts, slot * menuIDLimit, widened, slot * limit, menuIDLimit);
+        }
+        return widened;
+    }
+
+    private static int slotOf(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+}
@@ -0,0 +1,245 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import models.LowStockAlert;
+
+/**
+ * Collects the ingredients used by submitted orders and writes them to the
+ * Inventory table in batches. Each order's usage is computed in memory from
+ * the {@link RecipeCache} and added to a running per-ingredient total; on
+ * every flush the totals from all orders since the last flush are written in
+ * one statement, so busy terminals update each ingredient row once per flush
+ * rather than once per order item.
+ *
+ * Usage that has not been flushed yet lives only in memory, so the buffer is
+ * flushed when it is closed. Each flush also appends one sale entry per
+ * ingredient to the {@link InventoryLedger}, in the same statement.
+ *
+ * Each ingredient is also taken off the buffer's {@link StockLevels} as the
+ * order is recorded, which raises low-stock alerts without reading the
+ * Inventory table back.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class InventoryDeltaBuffer implements AutoCloseable {
+    private static final String FLUSH_QUERY =
+            "WITH d AS (SELECT * FROM unnest(?::int[], ?::float8[]) AS d(inventoryID, quantityUsed)), " +
+            "ledger AS (INSERT INTO InventoryLedger (inventoryID, quantityChange, reason) " +
+            "    SELECT inventoryID, -quantityUsed, '" + InventoryLedger.SALE + "' FROM d) " +
+            "UPDATE Inventory SET quantityInStock = Inventory.quantityInStock - d.quantityUsed " +
+            "FROM d WHERE Inventory.inventoryID = d.inventoryID";
+    private static final String LEVELS_QUERY =
+            "SELECT inventoryID, itemName, quantityInStock, reorderThreshold FROM Inventory";
+
+    private final ConnectionPool pool;
+    private final RecipeCache recipes;
+    private final ScheduledExecutorService flusher;
+    private final StockLevels stockLevels = new StockLevels();
+    private final Object flushLock = new Object();
+    private double[] pending = new double[0];
+    private int pendingOrders;
+
+    /**
+     * Creates a buffer that flushes on a fixed interval.
+     *
+     * @param pool The pool database connections are borrowed from
+     * @param recipes The recipes used to work out each order's ingredients
+     * @param flushIntervalMillis How often pending usage is written to the database
+     */
+    public InventoryDeltaBuffer(ConnectionPool pool, RecipeCache recipes, long flushIntervalMillis) {
+        this.pool = pool;
+        this.recipes = recipes;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (SQLException e) {
+                System.err.println("Error flushing inventory usage: " + e.getMessage());
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the ingredients used by an order to the pending usage and takes
+     * them off the stock levels, publishing an alert for every item the order
+     * takes to or below its reorder threshold.
+     *
+     * @param menuIDs The menu items in the order
+     * @throws SQLException If the recipes have to be loaded and the load fails
+     */
+    public void record(int[] menuIDs) throws SQLException {
+        List<LowStockAlert> alerts = new ArrayList<>(0);
+        // One snapshot, so a reload in between cannot hand out an ID past the array sized here
+        RecipeCache.Recipes current = recipes.snapshot();
+        synchronized (this) {
+            int size = current.getMaxInventoryID() + 1;
+            if (pending.length < size) {
+                double[] grown = new double[size];
+                System.arraycopy(pending, 0, grown, 0, pending.length);
+                pending = grown;
+            }
+            double[] usage = pending;
+            current.forEachUsage(menuIDs, (inventoryID, quantity) -> {
+                usage[inventoryID] += quantity;
+                LowStockAlert alert = stockLevels.use(inventoryID, quantity);
+                if (alert != null) {
+                    alerts.add(alert);
+                }
+            });
+            pendingOrders++;
+        }
+        if (!alerts.isEmpty()) {
+            stockLevels.publish(alerts);
+        }
+    }
+
+    /**
+     * Returns the stock levels orders are taken off.
+     *
+     * @return The stock levels
+     */
+    public StockLevels getStockLevels() {
+        return stockLevels;
+    }
+
+    /**
+     * Reads every item's stock and reorder threshold into the stock levels.
+     * Flushes wait while the Inventory table is read, so the usage still
+     * pending afterwards is exactly what the table is missing and is taken
+     * off the levels read. Orders keep being recorded meanwhile.
+     *
+     * @throws SQLException If the inventory cannot be read
+     */
+    public void loadStockLevels() throws SQLException {
+        synchronized (flushLock) {
+            List<Object[]> rows = new ArrayList<>();
+            int maxInventoryID = -1;
+            try (Connection conn = pool.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(LEVELS_QUERY);
+                 ResultSet result = pstmt.executeQuery()) {
+                while (result.next()) {
+                    int inventoryID = result.getInt("inventoryID");
+                    rows.add(new Object[] {inventoryID, result.getString("itemName"),
+                            result.getDouble("quantityInStock"), result.getDouble("reorderThreshold")});
+                    maxInventoryID = Math.max(maxInventoryID, inventoryID);
+                }
+            }
+
+            String[] itemNames = new String[maxInventoryID + 1];
+            double[] quantities = new double[maxInventoryID + 1];
+            double[] thresholds = new double[maxInventoryID + 1];
+            for (Object[] row : rows) {
+                int inventoryID = (Integer) row[0];
+                itemNames[inventoryID] = (String) row[1];
+                quantities[inventoryID] = (Double) row[2];
+                thresholds[inventoryID] = (Double) row[3];
+            }
+            synchronized (this) {
+                for (int id = 0; id < quantities.length && id < pending.length; id++) {
+                    quantities[id] -= pending[id];
+                }
+                stockLevels.reset(itemNames, quantities, thresholds);
+            }
+        }
+    }
+
+    /**
+     * Writes all pending usage to the Inventory table in a single statement.
+     * If the write fails the usage is kept and retried on the next flush.
+     *
+     * @return The number of inventory rows updated
+     * @throws SQLException If the update fails
+     */
+    public int flush() throws SQLException {
+        synchronized (flushLock) {
+            return flushPending();
+        }
+    }
+
+    private int flushPending() throws SQLException {
+        double[] usage;
+        int orders;
+        synchronized (this) {
+            if (pendingOrders == 0) {
+                return 0;
+            }
+            usage = pending;
+            orders = pendingOrders;
+            pending = new double[usage.length];
+            pendingOrders = 0;
+        }
+
+        int count = 0;
+        for (double quantity : usage) {
+            if (quantity != 0) {
+                count++;
+            }
+        }
+        Integer[] inventoryIDs = new Integer[count];
+        Double[] quantities = new Double[count];
+        for (int id = 0, i = 0; id < usage.length; id++) {
+            if (usage[id] != 0) {
+                inventoryIDs[i] = id;
+                quantities[i] = usage[id];
+                i++;
+            }
+        }
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(FLUSH_QUERY)) {
+            pstmt.setArray(1, conn.createArrayOf("integer", inventoryIDs));
+            pstmt.setArray(2, conn.createArrayOf("float8", quantities));
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            restore(usage, orders);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes whatever usage is still pending.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            System.err.println("Error flushing inventory usage: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Puts usage from a failed flush back into the pending totals.
+     */
+    private synchronized void restore(double[] usage, int orders) {
+        if (pending.length < usage.length) {
+            double[] grown = new double[usage.length];
+            System.arraycopy(pending, 0, grown, 0, pending.length);
+            pending = grown;
+        }
+        for (int id = 0; id < usage.length; id++) {
+            pending[id] += usage[id];
+        }
+        pendingOrders += orders;
+    }
+}
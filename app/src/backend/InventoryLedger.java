@@ -0,0 +1,176 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes the append-only InventoryLedger. Every change to an
+ * item's stock is a ledger entry written in the same statement that updates
+ * Inventory.quantityInStock: sales by the {@link InventoryDeltaBuffer} flush,
+ * one entry per ingredient per flush, and adjustments and deliveries by the
+ * manager.
+ *
+ * Snapshots of every item's stock are taken periodically, so the stock at
+ * any past time is the last snapshot before it plus the entries between the
+ * two. A snapshot holds the ledger lock while it reads Inventory, which
+ * makes the entries it counts exactly those written up to its time.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class InventoryLedger implements AutoCloseable {
+    /** The reason recorded for ingredients used by orders. */
+    public static final String SALE = "sale";
+    /** The reason recorded for stock received. */
+    public static final String DELIVERY = "delivery";
+    /** The reason recorded for manual corrections. */
+    public static final String ADJUSTMENT = "adjustment";
+
+    private static final String SNAPSHOT_QUERY =
+            "INSERT INTO InventorySnapshots (inventoryID, snapshotTime, quantityInStock) " +
+            "SELECT inventoryID, statement_timestamp(), COALESCE(quantityInStock, 0) FROM Inventory " +
+            "WHERE NOT EXISTS (SELECT 1 FROM InventorySnapshots) " +
+            "OR EXISTS (SELECT 1 FROM InventoryLedger WHERE entryTime > (SELECT MAX(snapshotTime) FROM InventorySnapshots))";
+    private static final String STOCK_AT_QUERY =
+            "SELECT i.inventoryID, COALESCE(s.quantityInStock, 0) + COALESCE(SUM(l.quantityChange), 0) AS quantityInStock " +
+            "FROM Inventory i " +
+            "LEFT JOIN LATERAL (SELECT snapshotTime, quantityInStock FROM InventorySnapshots " +
+            "    WHERE inventoryID = i.inventoryID AND snapshotTime <= ? " +
+            "    ORDER BY snapshotTime DESC LIMIT 1) s ON true " +
+            "LEFT JOIN InventoryLedger l ON l.inventoryID = i.inventoryID " +
+            "    AND l.entryTime > COALESCE(s.snapshotTime, '-infinity') AND l.entryTime <= ? ";
+    private static final String DELIVERY_QUERY =
+            "WITH received AS (UPDATE Inventory SET quantityInStock = COALESCE(quantityInStock, 0) + ? " +
+            "    WHERE itemName = ? RETURNING inventoryID) " +
+            "INSERT INTO InventoryLedger (inventoryID, quantityChange, reason) " +
+            "SELECT inventoryID, ?, '" + DELIVERY + "' FROM received";
+
+    private final ConnectionPool pool;
+    private ScheduledExecutorService snapshotter;
+
+    /**
+     * Creates a ledger that only takes snapshots when asked to.
+     *
+     * @param pool The pool database connections are borrowed from
+     */
+    public InventoryLedger(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Starts taking a snapshot on a fixed interval, beginning with one right
+     * away. An interval in which the ledger did not change adds no snapshot.
+     *
+     * @param intervalMillis How often to take a snapshot
+     */
+    public synchronized void startSnapshots(long intervalMillis) {
+        if (snapshotter != null) {
+            return;
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(() -> {
+            try {
+                takeSnapshot();
+            } catch (SQLException e) {
+                System.err.println("Error taking inventory snapshot: " + e.getMessage());
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records every item's current stock as a snapshot, unless nothing has
+     * been written to the ledger since the last one.
+     *
+     * @return The number of items recorded
+     * @throws SQLException If the snapshot cannot be written
+     */
+    public int takeSnapshot() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                // Waits for ledger writes in progress and holds off new ones until the snapshot commits
+                stmt.execute("LOCK TABLE InventoryLedger IN SHARE MODE");
+                int items = stmt.executeUpdate(SNAPSHOT_QUERY);
+                conn.commit();
+                return items;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Adds stock received for an item and records it as a delivery.
+     *
+     * @param itemName The name of the inventory item
+     * @param quantity The quantity received
+     * @throws SQLException If the item is not found or the delivery cannot be recorded
+     */
+    public void recordDelivery(String itemName, double quantity) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(DELIVERY_QUERY)) {
+            pstmt.setDouble(1, quantity);
+            pstmt.setString(2, itemName);
+            pstmt.setDouble(3, quantity);
+            if (pstmt.executeUpdate() == 0) {
+                throw new SQLException("Inventory item not found: " + itemName);
+            }
+        }
+    }
+
+    /**
+     * Works out every item's stock at a past time from the last snapshot
+     * before it and the ledger entries since. Before the first snapshot only
+     * the ledger entries are counted.
+     *
+     * @param time The time to work out the stock at
+     * @return The quantity in stock of each item, by inventory ID
+     * @throws SQLException If the ledger cannot be read
+     */
+    public Map<Integer, Double> getStockAt(LocalDateTime time) throws SQLException {
+        String query = STOCK_AT_QUERY + "GROUP BY i.inventoryID, s.quantityInStock";
+        Map<Integer, Double> stock = new HashMap<>();
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(time));
+            pstmt.setTimestamp(2, Timestamp.valueOf(time));
+            try (ResultSet result = pstmt.executeQuery()) {
+                while (result.next()) {
+                    stock.put(result.getInt("inventoryID"), result.getDouble("quantityInStock"));
+                }
+            }
+        }
+        return stock;
+    }
+
+    /**
+     * Stops the periodic snapshots.
+     */
+    @Override
+    public synchronized void close() {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+        }
+    }
+}
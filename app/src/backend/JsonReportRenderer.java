@@ -0,0 +1,123 @@
+package backend;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a report as a JSON object with its title and an array of rows,
+ * each row an object keyed by column. Money is written as a number of
+ * dollars with two decimals.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class JsonReportRenderer implements ReportRenderer {
+    private final Writer out;
+    private Column[] columns;
+    private int column;
+    private boolean firstRow;
+
+    /**
+     * Creates a renderer writing to a writer.
+     *
+     * @param out The writer to write the report to
+     */
+    public JsonReportRenderer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Creates a renderer writing UTF-8 to a stream.
+     *
+     * @param out The stream to write the report to
+     */
+    public JsonReportRenderer(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void begin(String title, Column... columns) throws IOException {
+        this.columns = columns;
+        this.firstRow = true;
+        out.write("{\"title\":");
+        string(title);
+        out.write(",\"rows\":[");
+    }
+
+    @Override
+    public void beginRow() throws IOException {
+        out.write(firstRow ? "\n{" : ",\n{");
+        firstRow = false;
+        column = 0;
+    }
+
+    @Override
+    public void text(String value) throws IOException {
+        key();
+        if (value == null) {
+            out.write("null");
+        } else {
+            string(value);
+        }
+    }
+
+    @Override
+    public void number(long value) throws IOException {
+        key();
+        out.write(Long.toString(value));
+    }
+
+    @Override
+    public void money(long cents) throws IOException {
+        key();
+        ReportRenderer.writeMoney(out, cents);
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        out.write('}');
+    }
+
+    @Override
+    public void end() throws IOException {
+        out.write("\n]}\n");
+        out.flush();
+    }
+
+    private void key() throws IOException {
+        if (column > 0) {
+            out.write(',');
+        }
+        string(columns[column].getKey());
+        out.write(':');
+        column++;
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,214 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import models.HourlySales;
+
+/**
+ * In-process sales counters for the current day, kept per hour. Every
+ * submitted order bumps the counters for its hour, so the X report can be
+ * read from memory without touching the database.
+ *
+ * Updates and reads are lock-free: each hour's counters are atomic, and the
+ * whole day is swapped out atomically when the date rolls over. Each day
+ * remembers the IDs of the orders it has counted, so an order is counted
+ * once whether it is recorded by a register, read by {@link #seed}, or both.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class LiveSalesCounters {
+    private static final int HOURS = 24;
+
+    private final AtomicReference<Day> today = new AtomicReference<>(new Day(LocalDate.now()));
+
+    /**
+     * Records a submitted order. An order already counted is skipped.
+     *
+     * @param orderID The ID of the order
+     * @param orderTime When the order was placed
+     * @param priceCents The order total in cents
+     * @param itemCount The number of items in the order
+     */
+    public void recordOrder(int orderID, LocalDateTime orderTime, long priceCents, int itemCount) {
+        Day day = dayFor(orderTime.toLocalDate());
+        if (day != null) {
+            day.count(orderID, orderTime.getHour(), priceCents, itemCount);
+        }
+    }
+
+    /**
+     * Adds today's orders from the database to the counters. The orders are
+     * read one row each in a single query, and each is counted only if it
+     * has not been counted already, so orders recorded before, during or
+     * after the query are never counted twice and seeding again is harmless.
+     *
+     * @param pool The pool database connections are borrowed from
+     * @throws SQLException If there's an error reading today's sales
+     */
+    public void seed(ConnectionPool pool) throws SQLException {
+        Day day = current();
+        String query = "SELECT o.orderID, EXTRACT(HOUR FROM o.orderTime)::int AS hour, o.orderPrice, " +
+                       "COUNT(omi.menuItemID) AS totalItems " +
+                       "FROM Orders o LEFT JOIN OrderMenuItem omi ON o.orderID = omi.orderID AND omi.orderDate = ? " +
+                       "WHERE o.orderDate = ? GROUP BY o.orderID, o.orderTime, o.orderPrice";
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setDate(1, Date.valueOf(day.date));
+            pstmt.setDate(2, Date.valueOf(day.date));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    day.count(rs.getInt("orderID"), rs.getInt("hour"),
+                            Math.round(rs.getDouble("orderPrice") * 100), rs.getInt("totalItems"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of orders placed today in the given hour.
+     *
+     * @param hour The hour of the day, from 0 to 23
+     * @return The number of orders
+     */
+    public long getOrders(int hour) {
+        return current().orders.get(hour);
+    }
+
+    /**
+     * Returns today's sales in the given hour.
+     *
+     * @param hour The hour of the day, from 0 to 23
+     * @return The sales in cents
+     */
+    public long getSalesCents(int hour) {
+        return current().salesCents.get(hour);
+    }
+
+    /**
+     * Returns the number of items sold today in the given hour.
+     *
+     * @param hour The hour of the day, from 0 to 23
+     * @return The number of items sold
+     */
+    public long getItems(int hour) {
+        return current().items.get(hour);
+    }
+
+    /**
+     * Returns today's orders and sales by hour. Hours without orders are left out.
+     *
+     * @return Today's sales by hour
+     */
+    public List<HourlySales> getHourlySales() {
+        Day day = current();
+        List<HourlySales> hourlySales = new ArrayList<>();
+        for (int hour = 0; hour < HOURS; hour++) {
+            long orders = day.orders.get(hour);
+            if (orders > 0) {
+                hourlySales.add(new HourlySales(hour, orders, day.salesCents.get(hour)));
+            }
+        }
+        return hourlySales;
+    }
+
+    /**
+     * Returns today's sales by hour, formatted like {@link ManagerFunctions#getXReport()}
+     * with the number of items sold added.
+     *
+     * @return A list of sales numbers by hour
+     */
+    public List<String> getXReport() {
+        Day day = current();
+        List<String> report = new ArrayList<>();
+        long grandTotalOrders = 0;
+        long grandTotalCents = 0;
+        long grandTotalItems = 0;
+
+        for (int hour = 0; hour < HOURS; hour++) {
+            long orders = day.orders.get(hour);
+            if (orders == 0) {
+                continue;
+            }
+            long cents = day.salesCents.get(hour);
+            long items = day.items.get(hour);
+            grandTotalOrders += orders;
+            grandTotalCents += cents;
+            grandTotalItems += items;
+
+            String hourRange = String.format("%02d:00 - %02d:59", hour, hour);
+            report.add(String.format("%-15s Orders: %-5d Sales: $%-10.2f Items: %d", hourRange, orders, cents / 100.0, items));
+        }
+        report.add(String.format("\nGrand Total:   Orders: %-5d Sales: $%-10.2f Items: %d",
+                grandTotalOrders, grandTotalCents / 100.0, grandTotalItems));
+        return report;
+    }
+
+    /**
+     * Returns the counters for today, starting a fresh day if the date has rolled over.
+     *
+     * @return Today's counters
+     */
+    private Day current() {
+        Day day = dayFor(LocalDate.now());
+        return day == null ? today.get() : day;
+    }
+
+    /**
+     * Returns the counters for a date, rolling the counters over if the date is
+     * after the day currently held.
+     *
+     * @param date The date of the order
+     * @return The counters for the date, or null if the date is before the current day
+     */
+    private Day dayFor(LocalDate date) {
+        while (true) {
+            Day day = today.get();
+            if (day.date.equals(date)) {
+                return day;
+            }
+            if (date.isBefore(day.date)) {
+                return null;
+            }
+            today.compareAndSet(day, new Day(date));
+        }
+    }
+
+    /**
+     * The per-hour counters for a single day.
+     */
+    private static final class Day {
+        private final LocalDate date;
+        private final AtomicLongArray orders = new AtomicLongArray(HOURS);
+        private final AtomicLongArray salesCents = new AtomicLongArray(HOURS);
+        private final AtomicLongArray items = new AtomicLongArray(HOURS);
+        private final Set<Integer> counted = ConcurrentHashMap.newKeySet();
+
+        private Day(LocalDate date) {
+            this.date = date;
+        }
+
+        private void count(int orderID, int hour, long priceCents, long itemCount) {
+            if (counted.add(orderID)) {
+                orders.incrementAndGet(hour);
+                salesCents.addAndGet(hour, priceCents);
+                items.addAndGet(hour, itemCount);
+            }
+        }
+    }
+}
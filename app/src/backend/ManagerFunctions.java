@@ -1,17 +1,28 @@
 package backend;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import models.Employee;
+import models.HourlySales;
 import models.Inventory;
 import models.InventoryUsage;
+import models.ItemSales;
+import models.MenuEngineeringItem;
 import models.MenuItem;
+import models.ScheduledShift;
 
 /**
  * Functions that are needed for a manager including getting and setting databases
@@ -23,15 +34,57 @@ import models.MenuItem;
  * @author Richard Huynh
  */
 public class ManagerFunctions {
-    private final Connection conn;
+    private final ConnectionPool pool;
+    private final ReportCache reportCache;
+    private final SalesCube salesCube;
+    private final OrderBitmapIndex orderIndex;
+    private final MenuCatalog catalog;
+    private final RecipeCosts recipeCosts;
+
+    /**
+     * Manager constructor. Report results are cached in memory only.
+     * 
+     * @param pool The pool database connections are borrowed from
+     */
+    public ManagerFunctions(ConnectionPool pool) {
+        this(pool, new ReportCache(pool, null));
+    }
 
     /**
      * Manager constructor.
      * 
-     * @param conn The database connection
+     * @param pool The pool database connections are borrowed from
+     * @param reportCache The cache the date range reports are read through
+     */
+    public ManagerFunctions(ConnectionPool pool, ReportCache reportCache) {
+        this(pool, reportCache, null, null, null);
+    }
+
+    /**
+     * Manager constructor. Once the sales cube is loaded, the sales and
+     * popularity reports are answered from it instead of the report cache,
+     * and once the order index is loaded, basket questions are answered from
+     * it instead of reading the orders of the period. Food costs are rolled
+     * up once and read again when the catalog announces a menu or recipe
+     * change, or when a unit price is changed here.
+     * 
+     * @param pool The pool database connections are borrowed from
+     * @param reportCache The cache the date range reports are read through
+     * @param salesCube The per-item sales totals, or null to use the report cache
+     * @param orderIndex The order bitmap index, or null to read the orders of each period
+     * @param catalog The menu catalog the names of menu items are read from, or null to query them
      */
-    public ManagerFunctions(Connection conn) {
-        this.conn = conn;
+    public ManagerFunctions(ConnectionPool pool, ReportCache reportCache, SalesCube salesCube,
+                            OrderBitmapIndex orderIndex, MenuCatalog catalog) {
+        this.pool = pool;
+        this.reportCache = reportCache;
+        this.salesCube = salesCube;
+        this.orderIndex = orderIndex;
+        this.catalog = catalog;
+        this.recipeCosts = new RecipeCosts(pool);
+        if (catalog != null) {
+            catalog.addChangeListener(recipeCosts::invalidate);
+        }
     }
 
     /**
@@ -43,7 +96,8 @@ public class ManagerFunctions {
     public void setPrice(String menuItem, double price) {
         String query = "UPDATE menuitem SET price = ? WHERE menuname = ?";
         
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setDouble(1, price);
             pstmt.setString(2, menuItem);
             int affectedRows = pstmt.executeUpdate();
@@ -51,6 +105,7 @@ public class ManagerFunctions {
             if (affectedRows == 0) {
                 throw new SQLException("Menu item not found: " + menuItem);
             }
+            MenuCatalog.publishChange(conn);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -66,7 +121,8 @@ public class ManagerFunctions {
     public double getPrice(int id) throws SQLException {
         String query = "SELECT price FROM MenuItem WHERE menuID = ?";
         
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, id);
             try (ResultSet result = pstmt.executeQuery()) {           
                 if (result.next()) {
@@ -87,7 +143,8 @@ public class ManagerFunctions {
         List<MenuItem> menuItems = new ArrayList<>();
         String query = "SELECT menuID, menuName, price, itemType FROM MenuItem";
         
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet result = pstmt.executeQuery()) {
             while (result.next()) {
                 int id = result.getInt("menuID");
@@ -111,7 +168,8 @@ public class ManagerFunctions {
     public void setMenuItem(String menuName, String type, double price) {
         String query = "UPDATE menuitem SET price = ?, itemType = ? WHERE menuname = ?";
         
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setDouble(1, price);
             pstmt.setString(2, type);
             pstmt.setString(3, menuName);
@@ -121,6 +179,7 @@ public class ManagerFunctions {
             if (affectedRows == 0) {
                 throw new SQLException("Menu item not found: " + menuName); 
             }
+            MenuCatalog.publishChange(conn);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -136,7 +195,8 @@ public class ManagerFunctions {
     public void addMenuItem(String menuName, String type, double price) {
         String query = "INSERT INTO menuitem (menuName, itemType, price) VALUES (?, ?, ?)";
     
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, menuName);
             pstmt.setString(2, type);
             pstmt.setDouble(3, price);
@@ -146,6 +206,7 @@ public class ManagerFunctions {
             if (affectedRows == 0) {
                 throw new SQLException("Failed to add menu item: " + menuName);
             }
+            MenuCatalog.publishChange(conn);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -159,7 +220,8 @@ public class ManagerFunctions {
     public void removeMenuItem(String menuname) {
         String query = "DELETE FROM MenuItem WHERE menuname = ?";
     
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, menuname);
     
             int affectedRows = pstmt.executeUpdate(); 
@@ -167,6 +229,7 @@ public class ManagerFunctions {
             if (affectedRows == 0) {
                 throw new SQLException("No menu item found with menuname: " + menuname);  
             }
+            MenuCatalog.publishChange(conn);
         } catch (SQLException e) {
             e.printStackTrace();  
         }
@@ -182,7 +245,8 @@ public class ManagerFunctions {
         List<Inventory> inventoryList = new ArrayList<>();
         String query = "SELECT inventoryID, itemName, quantityInStock, quantityUnits, reorderThreshold, unitPrice FROM Inventory";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
             ResultSet result = pstmt.executeQuery()) {
             while (result.next()) {
                 int inventoryID = result.getInt("inventoryID");
@@ -209,7 +273,8 @@ public class ManagerFunctions {
     public int getInventory(int inventoryId) throws SQLException {
         String query = "SELECT quantityInStock FROM Inventory WHERE inventoryID = ?"; 
         
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, inventoryId);
             try (ResultSet result = pstmt.executeQuery()) {           
                 if (result.next()) {
@@ -221,29 +286,45 @@ public class ManagerFunctions {
     }
 
     /**
-     * Sets new information for inventory items.
+     * Sets new information for inventory items. The quantity in stock is
+     * changed by the difference between the quantity the manager edited and
+     * the quantity that was loaded, rather than overwritten, so stock used by
+     * orders since the inventory was loaded is not put back. The difference
+     * is recorded in the inventory ledger as an adjustment.
      * 
      * @param itemName The new name of the inventory item
+     * @param loadedQuantity The quantity in stock the edit was made against
      * @param quantityInStock The new quantity in stock
      * @param quantityUnits The new quantity units
      * @param reorderThreshold The new reorder threshold
      * @param unitPrice The new unit price
      */
-    public void setInventory(String itemName, double quantityInStock, String quantityUnits, double reorderThreshold, double unitPrice) {
-        String query = "UPDATE Inventory SET quantityinstock = ?, quantityunits = ?, reorderthreshold = ?, unitprice = ? WHERE itemname = ?";
-
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setDouble(1, quantityInStock);
-            pstmt.setString(2, quantityUnits);
-            pstmt.setDouble(3, reorderThreshold);
-            pstmt.setDouble(4, unitPrice); 
-            pstmt.setString(5, itemName);
+    public void setInventory(String itemName, double loadedQuantity, double quantityInStock, String quantityUnits,
+                             double reorderThreshold, double unitPrice) {
+        String query = "WITH old AS (SELECT inventoryid, COALESCE(quantityinstock, 0) AS quantityinstock, unitprice FROM Inventory WHERE itemname = ? FOR UPDATE), " +
+                       "updated AS (UPDATE Inventory SET quantityinstock = old.quantityinstock + ?, quantityunits = ?, reorderthreshold = ?, unitprice = ? " +
+                       "    FROM old WHERE Inventory.inventoryid = old.inventoryid " +
+                       "    RETURNING Inventory.inventoryid, Inventory.quantityinstock - old.quantityinstock AS quantitychange, " +
+                       "    Inventory.unitprice IS DISTINCT FROM old.unitprice AS pricechanged), " +
+                       "ledger AS (INSERT INTO InventoryLedger (inventoryid, quantitychange, reason) " +
+                       "    SELECT inventoryid, quantitychange, '" + InventoryLedger.ADJUSTMENT + "' FROM updated WHERE quantitychange <> 0) " +
+                       "SELECT COUNT(*) AS affectedrows, COALESCE(BOOL_OR(pricechanged), false) AS pricechanged FROM updated";
 
-            int affectedRows = pstmt.executeUpdate();
-            conn.commit();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, itemName);
+            pstmt.setDouble(2, quantityInStock - loadedQuantity);
+            pstmt.setString(3, quantityUnits);
+            pstmt.setDouble(4, reorderThreshold);
+            pstmt.setDouble(5, unitPrice); 
 
-            if (affectedRows == 0) {
-                throw new SQLException("Inventory item not found: " + itemName);
+            try (ResultSet result = pstmt.executeQuery()) {
+                if (!result.next() || result.getInt("affectedrows") == 0) {
+                    throw new SQLException("Inventory item not found: " + itemName);
+                }
+                if (result.getBoolean("pricechanged")) {
+                    recipeCosts.invalidate();
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -258,7 +339,8 @@ public class ManagerFunctions {
     public void removeInventory(String itemname) {
         String query = "DELETE FROM inventory WHERE itemname = ?";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, itemname);
     
             int affectedRows = pstmt.executeUpdate(); 
@@ -274,7 +356,8 @@ public class ManagerFunctions {
 
 
     /**
-     * Adds new item to inventory database.
+     * Adds new item to inventory database. Its starting stock is recorded in
+     * the inventory ledger as a delivery.
      * 
      * @param itemName The name of the new inventory item
      * @param quantityInStock The quantity in stock of the new item
@@ -283,9 +366,13 @@ public class ManagerFunctions {
      * @param unitPrice The unit price of the new item
      */
     public void addInventory(String itemName, double quantityInStock, String quantityUnits, double reorderThreshold, double unitPrice) {
-        String query = "INSERT INTO Inventory (itemname, quantityinstock, quantityunits, reorderthreshold, unitprice) VALUES (?, ?, ?, ?, ?)";
+        String query = "WITH added AS (INSERT INTO Inventory (itemname, quantityinstock, quantityunits, reorderthreshold, unitprice) " +
+                       "    VALUES (?, ?, ?, ?, ?) RETURNING inventoryid, quantityinstock) " +
+                       "INSERT INTO InventoryLedger (inventoryid, quantitychange, reason) " +
+                       "SELECT inventoryid, quantityinstock, '" + InventoryLedger.DELIVERY + "' FROM added";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, itemName);
             pstmt.setDouble(2, quantityInStock);
             pstmt.setString(3, quantityUnits);
@@ -316,7 +403,8 @@ public class ManagerFunctions {
         String query = "SELECT employeeid, employeename, jobtitle, startdate, hourlywage FROM Employees WHERE employeeid = ?";
         Employee employee = null;
     
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, id);
             ResultSet result = pstmt.executeQuery();
     
@@ -343,7 +431,8 @@ public class ManagerFunctions {
         List<Employee> employees = new ArrayList<>();
         String query = "SELECT employeeid, employeename, jobtitle, startdate, hourlywage FROM Employees";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet result = pstmt.executeQuery()) {
             while (result.next()) {
                 int employeeId = result.getInt("employeeid");
@@ -370,7 +459,8 @@ public class ManagerFunctions {
     public void setEmployee(String employeeName, String jobTitle, Date startDate, double hourlyWage) {
         String query = "UPDATE Employees SET jobtitle = ?, startdate = ?, hourlywage = ? WHERE employeename = ?";
         
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, jobTitle);
             pstmt.setDate(2, startDate);
             pstmt.setDouble(3, hourlyWage);
@@ -397,7 +487,8 @@ public class ManagerFunctions {
     public void addEmployee(String employeeName, String jobTitle, Date startDate, double hourlyWage) {
         String query = "INSERT INTO Employees (employeename, jobtitle, startdate, hourlywage) VALUES (?, ?, ?, ?)";
     
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, employeeName);
             pstmt.setString(2, jobTitle);
             pstmt.setDate(3, startDate);
@@ -421,7 +512,8 @@ public class ManagerFunctions {
     public void removeEmployee(String employeeName) {
         String query = "DELETE FROM Employees WHERE employeename = ?";
     
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, employeeName);
     
             int affectedRows = pstmt.executeUpdate();
@@ -447,7 +539,8 @@ public class ManagerFunctions {
                        "JOIN EmployeeShifts es ON e.employeeid = es.employeeid " +
                        "WHERE es.shiftid = ?";
         
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, shiftId);
             
             ResultSet result = pstmt.executeQuery();
@@ -468,6 +561,57 @@ public class ManagerFunctions {
         return employees;
     }
     
+    /**
+     * Returns every shift in a date range with the employees assigned to it,
+     * read in one query. This is used to load a week or month of the shift
+     * calendar at once.
+     * 
+     * @param startDate The first day of the range
+     * @param endDate The day after the last day of the range
+     * @return The shifts, ordered by date and start time
+     * @throws SQLException If the shifts cannot be read
+     */
+    public List<ScheduledShift> getShiftsBetween(LocalDate startDate, LocalDate endDate) throws SQLException {
+        String query = "SELECT s.shiftid, s.shiftdate, s.shiftstarttime, s.shiftendtime, " +
+                       "e.employeeid, e.employeename, e.jobtitle, e.hourlywage " +
+                       "FROM Shifts s " +
+                       "LEFT JOIN EmployeeShifts es ON s.shiftid = es.shiftid " +
+                       "LEFT JOIN Employees e ON es.employeeid = e.employeeid " +
+                       "WHERE s.shiftdate >= ? AND s.shiftdate < ? " +
+                       "ORDER BY s.shiftdate, s.shiftstarttime, s.shiftid, e.employeeid";
+        List<ScheduledShift> shifts = new ArrayList<>();
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setDate(1, Date.valueOf(startDate));
+            pstmt.setDate(2, Date.valueOf(endDate));
+
+            try (ResultSet result = pstmt.executeQuery()) {
+                int shiftID = -1;
+                List<String> employees = null;
+                while (result.next()) {
+                    if (result.getInt("shiftid") != shiftID) {
+                        shiftID = result.getInt("shiftid");
+                        employees = new ArrayList<>();
+                        Time startTime = result.getTime("shiftstarttime");
+                        Time endTime = result.getTime("shiftendtime");
+                        shifts.add(new ScheduledShift(shiftID, result.getDate("shiftdate").toLocalDate(),
+                                startTime == null ? null : startTime.toLocalTime(),
+                                endTime == null ? null : endTime.toLocalTime(), employees));
+                    }
+
+                    int employeeId = result.getInt("employeeid");
+                    if (!result.wasNull()) {
+                        employees.add(String.format("ID: %d, Name: %s, Job Title: %s, Wage: $%.2f",
+                                employeeId, result.getString("employeename"), result.getString("jobtitle"),
+                                result.getDouble("hourlywage")));
+                    }
+                }
+            }
+        }
+        return shifts;
+    }
+
     /**
      * Gets shift ID from time and date.
      * 
@@ -478,7 +622,8 @@ public class ManagerFunctions {
     public Integer getShiftID(LocalDate shiftDate, String shiftStartTime) {
         String query = "SELECT shiftid FROM shifts WHERE shiftdate = ? AND shiftStartTime = ?";
         
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setDate(1, java.sql.Date.valueOf(shiftDate));
             pstmt.setTime(2, java.sql.Time.valueOf(shiftStartTime));
             
@@ -504,22 +649,13 @@ public class ManagerFunctions {
     public List<String[]> getEmployeeHoursReport(Date startDate, Date endDate) {
         List<String[]> employeeHoursData = new ArrayList<>();
     
-        String query = "SELECT e.employeeid, e.employeename, SUM(EXTRACT(EPOCH FROM (s.shiftendtime - s.shiftstarttime)) / 3600) AS total_hours " +
-                       "FROM EmployeeShifts es " +
-                       "JOIN Employees e ON es.employeeid = e.employeeid " +
-                       "JOIN Shifts s ON es.shiftid = s.shiftid " +
-                       "WHERE s.shiftdate BETWEEN ? AND ? " +
-                       "GROUP BY e.employeeid, e.employeename";
-    
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setDate(1, startDate);
-            pstmt.setDate(2, endDate);
-    
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                String employeeId = rs.getString("employeeid");
-                String employeeName = rs.getString("employeename");
-                String totalHours = String.format("%.2f", rs.getDouble("total_hours"));
+        try {
+            // The hours report includes its end date
+            LocalDate end = endDate.toLocalDate().plusDays(1);
+            for (ReportCache.Row row : reportCache.get(ReportCache.Kind.EMPLOYEE_HOURS, startDate.toLocalDate(), end)) {
+                String employeeId = String.valueOf(row.getId());
+                String employeeName = row.getLabel();
+                String totalHours = String.format("%.2f", row.getFirstValue());
     
                 employeeHoursData.add(new String[] { employeeId, employeeName, totalHours });
             }
@@ -531,86 +667,311 @@ public class ManagerFunctions {
     }
     
     /**
-     * Gets sales report for a specific time frame.
+     * Writes the sales report for a specific time frame to a renderer.
      * 
      * @param startDate The start date of the report period
-     * @param endDate The end date of the report period
-     * @return A list of sales report data by item
-     */
-    public List<String> getSalesReportByItem(Date startDate, Date endDate) {
-        String query = "SELECT mi.menuname, COUNT(omi.menuitemid) AS totalQuantity, SUM(o.orderprice) AS totalSales " +
-                   "FROM Orders o " +
-                   "JOIN OrderMenuItem omi ON o.orderid = omi.orderid " +
-                   "JOIN MenuItem mi ON omi.menuitemid = mi.menuid " +
-                   "WHERE o.orderdate >= ? AND o.orderdate < ? " +
-                   "GROUP BY mi.menuid, mi.menuname " +
-                   "ORDER BY totalQuantity DESC";
-        List<String> returnArray = new ArrayList<>();
-
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setDate(1, new java.sql.Date(startDate.getTime()));
-            pstmt.setDate(2, new java.sql.Date(endDate.getTime()));           
-    
-            try (ResultSet rs = pstmt.executeQuery()) {
-                returnArray.add("Sales Report by Item from " + startDate + " to " + endDate + "\n");
-                returnArray.add("--------------------------------------------------------------\n");
-                returnArray.add(String.format("%-30s %-15s %-15s", "Item ID", "Quantity Sold", "Total Sales ($)\n"));
-                returnArray.add("--------------------------------------------------------------\n");
-    
-                while (rs.next()) {
-                    String menuName = rs.getString("menuname");
-                    int totalQuantity = rs.getInt("totalQuantity");
-                    double totalSales = rs.getDouble("totalSales");
-    
-                    returnArray.add(String.format("%-30s %-15d %-15.2f\n", menuName, totalQuantity, totalSales));
+     * @param endDate The end date of the report period, not included
+     * @param renderer The renderer to write the report to
+     * @throws SQLException If the sales cannot be read
+     * @throws IOException If the report cannot be written
+     */
+    public void writeSalesReportByItem(Date startDate, Date endDate, ReportRenderer renderer)
+            throws SQLException, IOException {
+        writeSalesReportByItem(startDate, endDate, getItemSales(startDate, endDate), renderer);
+    }
+
+    /**
+     * Writes already read item sales to a renderer as the sales report.
+     * 
+     * @param startDate The start date of the report period
+     * @param endDate The end date of the report period, not included
+     * @param rows The item sales, such as from {@link #getItemSales(Date, Date)}
+     * @param renderer The renderer to write the report to
+     * @throws IOException If the report cannot be written
+     */
+    public static void writeSalesReportByItem(Date startDate, Date endDate, List<ItemSales> rows,
+                                              ReportRenderer renderer) throws IOException {
+        renderer.begin("Sales Report by Item from " + startDate + " to " + endDate,
+                new ReportRenderer.Column("menuName", "Item", 30),
+                new ReportRenderer.Column("quantitySold", "Quantity Sold", 15),
+                new ReportRenderer.Column("sales", "Total Sales ($)", 15));
+        for (ItemSales row : rows) {
+            renderer.beginRow();
+            renderer.text(row.getMenuName());
+            renderer.number(row.getQuantitySold());
+            renderer.money(row.getSalesCents());
+            renderer.endRow();
+        }
+        renderer.end();
+    }
+
+    /**
+     * Writes the popularity of the menu items in a specific time period to a renderer.
+     * 
+     * @param startDate The start date of the report period
+     * @param endDate The end date of the report period, not included
+     * @param renderer The renderer to write the report to
+     * @throws SQLException If the sales cannot be read
+     * @throws IOException If the report cannot be written
+     */
+    public void writeMenuItemsPopularityAnalysis(Date startDate, Date endDate, ReportRenderer renderer)
+            throws SQLException, IOException {
+        renderer.begin("Menu Items Popularity Analysis from " + startDate + " to " + endDate,
+                new ReportRenderer.Column("menuName", "Item Name", 30),
+                new ReportRenderer.Column("quantitySold", "Quantity Sold", 15));
+        for (ItemSales row : getItemSales(startDate, endDate)) {
+            renderer.beginRow();
+            renderer.text(row.getMenuName());
+            renderer.number(row.getQuantitySold());
+            renderer.endRow();
+        }
+        renderer.end();
+    }
+
+    /**
+     * Classifies every menu item by popularity and margin over a time frame.
+     * An item is popular when its share of the items sold is at least 70% of
+     * an even share, and its margin is high when it is at least the average
+     * margin weighted by quantity sold. Margins are the menu price less the
+     * food cost; the sales in {@link ItemSales} are the totals of the whole
+     * orders an item was in, so they cannot give its price. The quantities
+     * come from {@link #getItemSales(Date, Date)} and the food costs from the
+     * cached recipe cost rollup, so no orders are joined to recipes.
+     * 
+     * @param startDate The start date of the report period
+     * @param endDate The end date of the report period, not included
+     * @return Every menu item with its quadrant, stars first and most sold first within each quadrant
+     * @throws SQLException If the sales or costs cannot be read
+     */
+    public List<MenuEngineeringItem> getMenuEngineering(Date startDate, Date endDate) throws SQLException {
+        Map<Integer, Long> sold = new HashMap<>();
+        for (ItemSales row : getItemSales(startDate, endDate)) {
+            sold.put(row.getMenuID(), row.getQuantitySold());
+        }
+        List<MenuItem> menuItems = catalog != null ? catalog.getMenuItems() : getMenuItems();
+        long[] foodCostCents = new long[menuItems.size()];
+        for (int i = 0; i < menuItems.size(); i++) {
+            foodCostCents[i] = Math.round(recipeCosts.getFoodCost(menuItems.get(i).getMenuID()) * 100);
+        }
+        return classify(menuItems, sold, foodCostCents);
+    }
+
+    /**
+     * Sorts menu items into menu engineering quadrants.
+     *
+     * @param menuItems Every menu item
+     * @param sold The quantity sold of each menu item, by menu ID
+     * @param foodCostCents The food cost of each menu item, parallel to menuItems
+     * @return Every menu item with its quadrant, stars first and most sold first within each quadrant
+     */
+    private static List<MenuEngineeringItem> classify(List<MenuItem> menuItems, Map<Integer, Long> sold,
+                                                      long[] foodCostCents) {
+        long totalSold = 0;
+        long totalMarginCents = 0;
+        for (int i = 0; i < menuItems.size(); i++) {
+            MenuItem item = menuItems.get(i);
+            long quantity = sold.getOrDefault(item.getMenuID(), 0L);
+            totalSold += quantity;
+            totalMarginCents += (item.getPriceCents() - foodCostCents[i]) * quantity;
+        }
+
+        double popularShare = menuItems.isEmpty() ? 0 : 0.7 / menuItems.size();
+        double averageMarginCents = totalSold == 0 ? 0 : (double) totalMarginCents / totalSold;
+        List<MenuEngineeringItem> items = new ArrayList<>();
+        for (int i = 0; i < menuItems.size(); i++) {
+            MenuItem item = menuItems.get(i);
+            long quantity = sold.getOrDefault(item.getMenuID(), 0L);
+            double menuMix = totalSold == 0 ? 0 : (double) quantity / totalSold;
+            boolean popular = totalSold > 0 && menuMix >= popularShare;
+            boolean profitable = item.getPriceCents() - foodCostCents[i] >= averageMarginCents;
+            MenuEngineeringItem.Category category = popular
+                    ? (profitable ? MenuEngineeringItem.Category.STAR : MenuEngineeringItem.Category.PLOWHORSE)
+                    : (profitable ? MenuEngineeringItem.Category.PUZZLE : MenuEngineeringItem.Category.DOG);
+            items.add(new MenuEngineeringItem(item.getMenuID(), item.getMenuName(), quantity, menuMix,
+                    item.getPriceCents(), foodCostCents[i], category));
+        }
+        items.sort(Comparator.comparing(MenuEngineeringItem::getCategory)
+                .thenComparing(Comparator.comparingLong(MenuEngineeringItem::getQuantitySold).reversed()));
+        return items;
+    }
+
+    /**
+     * Writes the menu engineering report for a specific time period to a renderer.
+     * 
+     * @param startDate The start date of the report period
+     * @param endDate The end date of the report period, not included
+     * @param renderer The renderer to write the report to
+     * @throws SQLException If the sales or costs cannot be read
+     * @throws IOException If the report cannot be written
+     */
+    public void writeMenuEngineeringReport(Date startDate, Date endDate, ReportRenderer renderer)
+            throws SQLException, IOException {
+        renderer.begin("Menu Engineering from " + startDate + " to " + endDate,
+                new ReportRenderer.Column("menuName", "Item", 30),
+                new ReportRenderer.Column("quantitySold", "Sold", 10),
+                new ReportRenderer.Column("menuMix", "Mix (%)", 10),
+                new ReportRenderer.Column("price", "Price ($)", 10),
+                new ReportRenderer.Column("foodCost", "Food Cost ($)", 14),
+                new ReportRenderer.Column("margin", "Margin ($)", 11),
+                new ReportRenderer.Column("category", "Category", 10));
+        for (MenuEngineeringItem item : getMenuEngineering(startDate, endDate)) {
+            renderer.beginRow();
+            renderer.text(item.getMenuName());
+            renderer.number(item.getQuantitySold());
+            renderer.text(String.format("%.1f", item.getMenuMix() * 100));
+            renderer.money(item.getPriceCents());
+            renderer.money(item.getFoodCostCents());
+            renderer.money(item.getMarginCents());
+            renderer.text(item.getCategory().toString());
+            renderer.endRow();
+        }
+        renderer.end();
+    }
+
+    /**
+     * Returns the items sold in a time frame, most sold first. The totals come
+     * from the sales cube once it is loaded and from the report cache before.
+     * 
+     * @param startDate The start date of the report period
+     * @param endDate The end date of the report period, not included
+     * @return The quantity sold and sales of each menu item
+     * @throws SQLException If the sales cannot be read
+     */
+    public List<ItemSales> getItemSales(Date startDate, Date endDate) throws SQLException {
+        List<ItemSales> rows = new ArrayList<>();
+        if (salesCube != null && salesCube.isLoaded()) {
+            SalesCube.Totals totals = salesCube.getTotals(startDate.toLocalDate(), endDate.toLocalDate());
+            Map<Integer, String> menuNames = getMenuNames();
+            for (int menuID = 0; menuID < totals.getMenuIDLimit(); menuID++) {
+                String menuName = totals.getCount(menuID) > 0 ? menuNames.get(menuID) : null;
+                if (menuName != null) {
+                    rows.add(new ItemSales(menuID, menuName, totals.getCount(menuID), totals.getSalesCents(menuID)));
+                }
+            }
+        } else {
+            for (ReportCache.Row row : reportCache.get(ReportCache.Kind.MENU_ITEM_SALES,
+                    startDate.toLocalDate(), endDate.toLocalDate())) {
+                rows.add(new ItemSales(row.getId(), row.getLabel(), Math.round(row.getFirstValue()),
+                        Math.round(row.getSecondValue() * 100)));
+            }
+        }
+        rows.sort(Comparator.comparingLong(ItemSales::getQuantitySold).reversed());
+        return rows;
+    }
+
+    /**
+     * Exports the sales of every menu item on every day of a time frame.
+     * Days are read one at a time from the sales cube, or from the report
+     * cache until the cube is loaded, and written straight to the renderer,
+     * so a year of sales is never held as a whole.
+     * 
+     * @param startDate The start date of the export
+     * @param endDate The end date of the export, not included
+     * @param renderer The renderer to write the sales to
+     * @throws SQLException If the sales cannot be read
+     * @throws IOException If the sales cannot be written
+     */
+    public void exportDailyItemSales(Date startDate, Date endDate, ReportRenderer renderer)
+            throws SQLException, IOException {
+        LocalDate start = startDate.toLocalDate();
+        LocalDate end = endDate.toLocalDate();
+        boolean fromCube = salesCube != null && salesCube.isLoaded();
+        if (!fromCube) {
+            // Loads every missing day in one query; the days below are then cached
+            reportCache.get(ReportCache.Kind.MENU_ITEM_SALES, start, end);
+        }
+        Map<Integer, String> menuNames = getMenuNames();
+
+        renderer.begin("Daily Sales by Item from " + startDate + " to " + endDate,
+                new ReportRenderer.Column("date", "Date", 12),
+                new ReportRenderer.Column("menuID", "Item ID", 8),
+                new ReportRenderer.Column("menuName", "Item", 30),
+                new ReportRenderer.Column("quantitySold", "Quantity Sold", 15),
+                new ReportRenderer.Column("sales", "Total Sales ($)", 15));
+        for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+            String date = day.toString();
+            if (fromCube) {
+                SalesCube.Totals totals = salesCube.getTotals(day, day.plusDays(1));
+                for (int menuID = 0; menuID < totals.getMenuIDLimit(); menuID++) {
+                    if (totals.getCount(menuID) > 0) {
+                        writeItemSales(renderer, date, menuID, menuNames.get(menuID),
+                                totals.getCount(menuID), totals.getSalesCents(menuID));
+                    }
+                }
+            } else {
+                for (ReportCache.Row row : reportCache.get(ReportCache.Kind.MENU_ITEM_SALES, day, day.plusDays(1))) {
+                    writeItemSales(renderer, date, row.getId(), row.getLabel(),
+                            Math.round(row.getFirstValue()), Math.round(row.getSecondValue() * 100));
                 }
             }
+        }
+        renderer.end();
+    }
+
+    private static void writeItemSales(ReportRenderer renderer, String date, int menuID, String menuName,
+                                       long quantitySold, long salesCents) throws IOException {
+        renderer.beginRow();
+        renderer.text(date);
+        renderer.number(menuID);
+        renderer.text(menuName);
+        renderer.number(quantitySold);
+        renderer.money(salesCents);
+        renderer.endRow();
+    }
+
+    /**
+     * Counts the orders in a time frame that contained every one of the given
+     * menu items, such as Orange Chicken and Chow Mein together.
+     * 
+     * @param startDate The start date of the period
+     * @param endDate The end date of the period, not included
+     * @param menuIDs The IDs of the menu items the orders must all contain
+     * @return The number of orders
+     */
+    public int getOrdersContaining(Date startDate, Date endDate, int... menuIDs) {
+        try {
+            return getOrderIndex(startDate, endDate)
+                    .countOrders(startDate.toLocalDate(), endDate.toLocalDate(), menuIDs);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return returnArray;
+        return 0;
     }
 
     /**
-     * Returns a list of popular items in a specific time period.
+     * Returns the pairs of menu items most often ordered together in a
+     * specific time period.
      * 
      * @param startDate The start date of the report period
-     * @param endDate The end date of the report period
-     * @return A list of menu items by popularity
-     */
-    public List<String> getMenuItemsPopularityAnalysis(Date startDate, Date endDate) {
-        String query = "SELECT mi.menuname, COUNT(omi.menuitemid) AS totalQuantity " +
-                       "FROM Orders o " +
-                       "JOIN OrderMenuItem omi ON o.orderid = omi.orderid " +
-                       "JOIN MenuItem mi ON omi.menuitemid = mi.menuid " +
-                       "WHERE o.orderdate >= ? AND o.orderdate < ? " +
-                       "GROUP BY mi.menuid, mi.menuname " +
-                       "ORDER BY totalQuantity DESC";
+     * @param endDate The end date of the report period, not included
+     * @param limit The most pairs to list
+     * @return A list of item pairs by the number of orders that had both
+     */
+    public List<String> getMarketBasketReport(Date startDate, Date endDate, int limit) {
         List<String> report = new ArrayList<>();
-    
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setDate(1, new java.sql.Date(startDate.getTime()));
-            pstmt.setDate(2, new java.sql.Date(endDate.getTime()));
-    
-            try (ResultSet rs = pstmt.executeQuery()) {
-                // Add header for the report
-                report.add("Menu Items Popularity Analysis from " + startDate + " to " + endDate + "\n");
-                report.add("----------------------------------------------------");
-                report.add(String.format("%-30s %-15s", "Item Name", "Quantity Sold"));
-                report.add("----------------------------------------------------");
-    
-                // Loop through each result and format it
-                while (rs.next()) {
-                    String menuName = rs.getString("menuname");
-                    int totalQuantity = rs.getInt("totalQuantity");
-    
-                    report.add(String.format("%-30s %-15d", menuName, totalQuantity));
-                }
-    
-                // Add footer if no results
-                if (report.size() == 4) { // Only headers are present
-                    report.add("No popularity data found for the specified period.");
-                }
+
+        try {
+            OrderBitmapIndex index = getOrderIndex(startDate, endDate);
+            LocalDate start = startDate.toLocalDate();
+            LocalDate end = endDate.toLocalDate();
+            int totalOrders = index.countOrders(start, end);
+            Map<Integer, String> menuNames = getMenuNames();
+
+            report.add("Market Basket Analysis from " + startDate + " to " + endDate + "\n");
+            report.add("--------------------------------------------------------------------------------");
+            report.add(String.format("%-30s %-30s %-10s %-10s", "Item", "Ordered With", "Orders", "% Orders"));
+            report.add("--------------------------------------------------------------------------------");
+
+            for (OrderBitmapIndex.ItemPair pair : index.getTopPairs(start, end, limit)) {
+                String first = menuNames.getOrDefault(pair.getFirstMenuID(), "Item " + pair.getFirstMenuID());
+                String second = menuNames.getOrDefault(pair.getSecondMenuID(), "Item " + pair.getSecondMenuID());
+                double share = 100.0 * pair.getOrders() / totalOrders;
+
+                report.add(String.format("%-30s %-30s %-10d %-10.1f", first, second, pair.getOrders(), share));
+            }
+
+            if (report.size() == 4) { // Only headers are present
+                report.add("No basket data found for the specified period.");
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -618,6 +979,36 @@ public class ManagerFunctions {
         return report;
     }
 
+    /**
+     * Returns the order index if it is loaded, or else an index of just the
+     * orders of the period.
+     * 
+     * @param startDate The start date of the period
+     * @param endDate The end date of the period, not included
+     * @return The order index
+     * @throws SQLException If the orders of the period cannot be read
+     */
+    private OrderBitmapIndex getOrderIndex(Date startDate, Date endDate) throws SQLException {
+        if (orderIndex != null && orderIndex.isLoaded()) {
+            return orderIndex;
+        }
+        return OrderBitmapIndex.loadRange(pool, startDate.toLocalDate(), endDate.toLocalDate());
+    }
+
+    /**
+     * Returns the name of every menu item by ID.
+     * 
+     * @return The menu item names
+     * @throws SQLException If the menu items cannot be read
+     */
+    private Map<Integer, String> getMenuNames() throws SQLException {
+        Map<Integer, String> menuNames = new HashMap<>();
+        for (MenuItem item : catalog != null ? catalog.getMenuItems() : getMenuItems()) {
+            menuNames.put(item.getMenuID(), item.getMenuName());
+        }
+        return menuNames;
+    }
+
     /**
      * Returns a list of inventory usage in a time frame.
      * 
@@ -626,27 +1017,17 @@ public class ManagerFunctions {
      * @return A list of inventory usage
      */
     public List<InventoryUsage> getInventoryUsage(Date startDate, Date endDate) {
-        String query = "SELECT i.itemname, SUM(mii.quantityUsed) AS totalQuantity, i.quantityUnits " +
-                       "FROM Orders o " +
-                       "JOIN OrderMenuItem omi ON o.orderid = omi.orderid " +
-                       "JOIN MenuItemInventory mii ON omi.menuItemID = mii.menuID " +
-                       "JOIN Inventory i ON mii.inventoryid = i.inventoryid " +
-                       "WHERE o.orderdate >= ? AND o.orderdate < ? " +
-                       "GROUP BY i.inventoryid, i.itemname, i.quantityUnits";
         List<InventoryUsage> inventoryUsage = new ArrayList<>();
     
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setDate(1, new java.sql.Date(startDate.getTime()));
-            pstmt.setDate(2, new java.sql.Date(endDate.getTime()));
+        try {
+            List<ReportCache.Row> rows = reportCache.get(
+                    ReportCache.Kind.INVENTORY_USAGE, startDate.toLocalDate(), endDate.toLocalDate());
+            for (ReportCache.Row row : rows) {
+                String itemName = row.getLabel();
+                float totalQuantity = (float) row.getFirstValue();
+                String units = row.getUnits();
     
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    String itemName = rs.getString("itemname");
-                    float totalQuantity = rs.getFloat("totalQuantity");
-                    String units = rs.getString("quantityUnits");
-    
-                    inventoryUsage.add(new InventoryUsage(itemName, totalQuantity, units));
-                }
+                inventoryUsage.add(new InventoryUsage(itemName, totalQuantity, units));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -656,57 +1037,183 @@ public class ManagerFunctions {
     }
 
     /**
-     * Returns a list of sales numbers by hour
+     * Streams inventory usage in a time frame, one day at a time. The report
+     * cache reads each day in order, from memory or disk for closed days and
+     * through a cursor that cancelling the report stops for the rest. After
+     * each day, the running totals of the items used that day are handed
+     * over, so a table can add new items and update the ones it already
+     * shows.
+     * 
+     * @param startDate The start date of the report period
+     * @param endDate The end date of the report period, not included
+     * @param updates Called with the running totals changed by each day, on the calling thread
+     * @return The number of inventory items used in the time frame
+     * @throws SQLException If the usage cannot be read
+     */
+    public int streamInventoryUsage(Date startDate, Date endDate,
+                                    Consumer<List<InventoryUsage>> updates) throws SQLException {
+        return streamTotals(ReportCache.Kind.INVENTORY_USAGE, startDate.toLocalDate(), endDate.toLocalDate(),
+                row -> new InventoryUsage(row.getLabel(), (float) row.getFirstValue(), row.getUnits()), updates);
+    }
+
+    /**
+     * Streams employee hours in a time frame, one day at a time, the same
+     * way as {@link #streamInventoryUsage}.
+     * 
+     * @param startDate The start date of the report period
+     * @param endDate The end date of the report period
+     * @param updates Called with the running employee ID, name and hours changed by each day, on the calling thread
+     * @return The number of employees who worked in the time frame
+     * @throws SQLException If the hours cannot be read
+     */
+    public int streamEmployeeHoursReport(Date startDate, Date endDate,
+                                         Consumer<List<String[]>> updates) throws SQLException {
+        // The hours report includes its end date
+        return streamTotals(ReportCache.Kind.EMPLOYEE_HOURS, startDate.toLocalDate(), endDate.toLocalDate().plusDays(1),
+                row -> new String[] {String.valueOf(row.getId()), row.getLabel(),
+                        String.format("%.2f", row.getFirstValue())}, updates);
+    }
+
+    /**
+     * Adds up report rows day by day, handing over the running totals that
+     * each day changes.
+     *
+     * @param kind The totals to stream
+     * @param start The first day of the range
+     * @param end The day after the last day of the range
+     * @param mapper Converts each running total
+     * @param updates Called with the running totals changed by each day, on the calling thread
+     * @return The number of IDs with any totals in the range
+     * @throws SQLException If days that are not cached cannot be read
+     */
+    private <T> int streamTotals(ReportCache.Kind kind, LocalDate start, LocalDate end,
+                                 Function<ReportCache.Row, T> mapper, Consumer<List<T>> updates) throws SQLException {
+        Map<Integer, ReportCache.Row> totals = new HashMap<>();
+        reportCache.stream(kind, start, end, (day, segment) -> {
+            if (segment.isEmpty()) {
+                return;
+            }
+            List<T> changed = new ArrayList<>(segment.size());
+            for (ReportCache.Row row : segment) {
+                changed.add(mapper.apply(totals.merge(row.getId(), row, ReportCache.Row::plus)));
+            }
+            updates.accept(changed);
+        });
+        return totals.size();
+    }
+
+    /**
+     * Returns a list of sales numbers by hour, read from the hourly sales rollup.
      * 
      * @return A list of sales numbers by hour
      */
     public List<String> getXReport() {
-        String query = "SELECT EXTRACT(HOUR FROM ordertime) AS hour, " +
-                       "COUNT(orderid) AS totalOrders, " +
-                       "SUM(orderprice) AS totalSales " +
-                       "FROM Orders " +
-                       "WHERE orderdate = ? " +
-                       "GROUP BY EXTRACT(HOUR FROM ordertime) " +
-                       "ORDER BY hour";
         List<String> report = new ArrayList<>();
+    
+        try {
+            long grandTotalOrders = 0;
+            long grandTotalCents = 0;
+            for (HourlySales sales : getHourlySales()) {
+                grandTotalOrders += sales.getOrderCount();
+                grandTotalCents += sales.getSalesCents();
+                
+                String hourRange = String.format("%02d:00 - %02d:59", sales.getHour(), sales.getHour());
+                report.add(String.format("%-15s Orders: %-5d Sales: $%.2f", hourRange, sales.getOrderCount(), sales.getSalesCents() / 100.0));
+            }
+            // Add grand total at the end
+            report.add(String.format("\nGrand Total:   Orders: %-5d Sales: $%.2f", grandTotalOrders, grandTotalCents / 100.0));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            report.add("Error generating X Report: " + e.getMessage());
+        }
+        return report;
+    }
+
+    /**
+     * Returns today's orders and sales by hour, read from the hourly sales rollup.
+     * Hours without orders are left out.
+     * 
+     * @return Today's sales by hour
+     * @throws SQLException If the sales cannot be read
+     */
+    public List<HourlySales> getHourlySales() throws SQLException {
+        String query = "SELECT salesHour AS hour, " +
+                       "orderCount AS totalOrders, " +
+                       "totalSales " +
+                       "FROM HourlySales " +
+                       "WHERE salesDate = ? " +
+                       "ORDER BY salesHour";
+        List<HourlySales> hourlySales = new ArrayList<>();
         Date today = Date.valueOf(LocalDate.now());
     
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setDate(1, today);
             try (ResultSet rs = pstmt.executeQuery()) {
-                int grandTotalOrders = 0;
-                double grandTotalSales = 0.0;
                 while (rs.next()) {
-                    int hour = rs.getInt("hour");
-                    int totalOrders = rs.getInt("totalOrders");
-                    double totalSales = rs.getDouble("totalSales");
-                    grandTotalOrders += totalOrders;
-                    grandTotalSales += totalSales;
-                    
-                    String hourRange = String.format("%02d:00 - %02d:59", hour, hour);
-                    report.add(String.format("%-15s Orders: %-5d Sales: $%.2f", hourRange, totalOrders, totalSales));
+                    hourlySales.add(new HourlySales(rs.getInt("hour"), rs.getLong("totalOrders"),
+                            Math.round(rs.getDouble("totalSales") * 100)));
                 }
-                // Add grand total at the end
-                report.add(String.format("\nGrand Total:   Orders: %-5d Sales: $%.2f", grandTotalOrders, grandTotalSales));
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            report.add("Error generating X Report: " + e.getMessage());
         }
-        return report;
+        return hourlySales;
+    }
+
+    /**
+     * Writes today's sales by hour to a renderer, ending with a total row.
+     * 
+     * @param renderer The renderer to write the report to
+     * @throws SQLException If the sales cannot be read
+     * @throws IOException If the report cannot be written
+     */
+    public void writeXReport(ReportRenderer renderer) throws SQLException, IOException {
+        writeXReport(getHourlySales(), renderer);
+    }
+
+    /**
+     * Writes sales by hour to a renderer, ending with a total row.
+     * 
+     * @param hourlySales The sales by hour, such as from {@link LiveSalesCounters#getHourlySales()}
+     * @param renderer The renderer to write the report to
+     * @throws IOException If the report cannot be written
+     */
+    public static void writeXReport(List<HourlySales> hourlySales, ReportRenderer renderer) throws IOException {
+        renderer.begin("X Report for " + LocalDate.now(),
+                new ReportRenderer.Column("hour", "Hour", 6),
+                new ReportRenderer.Column("orders", "Orders", 8),
+                new ReportRenderer.Column("sales", "Sales ($)", 12));
+        long grandTotalOrders = 0;
+        long grandTotalCents = 0;
+        for (HourlySales sales : hourlySales) {
+            grandTotalOrders += sales.getOrderCount();
+            grandTotalCents += sales.getSalesCents();
+            renderer.beginRow();
+            renderer.number(sales.getHour());
+            renderer.number(sales.getOrderCount());
+            renderer.money(sales.getSalesCents());
+            renderer.endRow();
+        }
+        renderer.beginRow();
+        renderer.text("Total");
+        renderer.number(grandTotalOrders);
+        renderer.money(grandTotalCents);
+        renderer.endRow();
+        renderer.end();
     }
 
     /**
-     * Returns a string that shows full day sales data.
+     * Returns a string that shows full day sales data, read from the hourly sales rollup.
      * 
-     * @return A list of menu items by popularity
+     * @return A summary of today's orders and sales
      */
     public String getZReport(){
-        String query = "SELECT COUNT(orderid) AS totalOrders, SUM(orderprice) AS totalSales FROM Orders WHERE orderdate = ?";
+        String query = "SELECT COALESCE(SUM(orderCount), 0) AS totalOrders, COALESCE(SUM(totalSales), 0) AS totalSales " +
+                       "FROM HourlySales WHERE salesDate = ?";
         String report = "";
         Date today = Date.valueOf(LocalDate.now());
 
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setDate(1, today);
             try (ResultSet rs = pstmt.executeQuery()) {
             if (rs.next()) {
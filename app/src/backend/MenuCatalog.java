@@ -0,0 +1,271 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import models.MenuItem;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * In-memory copy of the MenuItem table, indexed by menu ID and item type.
+ * The table is loaded once and then served from memory until another
+ * process changes the menu, which is announced through a Postgres
+ * NOTIFY on the {@value #CHANNEL} channel.
+ *
+ * Each load produces an immutable snapshot tagged with a version number, so
+ * readers never see a half-built catalog and never need to lock.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class MenuCatalog implements AutoCloseable {
+    /**
+     * Channel the menu change notifications are sent on.
+     */
+    public static final String CHANNEL = "menu_changed";
+
+    private static final int POLL_TIMEOUT_MILLIS = 5_000;
+    private static final long RECONNECT_DELAY_MILLIS = 2_000;
+
+    private final ConnectionPool pool;
+    private final Object loadLock = new Object();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+    private volatile long invalidatedVersion;
+    private volatile boolean running;
+    private Thread listener;
+
+    /**
+     * Creates a catalog that loads the menu lazily on first use.
+     *
+     * @param pool The pool database connections are borrowed from
+     */
+    public MenuCatalog(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Announces a menu change to every catalog listening on the database.
+     * The notification is delivered when the connection's transaction commits.
+     *
+     * @param conn The connection the change was made on
+     * @throws SQLException If the notification cannot be sent
+     */
+    public static void publishChange(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("NOTIFY " + CHANNEL);
+        }
+    }
+
+    /**
+     * Returns every menu item.
+     *
+     * @return An unmodifiable list of all menu items
+     * @throws SQLException If the menu has to be loaded and the load fails
+     */
+    public List<MenuItem> getMenuItems() throws SQLException {
+        return current().items;
+    }
+
+    /**
+     * Returns the menu items of one type, such as "Entree" or "Side".
+     *
+     * @param itemType The item type to look up
+     * @return An unmodifiable list of the matching menu items, empty if there are none
+     * @throws SQLException If the menu has to be loaded and the load fails
+     */
+    public List<MenuItem> getMenuItems(String itemType) throws SQLException {
+        return current().byType.getOrDefault(itemType, Collections.emptyList());
+    }
+
+    /**
+     * Returns a menu item by its ID.
+     *
+     * @param menuID The ID of the menu item
+     * @return The menu item, or null if there is no such item
+     * @throws SQLException If the menu has to be loaded and the load fails
+     */
+    public MenuItem getMenuItem(int menuID) throws SQLException {
+        return current().byID.get(menuID);
+    }
+
+    /**
+     * Returns the version of the snapshot currently being served. The version
+     * increases every time the menu is reloaded.
+     *
+     * @return The current catalog version, or 0 if the menu has not been loaded yet
+     */
+    public long getVersion() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.version;
+    }
+
+    /**
+     * Registers a callback that runs whenever the catalog is invalidated, so
+     * caches derived from the menu can be dropped along with it.
+     *
+     * @param listener The callback to run on invalidation
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Drops the current snapshot so the next lookup reloads the menu.
+     */
+    public void invalidate() {
+        synchronized (loadLock) {
+            Snapshot current = snapshot;
+            invalidatedVersion = current == null ? invalidatedVersion : current.version;
+            snapshot = null;
+        }
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Starts a background thread that listens for menu change notifications
+     * and invalidates the catalog when one arrives. The thread holds one pooled
+     * connection for as long as it runs.
+     */
+    public synchronized void startListening() {
+        if (listener != null) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "menu-catalog-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Stops the notification listener.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener = null;
+        }
+    }
+
+    /**
+     * Returns the current snapshot, loading it first if it was invalidated.
+     *
+     * @return The current snapshot
+     * @throws SQLException If the menu cannot be loaded
+     */
+    private Snapshot current() throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (loadLock) {
+            if (snapshot == null) {
+                snapshot = load(Math.max(invalidatedVersion, getVersion()) + 1);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Reads the whole MenuItem table into a new snapshot.
+     *
+     * @param version The version to tag the snapshot with
+     * @return The loaded snapshot
+     * @throws SQLException If there's an error retrieving menu items
+     */
+    private Snapshot load(long version) throws SQLException {
+        List<MenuItem> items = new ArrayList<>();
+        String query = "SELECT menuID, menuName, itemType, price FROM MenuItem ORDER BY menuID";
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet result = pstmt.executeQuery()) {
+            while (result.next()) {
+                int menuID = result.getInt("menuID");
+                String menuName = result.getString("menuName");
+                String itemType = result.getString("itemType");
+                double price = result.getDouble("price");
+                items.add(new MenuItem(menuID, menuName, itemType, price));
+            }
+        }
+        return new Snapshot(version, items);
+    }
+
+    /**
+     * Body of the listener thread. If the listening connection drops, the
+     * catalog is invalidated, since notifications may have been missed, and
+     * the listener reconnects.
+     */
+    private void listen() {
+        while (running) {
+            try (Connection conn = pool.getConnection()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConn = conn.unwrap(PGConnection.class);
+                invalidate();
+
+                while (running) {
+                    PGNotification[] notifications = pgConn.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        invalidate();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                System.err.println("Menu catalog listener lost its connection: " + e.getMessage());
+                invalidate();
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * An immutable, fully indexed copy of the menu.
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final List<MenuItem> items;
+        private final Map<Integer, MenuItem> byID;
+        private final Map<String, List<MenuItem>> byType;
+
+        private Snapshot(long version, List<MenuItem> items) {
+            this.version = version;
+            this.items = Collections.unmodifiableList(items);
+
+            Map<Integer, MenuItem> byID = new HashMap<>();
+            Map<String, List<MenuItem>> byType = new HashMap<>();
+            for (MenuItem item : items) {
+                byID.put(item.getMenuID(), item);
+                byType.computeIfAbsent(item.getItemType(), type -> new ArrayList<>()).add(item);
+            }
+            for (Map.Entry<String, List<MenuItem>> entry : byType.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            this.byID = byID;
+            this.byType = byType;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package backend;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of order IDs. IDs are split on their high 16 bits into
+ * chunks of 65536; a chunk with few IDs keeps them as a sorted array of
+ * their low 16 bits, and a chunk with many keeps a 65536-bit bitmap. Order
+ * IDs are handed out in sequence, so each day's orders fall into one or two
+ * chunks, and intersections only touch chunks both sets have.
+ *
+ * Not thread-safe; {@link OrderBitmapIndex} guards its bitmaps.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class OrderBitmap {
+    /** Above this many IDs a chunk is cheaper to keep as a bitmap. */
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 65536 / 64;
+
+    private int[] keys = new int[0];
+    private Object[] chunks = new Object[0];
+    private int chunkCount;
+
+    /**
+     * Adds an order ID.
+     *
+     * @param orderID The order ID to add
+     */
+    public void add(int orderID) {
+        int key = orderID >>> 16;
+        char low = (char) orderID;
+        int index = Arrays.binarySearch(keys, 0, chunkCount, key);
+        if (index < 0) {
+            index = -index - 1;
+            if (chunkCount == keys.length) {
+                int capacity = Math.max(4, chunkCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                chunks = Arrays.copyOf(chunks, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1, chunkCount - index);
+            System.arraycopy(chunks, index, chunks, index + 1, chunkCount - index);
+            keys[index] = key;
+            chunks[index] = new char[] {low};
+            chunkCount++;
+            return;
+        }
+        chunks[index] = add(chunks[index], low);
+    }
+
+    /**
+     * Returns whether an order ID is in the set.
+     *
+     * @param orderID The order ID to look for
+     * @return True if the order ID was added
+     */
+    public boolean contains(int orderID) {
+        int index = Arrays.binarySearch(keys, 0, chunkCount, orderID >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        return contains(chunks[index], (char) orderID);
+    }
+
+    /**
+     * Returns the number of order IDs in the set.
+     *
+     * @return The number of order IDs
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            cardinality += cardinality(chunks[i]);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the order IDs in both this set and another.
+     *
+     * @param other The other set
+     * @return A new set with the common order IDs
+     */
+    public OrderBitmap and(OrderBitmap other) {
+        OrderBitmap result = new OrderBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Object chunk = and(chunks[i], other.chunks[j]);
+                if (cardinality(chunk) > 0) {
+                    result.append(keys[i], chunk);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of order IDs in both this set and another, without
+     * building the intersection.
+     *
+     * @param other The other set
+     * @return The number of common order IDs
+     */
+    public int andCardinality(OrderBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                cardinality += andCardinality(chunks[i], other.chunks[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the order IDs in either this set or another.
+     *
+     * @param other The other set
+     * @return A new set with the order IDs of both
+     */
+    public OrderBitmap or(OrderBitmap other) {
+        OrderBitmap result = new OrderBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount || j < other.chunkCount) {
+            if (j == other.chunkCount || (i < chunkCount && keys[i] < other.keys[j])) {
+                result.append(keys[i], copy(chunks[i]));
+                i++;
+            } else if (i == chunkCount || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], copy(other.chunks[j]));
+                j++;
+            } else {
+                result.append(keys[i], or(chunks[i], other.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private void append(int key, Object chunk) {
+        if (chunkCount == keys.length) {
+            int capacity = Math.max(4, chunkCount * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+        keys[chunkCount] = key;
+        chunks[chunkCount] = chunk;
+        chunkCount++;
+    }
+
+    private static Object add(Object chunk, char low) {
+        if (chunk instanceof long[]) {
+            ((long[]) chunk)[low >>> 6] |= 1L << low;
+            return chunk;
+        }
+        char[] values = (char[]) chunk;
+        int index = Arrays.binarySearch(values, low);
+        if (index >= 0) {
+            return chunk;
+        }
+        index = -index - 1;
+        if (values.length >= ARRAY_LIMIT) {
+            long[] words = toBitmap(values);
+            words[low >>> 6] |= 1L << low;
+            return words;
+        }
+        char[] grown = new char[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, index);
+        grown[index] = low;
+        System.arraycopy(values, index, grown, index + 1, values.length - index);
+        return grown;
+    }
+
+    private static int cardinality(Object chunk) {
+        if (chunk instanceof char[]) {
+            return ((char[]) chunk).length;
+        }
+        int cardinality = 0;
+        for (long word : (long[]) chunk) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    private static Object and(Object a, Object b) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] = x[i] & y[i];
+            }
+            return compact(words);
+        }
+        if (a instanceof long[]) {
+            return and(b, a);
+        }
+        char[] values = (char[]) a;
+        char[] common = new char[values.length];
+        int count = 0;
+        for (char value : values) {
+            if (contains(b, value)) {
+                common[count++] = value;
+            }
+        }
+        return Arrays.copyOf(common, count);
+    }
+
+    private static int andCardinality(Object a, Object b) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            int cardinality = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                cardinality += Long.bitCount(x[i] & y[i]);
+            }
+            return cardinality;
+        }
+        if (a instanceof long[]) {
+            return andCardinality(b, a);
+        }
+        int cardinality = 0;
+        for (char value : (char[]) a) {
+            if (contains(b, value)) {
+                cardinality++;
+            }
+        }
+        return cardinality;
+    }
+
+    private static Object or(Object a, Object b) {
+        long[] words = a instanceof long[] ? ((long[]) a).clone() : toBitmap((char[]) a);
+        if (b instanceof long[]) {
+            long[] y = (long[]) b;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] |= y[i];
+            }
+        } else {
+            for (char value : (char[]) b) {
+                words[value >>> 6] |= 1L << value;
+            }
+        }
+        return compact(words);
+    }
+
+    private static boolean contains(Object chunk, char low) {
+        if (chunk instanceof long[]) {
+            return (((long[]) chunk)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) chunk, low) >= 0;
+    }
+
+    private static Object copy(Object chunk) {
+        return chunk instanceof long[] ? ((long[]) chunk).clone() : ((char[]) chunk).clone();
+    }
+
+    private static long[] toBitmap(char[] values) {
+        long[] words = new long[BITMAP_WORDS];
+        for (char value : values) {
+            words[value >>> 6] |= 1L << value;
+        }
+        return words;
+    }
+
+    /**
+     * Turns a bitmap chunk back into a sorted array if it has few enough IDs.
+     */
+    private static Object compact(long[] words) {
+        int cardinality = cardinality(words);
+        if (cardinality > ARRAY_LIMIT) {
+            return words;
+        }
+        char[] values = new char[cardinality];
+        int count = 0;
+        for (int i = 0; i < BITMAP_WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                values[count++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+}
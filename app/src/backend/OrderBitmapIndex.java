@@ -0,0 +1,254 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Bitmaps of order IDs, one per menu item and one per day, for basket
+ * questions such as how many orders had both Orange Chicken and Chow Mein
+ * last month. Those become intersections of a few bitmaps instead of self
+ * joins over OrderMenuItem.
+ *
+ * The index is built from OrderMenuItem and extended as orders are
+ * submitted. Adding an order is idempotent, so orders submitted while the
+ * index loads are not counted twice, and {@link #refresh(ConnectionPool)}
+ * can read the recent days again to pick up orders from other registers.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class OrderBitmapIndex {
+    private static final String LOAD_QUERY =
+            "SELECT orderID, menuItemID, orderDate FROM OrderMenuItem WHERE orderDate >= ? AND orderDate < ?";
+    private static final LocalDate LAST_DAY = LocalDate.of(9999, 1, 1);
+
+    private final Map<Integer, OrderBitmap> byItem = new HashMap<>();
+    private final TreeMap<LocalDate, OrderBitmap> byDay = new TreeMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Reads every order line from the database into the index.
+     *
+     * @param pool The pool database connections are borrowed from
+     * @throws SQLException If the order lines cannot be read
+     */
+    public void load(ConnectionPool pool) throws SQLException {
+        load(pool, LocalDate.EPOCH, LAST_DAY);
+        loaded = true;
+    }
+
+    /**
+     * Reads the order lines of yesterday and today again, adding the orders
+     * submitted by other registers and processes since the index was loaded.
+     * Does nothing until the index has been loaded.
+     *
+     * @param pool The pool database connections are borrowed from
+     * @throws SQLException If the order lines cannot be read
+     */
+    public void refresh(ConnectionPool pool) throws SQLException {
+        if (loaded) {
+            load(pool, LocalDate.now().minusDays(1), LAST_DAY);
+        }
+    }
+
+    /**
+     * Builds an index of the orders in a date range only, for when no full
+     * index is kept.
+     *
+     * @param pool The pool database connections are borrowed from
+     * @param start The first day of the range
+     * @param end The day after the last day of the range
+     * @return The loaded index
+     * @throws SQLException If the order lines cannot be read
+     */
+    public static OrderBitmapIndex loadRange(ConnectionPool pool, LocalDate start, LocalDate end) throws SQLException {
+        OrderBitmapIndex index = new OrderBitmapIndex();
+        index.load(pool, start, end);
+        index.loaded = true;
+        return index;
+    }
+
+    /**
+     * Returns whether the index has been loaded and is answering queries.
+     *
+     * @return True once {@link #load(ConnectionPool)} has completed
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Records the items of a submitted order.
+     *
+     * @param orderID The ID of the order
+     * @param date The date the order was placed
+     * @param menuIDs The menu item ID of every item in the order
+     */
+    public synchronized void record(int orderID, LocalDate date, int[] menuIDs) {
+        for (int menuID : menuIDs) {
+            add(orderID, menuID, date);
+        }
+    }
+
+    /**
+     * Counts the orders in a date range that contain every one of the given
+     * menu items. With no menu items, counts every order in the range.
+     *
+     * @param start The first day of the range
+     * @param end The day after the last day of the range
+     * @param menuIDs The menu item IDs the orders must all contain
+     * @return The number of matching orders
+     */
+    public synchronized int countOrders(LocalDate start, LocalDate end, int... menuIDs) {
+        OrderBitmap orders = ordersBetween(start, end);
+        for (int menuID : menuIDs) {
+            OrderBitmap item = byItem.get(menuID);
+            if (item == null) {
+                return 0;
+            }
+            orders = orders.and(item);
+        }
+        return orders.cardinality();
+    }
+
+    /**
+     * Returns the pairs of menu items ordered together most often in a date
+     * range. The items' bitmaps are narrowed to the range under the lock, and
+     * the pairs are then counted in parallel.
+     *
+     * @param start The first day of the range
+     * @param end The day after the last day of the range
+     * @param limit The most pairs to return
+     * @return The pairs, most common first
+     */
+    public List<ItemPair> getTopPairs(LocalDate start, LocalDate end, int limit) {
+        int[] menuIDs;
+        OrderBitmap[] items;
+        synchronized (this) {
+            OrderBitmap orders = ordersBetween(start, end);
+            List<Integer> ids = new ArrayList<>();
+            List<OrderBitmap> bitmaps = new ArrayList<>();
+            for (Map.Entry<Integer, OrderBitmap> entry : byItem.entrySet()) {
+                OrderBitmap inRange = entry.getValue().and(orders);
+                if (inRange.cardinality() > 0) {
+                    ids.add(entry.getKey());
+                    bitmaps.add(inRange);
+                }
+            }
+            menuIDs = ids.stream().mapToInt(Integer::intValue).toArray();
+            items = bitmaps.toArray(new OrderBitmap[0]);
+        }
+
+        return IntStream.range(0, menuIDs.length).parallel()
+                .boxed()
+                .flatMap(i -> IntStream.range(i + 1, menuIDs.length)
+                        .mapToObj(j -> new ItemPair(menuIDs[i], menuIDs[j], items[i].andCardinality(items[j]))))
+                .filter(pair -> pair.getOrders() > 0)
+                .sorted(Comparator.comparingInt(ItemPair::getOrders).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Two menu items and the number of orders that contained both.
+     */
+    public static final class ItemPair {
+        private final int firstMenuID;
+        private final int secondMenuID;
+        private final int orders;
+
+        private ItemPair(int firstMenuID, int secondMenuID, int orders) {
+            this.firstMenuID = firstMenuID;
+            this.secondMenuID = secondMenuID;
+            this.orders = orders;
+        }
+
+        /**
+         * Gets the ID of the first menu item.
+         *
+         * @return the menu item ID
+         */
+        public int getFirstMenuID() {
+            return firstMenuID;
+        }
+
+        /**
+         * Gets the ID of the second menu item.
+         *
+         * @return the menu item ID
+         */
+        public int getSecondMenuID() {
+            return secondMenuID;
+        }
+
+        /**
+         * Gets the number of orders that contained both menu items.
+         *
+         * @return the number of orders
+         */
+        public int getOrders() {
+            return orders;
+        }
+    }
+
+    /**
+     * Streams the order lines of a date range into the index.
+     */
+    private void load(ConnectionPool pool, LocalDate start, LocalDate end) throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            // A cursor is only used outside autocommit
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(LOAD_QUERY)) {
+                pstmt.setFetchSize(10_000);
+                pstmt.setDate(1, Date.valueOf(start));
+                pstmt.setDate(2, Date.valueOf(end));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        int orderID = rs.getInt("orderID");
+                        int menuID = rs.getInt("menuItemID");
+                        LocalDate date = rs.getDate("orderDate").toLocalDate();
+                        synchronized (this) {
+                            add(orderID, menuID, date);
+                        }
+                    }
+                }
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void add(int orderID, int menuID, LocalDate date) {
+        byItem.computeIfAbsent(menuID, id -> new OrderBitmap()).add(orderID);
+        byDay.computeIfAbsent(date, day -> new OrderBitmap()).add(orderID);
+    }
+
+    /**
+     * Returns the orders placed in a date range.
+     */
+    private OrderBitmap ordersBetween(LocalDate start, LocalDate end) {
+        OrderBitmap orders = new OrderBitmap();
+        if (start.isBefore(end)) {
+            for (OrderBitmap day : byDay.subMap(start, end).values()) {
+                orders = orders.or(day);
+            }
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,123 @@
+package backend;
+
+import java.time.LocalDateTime;
+
+/**
+ * A submitted order, as handed to the subscribers of an
+ * {@link OrderEventBus}. Events are slots of the bus's ring and are reused
+ * once every subscriber has passed them, so a subscriber must copy whatever
+ * it wants to keep before returning.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class OrderEvent {
+    private long sequence;
+    private int orderID;
+    private int cashierID;
+    private LocalDateTime orderTime;
+    private long priceCents;
+    private int[] menuIDs = new int[16];
+    private int itemCount;
+
+    OrderEvent() {
+    }
+
+    /**
+     * Fills the slot with an order, growing the item array only for an
+     * unusually large order.
+     */
+    void set(long sequence, int orderID, int cashierID, LocalDateTime orderTime, long priceCents, int[] menuIDs) {
+        this.sequence = sequence;
+        this.orderID = orderID;
+        this.cashierID = cashierID;
+        this.orderTime = orderTime;
+        this.priceCents = priceCents;
+        if (this.menuIDs.length < menuIDs.length) {
+            this.menuIDs = new int[menuIDs.length];
+        }
+        System.arraycopy(menuIDs, 0, this.menuIDs, 0, menuIDs.length);
+        this.itemCount = menuIDs.length;
+    }
+
+    /**
+     * Gets the position of the event on the bus.
+     *
+     * @return the sequence number, counting from 0
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the order ID.
+     *
+     * @return the order ID
+     */
+    public int getOrderID() {
+        return orderID;
+    }
+
+    /**
+     * Gets the ID of the cashier who submitted the order.
+     *
+     * @return the cashier ID
+     */
+    public int getCashierID() {
+        return cashierID;
+    }
+
+    /**
+     * Gets when the order was placed.
+     *
+     * @return the order time
+     */
+    public LocalDateTime getOrderTime() {
+        return orderTime;
+    }
+
+    /**
+     * Gets the order total, including tax.
+     *
+     * @return the price in cents
+     */
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    /**
+     * Gets the number of items in the order.
+     *
+     * @return the item count
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Gets the menu item ID of one item in the order.
+     *
+     * @param item the position of the item, from 0
+     * @return the menu item ID
+     */
+    public int getMenuID(int item) {
+        if (item >= itemCount) {
+            throw new IndexOutOfBoundsException("Item " + item + " of " + itemCount);
+        }
+        return menuIDs[item];
+    }
+
+    /**
+     * Copies the menu item IDs of the order.
+     *
+     * @return a new array with the menu item ID of every item
+     */
+    public int[] copyMenuIDs() {
+        int[] copy = new int[itemCount];
+        System.arraycopy(menuIDs, 0, copy, 0, itemCount);
+        return copy;
+    }
+}
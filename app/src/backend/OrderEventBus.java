@@ -0,0 +1,464 @@
+package backend;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hands each submitted order to any number of subscribers without making the
+ * register wait for them. Orders are written into a fixed ring of
+ * {@link OrderEvent} slots allocated up front, and every subscriber reads the
+ * ring on its own thread at its own pace.
+ *
+ * Publishing claims the next sequence with a compare-and-set, fills the slot
+ * and marks it published with an ordered write; it takes no lock and
+ * allocates nothing. Each register thread is its own producer, so claims are
+ * contended but never block. A slot is only reused once every subscriber has
+ * passed it; if the slowest subscriber is a whole ring behind, the order is
+ * dropped and counted rather than holding up the register, so subscribers
+ * must be able to live with a gap.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class OrderEventBus implements AutoCloseable {
+    /** The ring size used when none is given. */
+    public static final int DEFAULT_RING_SIZE = 8192;
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * How a subscriber waits when it has caught up with the register.
+     */
+    public enum WaitStrategy {
+        /** Spins on the ring; lowest latency, but keeps a core busy. */
+        BUSY_SPIN,
+        /** Spins briefly, then yields the processor between checks. */
+        YIELDING,
+        /** Spins and yields briefly, then sleeps for short intervals. */
+        SLEEPING,
+        /** Parks until a publish wakes it; the publisher only pays for the wake-up when the subscriber is asleep. */
+        BLOCKING
+    }
+
+    private final OrderEvent[] ring;
+    private final int mask;
+    private final AtomicLongArray publishedSequences;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final LongAdder dropped = new LongAdder();
+    private volatile Subscriber[] subscribers = new Subscriber[0];
+    private volatile long gatingSequence = -1;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a bus with the default ring size.
+     */
+    public OrderEventBus() {
+        this(DEFAULT_RING_SIZE);
+    }
+
+    /**
+     * Creates a bus with room for the given number of unread orders.
+     *
+     * @param ringSize The number of slots, a power of two
+     */
+    public OrderEventBus(int ringSize) {
+        if (ringSize < 2 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + ringSize);
+        }
+        ring = new OrderEvent[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new OrderEvent();
+        }
+        mask = ringSize - 1;
+        publishedSequences = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            publishedSequences.set(i, -1);
+        }
+    }
+
+    /**
+     * Publishes a submitted order to every subscriber.
+     *
+     * @param orderID The ID of the order
+     * @param cashierID The ID of the cashier who submitted it
+     * @param orderTime When the order was placed
+     * @param priceCents The order total in cents
+     * @param menuIDs The menu item ID of every item in the order
+     * @return true if the order was published, false if the bus is closed or
+     *         a subscriber is too far behind to make room for it
+     */
+    public boolean publish(int orderID, int cashierID, LocalDateTime orderTime, long priceCents, int[] menuIDs) {
+        if (menuIDs == null) {
+            throw new NullPointerException("menuIDs");
+        }
+        if (!running) {
+            return false;
+        }
+
+        long current;
+        long next;
+        do {
+            current = cursor.get();
+            next = current + 1;
+            long wrapPoint = next - ring.length;
+            if (wrapPoint > gatingSequence) {
+                long minimum = minimumSequence(current);
+                gatingSequence = minimum;
+                if (wrapPoint > minimum) {
+                    dropped.increment();
+                    return false;
+                }
+            }
+        } while (!cursor.compareAndSet(current, next));
+
+        int index = (int) (next & mask);
+        ring[index].set(next, orderID, cashierID, orderTime, priceCents, menuIDs);
+        publishedSequences.lazySet(index, next);
+
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.waiting) {
+                LockSupport.unpark(subscriber.thread);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts a subscriber on its own thread. It sees the orders published from
+     * now on, in sequence order, one at a time. The event passed to the
+     * handler is only valid for the duration of the call.
+     *
+     * @param name The name of the subscriber, used for its thread and its stats
+     * @param waitStrategy How the subscriber waits for new orders
+     * @param handler Called with each order
+     */
+    public synchronized void subscribe(String name, WaitStrategy waitStrategy, Consumer<OrderEvent> handler) {
+        if (!running) {
+            throw new IllegalStateException("Order event bus is closed");
+        }
+        Subscriber subscriber = new Subscriber(name, waitStrategy, handler, cursor.get());
+        Subscriber[] current = subscribers;
+        Subscriber[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscriber;
+        subscribers = updated;
+        subscriber.thread.start();
+    }
+
+    /**
+     * Gets the number of orders published.
+     *
+     * @return The number of orders published since the bus was created
+     */
+    public long getPublished() {
+        return cursor.get() + 1;
+    }
+
+    /**
+     * Gets the number of orders dropped because the ring was full.
+     *
+     * @return The number of orders dropped since the bus was created
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of slots in the ring.
+     *
+     * @return The ring size
+     */
+    public int getRingSize() {
+        return ring.length;
+    }
+
+    /**
+     * Reads how far along each subscriber is.
+     *
+     * @return A snapshot of each subscriber, in the order they subscribed
+     */
+    public List<SubscriberStats> getStats() {
+        long published = cursor.get();
+        List<SubscriberStats> stats = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+            long sequence = subscriber.sequence.get();
+            stats.add(new SubscriberStats(subscriber.name, subscriber.waitStrategy, sequence,
+                    Math.max(0, published - sequence), subscriber.maxLag, subscriber.processed,
+                    subscriber.errors));
+        }
+        return stats;
+    }
+
+    /**
+     * Lets the subscribers finish the orders already published, waiting up to
+     * a second, then stops them.
+     */
+    @Override
+    public void close() {
+        close(1000);
+    }
+
+    /**
+     * Lets the subscribers finish the orders already published, then stops them.
+     *
+     * @param timeoutMillis How long to wait for the subscribers to catch up
+     */
+    public void close(long timeoutMillis) {
+        Subscriber[] current;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            current = subscribers;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long last = cursor.get();
+        while (minimumSequence(last) < last && System.nanoTime() < deadline) {
+            for (Subscriber subscriber : current) {
+                LockSupport.unpark(subscriber.thread);
+            }
+            LockSupport.parkNanos(SLEEP_NANOS);
+        }
+
+        for (Subscriber subscriber : current) {
+            subscriber.stopped = true;
+            LockSupport.unpark(subscriber.thread);
+        }
+        for (Subscriber subscriber : current) {
+            try {
+                subscriber.thread.join(Math.max(1, timeoutMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the lowest sequence every subscriber has finished with.
+     *
+     * @param defaultSequence The sequence to return if there are no subscribers
+     * @return The sequence of the slowest subscriber
+     */
+    private long minimumSequence(long defaultSequence) {
+        long minimum = defaultSequence;
+        for (Subscriber subscriber : subscribers) {
+            minimum = Math.min(minimum, subscriber.sequence.get());
+        }
+        return minimum;
+    }
+
+    private boolean isPublished(long sequence) {
+        return publishedSequences.get((int) (sequence & mask)) == sequence;
+    }
+
+    /**
+     * One subscriber's thread and its position in the ring.
+     */
+    private final class Subscriber implements Runnable {
+        private final String name;
+        private final WaitStrategy waitStrategy;
+        private final Consumer<OrderEvent> handler;
+        private final AtomicLong sequence;
+        private final Thread thread;
+        private volatile boolean waiting;
+        private volatile boolean stopped;
+        private volatile long processed;
+        private volatile long errors;
+        private volatile long maxLag;
+
+        Subscriber(String name, WaitStrategy waitStrategy, Consumer<OrderEvent> handler, long startSequence) {
+            this.name = name;
+            this.waitStrategy = waitStrategy;
+            this.handler = handler;
+            this.sequence = new AtomicLong(startSequence);
+            this.thread = new Thread(this, "order-events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+
+            while (!stopped) {
+                if (!isPublished(next)) {
+                    idle = waitForPublish(next, idle);
+                    continue;
+                }
+                idle = 0;
+
+                // Takes every contiguous published order as one batch, reading the cursor once
+                long claimed = cursor.get();
+                long available = next;
+                while (available < claimed && isPublished(available + 1)) {
+                    available++;
+                }
+                long lag = claimed - next + 1;
+                if (lag > maxLag) {
+                    maxLag = lag;
+                }
+
+                for (; next <= available; next++) {
+                    try {
+                        handler.accept(ring[(int) (next & mask)]);
+                    } catch (RuntimeException e) {
+                        errors++;
+                        System.err.println("Error in order event subscriber " + name + ": " + e.getMessage());
+                    }
+                    processed++;
+                    // Frees the slot for the registers straight away rather than at the end of the batch
+                    sequence.lazySet(next);
+                }
+            }
+        }
+
+        /**
+         * Waits once for the given sequence to be published.
+         *
+         * @param next The sequence waited for
+         * @param idle How many times the subscriber has already waited for it
+         * @return The updated wait count
+         */
+        private int waitForPublish(long next, int idle) {
+            switch (waitStrategy) {
+                case BUSY_SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case YIELDING:
+                    if (idle < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                    break;
+                case SLEEPING:
+                    if (idle < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(SLEEP_NANOS);
+                    }
+                    break;
+                case BLOCKING:
+                    waiting = true;
+                    // Checks again after raising the flag so a publish in between is not missed
+                    if (!isPublished(next) && !stopped) {
+                        LockSupport.parkNanos(this, BLOCK_NANOS);
+                    }
+                    waiting = false;
+                    break;
+            }
+            return idle + 1;
+        }
+    }
+
+    /**
+     * A snapshot of one subscriber's progress.
+     */
+    public static final class SubscriberStats {
+        private final String name;
+        private final WaitStrategy waitStrategy;
+        private final long sequence;
+        private final long lag;
+        private final long maxLag;
+        private final long processed;
+        private final long errors;
+
+        SubscriberStats(String name, WaitStrategy waitStrategy, long sequence, long lag, long maxLag,
+                        long processed, long errors) {
+            this.name = name;
+            this.waitStrategy = waitStrategy;
+            this.sequence = sequence;
+            this.lag = lag;
+            this.maxLag = maxLag;
+            this.processed = processed;
+            this.errors = errors;
+        }
+
+        /**
+         * Gets the subscriber's name.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets how the subscriber waits for new orders.
+         *
+         * @return the wait strategy
+         */
+        public WaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        /**
+         * Gets the sequence of the last order the subscriber finished.
+         *
+         * @return the sequence, or -1 if none
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Gets how many published orders the subscriber has not finished yet.
+         *
+         * @return the current lag
+         */
+        public long getLag() {
+            return lag;
+        }
+
+        /**
+         * Gets the most orders the subscriber has found waiting at once.
+         *
+         * @return the largest lag seen
+         */
+        public long getMaxLag() {
+            return maxLag;
+        }
+
+        /**
+         * Gets how many orders the subscriber has handled.
+         *
+         * @return the number processed
+         */
+        public long getProcessed() {
+            return processed;
+        }
+
+        /**
+         * Gets how many orders the subscriber's handler threw on.
+         *
+         * @return the number of errors
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": lag " + lag + " (max " + maxLag + "), " + processed + " processed"
+                    + (errors > 0 ? ", " + errors + " errors" : "");
+        }
+    }
+}
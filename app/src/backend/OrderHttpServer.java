@@ -0,0 +1,276 @@
+package backend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import models.MenuItem;
+
+/**
+ * Serves an {@link OrderService} over HTTP with JSON responses, so registers
+ * that are not running the Swing POS can share the same back office.
+ *
+ * Routes:
+ * <pre>
+ * GET    /menu                         Every menu item
+ * POST   /sessions?cashierID=1         Opens a session
+ * GET    /sessions/{id}                The session's cart and totals
+ * POST   /sessions/{id}/items?menuID=5 Adds an item to the cart
+ * DELETE /sessions/{id}/items?menuID=5 Removes an item from the cart
+ * POST   /sessions/{id}/submit         Submits the cart as an order
+ * DELETE /sessions/{id}                Closes the session
+ * </pre>
+ *
+ * The API has no authentication, so by default it only listens on the
+ * loopback interface. Set the pos.http.bind system property to the address
+ * of another interface, or 0.0.0.0 for all of them, to let other machines
+ * reach it.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class OrderHttpServer {
+    private final OrderService service;
+    private final HttpServer server;
+
+    /**
+     * Creates a server for an order service on the address given by the
+     * pos.http.bind system property, or the loopback interface if it is not
+     * set. Requests are handled on the service's executor.
+     *
+     * @param service The order service to serve
+     * @param port The port to listen on
+     * @throws IOException If the address cannot be resolved or the port cannot be bound
+     */
+    public OrderHttpServer(OrderService service, int port) throws IOException {
+        this(service, bindAddress(port));
+    }
+
+    /**
+     * Creates a server for an order service. Requests are handled on the
+     * service's executor.
+     *
+     * @param service The order service to serve
+     * @param address The address and port to listen on
+     * @throws IOException If the port cannot be bound
+     */
+    public OrderHttpServer(OrderService service, InetSocketAddress address) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext("/menu", this::handleMenu);
+        this.server.createContext("/sessions", this::handleSessions);
+        this.server.setExecutor(service.getExecutor());
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+        System.out.println("Order service listening on " + server.getAddress());
+    }
+
+    /**
+     * Stops accepting requests, giving in-flight requests a second to finish.
+     */
+    public void stop() {
+        server.stop(1);
+    }
+
+    /**
+     * Handles requests for the menu.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleMenu(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            send(exchange, 200, items(service.getMenuCatalog().getMenuItems()));
+        } catch (SQLException e) {
+            send(exchange, 500, error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Handles requests for sessions and their carts.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handleSessions(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        try {
+            if (path.length == 1 && method.equals("POST")) {
+                String sessionID = service.openSession(Integer.parseInt(query.getOrDefault("cashierID", "1")));
+                send(exchange, 201, cart(sessionID));
+            } else if (path.length == 2 && method.equals("GET")) {
+                send(exchange, 200, cart(path[1]));
+            } else if (path.length == 2 && method.equals("DELETE")) {
+                send(exchange, service.closeSession(path[1]) ? 204 : 404, "");
+            } else if (path.length == 3 && path[2].equals("items") && method.equals("POST")) {
+                service.addItem(path[1], Integer.parseInt(query.get("menuID")));
+                send(exchange, 200, cart(path[1]));
+            } else if (path.length == 3 && path[2].equals("items") && method.equals("DELETE")) {
+                boolean removed = service.removeItem(path[1], Integer.parseInt(query.get("menuID")));
+                send(exchange, removed ? 200 : 404, removed ? cart(path[1]) : error("Item not in cart"));
+            } else if (path.length == 3 && path[2].equals("submit") && method.equals("POST")) {
+                int orderID = service.submit(path[1]).get();
+                send(exchange, 201, "{\"orderID\":" + orderID + "}");
+            } else {
+                send(exchange, 404, error("Not found"));
+            }
+        } catch (NumberFormatException e) {
+            send(exchange, 400, error("Invalid number: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 404, error(e.getMessage()));
+        } catch (SQLException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (ExecutionException e) {
+            send(exchange, 409, error(e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, error("Interrupted"));
+        }
+    }
+
+    /**
+     * Renders a session's cart and totals as JSON.
+     *
+     * @param sessionID The ID of the session
+     * @return The JSON object
+     */
+    private String cart(String sessionID) {
+        List<MenuItem> items = service.getItems(sessionID);
+        CashierFunctions cashier = service.getCashier(sessionID);
+        return "{\"sessionID\":" + quote(sessionID) +
+               ",\"items\":" + items(items) +
+               ",\"subtotalCents\":" + cashier.getSubtotalCents() +
+               ",\"taxCents\":" + cashier.getTaxCents() +
+               ",\"totalCents\":" + cashier.getTotalCents() + "}";
+    }
+
+    /**
+     * Renders menu items as a JSON array.
+     *
+     * @param items The menu items
+     * @return The JSON array
+     */
+    private static String items(List<MenuItem> items) {
+        StringBuilder json = new StringBuilder("[");
+        for (MenuItem item : items) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"menuID\":").append(item.getMenuID())
+                .append(",\"menuName\":").append(quote(item.getMenuName()))
+                .append(",\"itemType\":").append(quote(item.getItemType()))
+                .append(",\"priceCents\":").append(item.getPriceCents())
+                .append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    /**
+     * Quotes a string as a JSON string literal.
+     *
+     * @param value The string to quote
+     * @return The JSON string literal, or null if the value is null
+     */
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder json = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static InetSocketAddress bindAddress(int port) throws IOException {
+        String bind = System.getProperty("pos.http.bind");
+        InetAddress address = bind == null || bind.isEmpty() ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bind);
+        return new InetSocketAddress(address, port);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (bytes.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Runs the order service headless, without the Swing POS. The port is taken
+     * from the first argument and defaults to 8080.
+     *
+     * @param args Command-line arguments.
+     * @throws Exception If the service cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        OrderService service = OrderService.connect();
+        OrderHttpServer server = new OrderHttpServer(service, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            service.close();
+        }));
+        server.start();
+    }
+}
@@ -0,0 +1,563 @@
+package backend;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import models.MenuItem;
+
+/**
+ * Headless order service that serves many cashier registers from one
+ * process. Each register opens a session with its own cart and cashier ID;
+ * all sessions share the connection pool, menu catalog, live sales counters
+ * and inventory buffer. Orders are submitted on a thread per task, which is a
+ * virtual thread when the JVM supports them.
+ *
+ * Submitted orders are published to an {@link OrderEventBus}. The demand
+ * forecast is updated by a subscriber on the bus rather than on the
+ * register's thread, since a forecast can live with the odd order the bus
+ * drops; the live sales counters, inventory buffer, sales cube and order
+ * index are still updated before submitOrder returns, and the order is
+ * queued for the {@link AuditLog}, since they must not miss an order. Both are also read again from the database every so often,
+ * so orders taken by other registers and processes show up in the reports
+ * without a restart.
+ *
+ * The Swing POS and {@link OrderHttpServer} both drive the same service.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class OrderService implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final MenuCatalog catalog;
+    private final LiveSalesCounters salesCounters;
+    private final InventoryDeltaBuffer inventoryUsage;
+    private final InventoryLedger inventoryLedger;
+    private final SalesCube salesCube;
+    private final OrderBitmapIndex orderIndex;
+    private final DemandForecast demandForecast;
+    private final OrderEventBus orderEvents;
+    private final ExecutorService executor;
+    private final Map<String, CashierFunctions> sessions = new ConcurrentHashMap<>();
+    private final Set<String> submitting = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextSessionID = new AtomicLong(1);
+    private final AuditLog auditLog = new AuditLog();
+    private CompletableFuture<Void> history;
+    private ScheduledExecutorService refresher;
+
+    /**
+     * Creates an order service over already constructed backend components.
+     *
+     * @param pool The pool database connections are borrowed from
+     * @param catalog The menu catalog used for menu lookups
+     * @param salesCounters The live sales counters submitted orders are recorded in
+     * @param inventoryUsage The buffer the ingredients used by submitted orders are written through
+     * @param inventoryLedger The ledger of stock movements
+     * @param salesCube The per-item sales totals submitted orders are recorded in
+     * @param orderIndex The order bitmap index submitted orders are added to
+     * @param demandForecast The demand forecast submitted orders are recorded in
+     * @param orderEvents The bus submitted orders are published to
+     */
+    public OrderService(ConnectionPool pool, MenuCatalog catalog, LiveSalesCounters salesCounters,
+                        InventoryDeltaBuffer inventoryUsage, InventoryLedger inventoryLedger, SalesCube salesCube,
+                        OrderBitmapIndex orderIndex, DemandForecast demandForecast, OrderEventBus orderEvents) {
+        this.pool = pool;
+        this.catalog = catalog;
+        this.salesCounters = salesCounters;
+        this.inventoryUsage = inventoryUsage;
+        this.inventoryLedger = inventoryLedger;
+        this.salesCube = salesCube;
+        this.orderIndex = orderIndex;
+        this.demandForecast = demandForecast;
+        this.orderEvents = orderEvents;
+        this.executor = newThreadPerTaskExecutor();
+        orderEvents.subscribe("forecast", OrderEventBus.WaitStrategy.BLOCKING,
+                event -> demandForecast.record(event.getOrderID(), event.getOrderTime(), event.copyMenuIDs()));
+    }
+
+    /**
+     * Connects to the database in {@link dbSetup} and builds every backend
+     * component the service needs. The pool size and inventory flush interval
+     * can be tuned with the pos.pool.min, pos.pool.max and
+     * pos.inventory.flushMillis system properties. The sales cube is kept in
+     * the file named by pos.salesCube.file, or in memory if it cannot be opened.
+     * Low-stock alerts are written to standard output. Inventory snapshots
+     * are taken every pos.inventory.snapshotMinutes minutes, hourly by default.
+     * The order event bus has pos.events.ringSize slots, and every order is
+     * written to the audit log named by pos.audit.file. Today's sales and the
+     * order history start loading in the background straight away, so the
+     * service reports and forecasts the same with or without the Swing POS.
+     * Once loaded, the sales cube and order index are refreshed from the
+     * database every pos.history.refreshSeconds seconds, 60 by default.
+     *
+     * @return The started order service
+     * @throws SQLException If the database cannot be reached
+     */
+    public static OrderService connect() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(dbSetup.url, dbSetup.user, dbSetup.pswd,
+                Integer.getInteger("pos.pool.min", 2), Integer.getInteger("pos.pool.max", 8), 60_000, 10_000);
+        MenuCatalog catalog = new MenuCatalog(pool);
+        RecipeCache recipes = new RecipeCache(pool);
+        catalog.addChangeListener(recipes::invalidate);
+        catalog.startListening();
+        InventoryDeltaBuffer inventoryUsage = new InventoryDeltaBuffer(pool, recipes,
+                Long.getLong("pos.inventory.flushMillis", 1000));
+        inventoryUsage.getStockLevels().addAlertListener(alert -> System.out.println("Low stock: " + alert));
+        InventoryLedger inventoryLedger = new InventoryLedger(pool);
+        inventoryLedger.startSnapshots(TimeUnit.MINUTES.toMillis(Long.getLong("pos.inventory.snapshotMinutes", 60)));
+        SalesCube salesCube;
+        try {
+            salesCube = SalesCube.open(Paths.get(System.getProperty("pos.salesCube.file",
+                    Paths.get(System.getProperty("user.home"), ".pos-sales-cube").toString())));
+        } catch (IOException e) {
+            System.err.println("Error opening sales cube, keeping it in memory: " + e.getMessage());
+            salesCube = new SalesCube();
+        }
+        OrderService service = new OrderService(pool, catalog, new LiveSalesCounters(), inventoryUsage,
+                inventoryLedger, salesCube, new OrderBitmapIndex(), new DemandForecast(),
+                new OrderEventBus(Integer.getInteger("pos.events.ringSize", OrderEventBus.DEFAULT_RING_SIZE)));
+        try {
+            service.startAuditLog(Paths.get(System.getProperty("pos.audit.file",
+                    Paths.get(System.getProperty("user.home"), ".pos-audit.log").toString())));
+        } catch (IOException e) {
+            System.err.println("Error opening audit log, orders will not be audited: " + e.getMessage());
+        }
+        service.loadHistory().thenRun(() ->
+                service.startHistoryRefresh(TimeUnit.SECONDS.toMillis(Long.getLong("pos.history.refreshSeconds", 60))));
+        return service;
+    }
+
+    /**
+     * Loads today's sales into the live counters, the stock levels low-stock
+     * alerts are raised from, and the order history into the sales cube,
+     * order index and demand forecast, each on its own thread.
+     * Later calls return the same loads. A part that fails is reported on
+     * standard error and left unloaded, so the future always completes
+     * normally.
+     *
+     * @return A future completed once every part has been loaded or has failed
+     */
+    public synchronized CompletableFuture<Void> loadHistory() {
+        if (history == null) {
+            history = CompletableFuture.allOf(
+                    load("today's sales", () -> salesCounters.seed(pool)),
+                    load("stock levels", inventoryUsage::loadStockLevels),
+                    load("sales history", () -> salesCube.load(pool)),
+                    load("order history index", () -> orderIndex.load(pool)),
+                    load("demand history", () -> demandForecast.load(pool, Integer.getInteger("pos.forecast.weeks", 8))));
+        }
+        return history;
+    }
+
+    /**
+     * Starts reading the open days of the sales cube and the recent days of
+     * the order index from the database on a fixed interval, so they include
+     * the orders of every register. Both are idempotent, so an order this
+     * service already recorded is not counted again.
+     *
+     * @param intervalMillis How often to refresh
+     */
+    public synchronized void startHistoryRefresh(long intervalMillis) {
+        if (refresher != null) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "history-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                salesCube.load(pool);
+                orderIndex.refresh(pool);
+            } catch (SQLException e) {
+                System.err.println("Error refreshing sales history: " + e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs one part of the startup loads on the service's executor.
+     *
+     * @param description What is being loaded, used in the error message
+     * @param loader The load to run
+     * @return A future completed when the load has finished or failed
+     */
+    private CompletableFuture<Void> load(String description, Loader loader) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                loader.load();
+            } catch (SQLException e) {
+                System.err.println("Error loading " + description + ": " + e.getMessage());
+            }
+        }, executor);
+    }
+
+    /**
+     * Appends a line for every submitted order to a log file. Registers
+     * queue each order after it commits and the log's own thread writes
+     * them in batches, so a slow disk never holds up a register or the
+     * order event subscribers, and no order is left out.
+     *
+     * @param file The file to append to, created if it does not exist
+     * @throws IOException If the file cannot be opened
+     */
+    public void startAuditLog(Path file) throws IOException {
+        auditLog.open(file);
+    }
+
+    /**
+     * Opens a session for a register.
+     *
+     * @param cashierID The ID of the cashier working the register
+     * @return The ID of the new session
+     */
+    public String openSession(int cashierID) {
+        String sessionID = "s" + nextSessionID.getAndIncrement();
+        sessions.put(sessionID, new CashierFunctions(pool, catalog, salesCounters, inventoryUsage, salesCube,
+                orderIndex, orderEvents, auditLog, cashierID));
+        return sessionID;
+    }
+
+    /**
+     * Closes a session, discarding its cart.
+     *
+     * @param sessionID The ID of the session
+     * @return Whether the session existed
+     */
+    public boolean closeSession(String sessionID) {
+        return sessions.remove(sessionID) != null;
+    }
+
+    /**
+     * Returns the number of open sessions.
+     *
+     * @return The number of open sessions
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Adds a menu item to a session's cart.
+     *
+     * @param sessionID The ID of the session
+     * @param item The menu item to add
+     */
+    public void addItem(String sessionID, MenuItem item) {
+        CashierFunctions session = session(sessionID);
+        synchronized (session) {
+            session.addToOrder(item);
+        }
+    }
+
+    /**
+     * Adds a menu item to a session's cart by its ID.
+     *
+     * @param sessionID The ID of the session
+     * @param menuID The ID of the menu item
+     * @return The menu item added
+     * @throws SQLException If the menu item is not found
+     */
+    public MenuItem addItem(String sessionID, int menuID) throws SQLException {
+        MenuItem item = catalog.getMenuItem(menuID);
+        if (item == null) {
+            throw new SQLException("Menu item not found: " + menuID);
+        }
+        addItem(sessionID, item);
+        return item;
+    }
+
+    /**
+     * Removes one occurrence of a menu item from a session's cart.
+     *
+     * @param sessionID The ID of the session
+     * @param item The menu item to remove
+     */
+    public void removeItem(String sessionID, MenuItem item) {
+        CashierFunctions session = session(sessionID);
+        synchronized (session) {
+            session.removeFromOrder(item);
+        }
+    }
+
+    /**
+     * Removes one occurrence of a menu item from a session's cart by its ID.
+     *
+     * @param sessionID The ID of the session
+     * @param menuID The ID of the menu item
+     * @return Whether an item was removed
+     */
+    public boolean removeItem(String sessionID, int menuID) {
+        CashierFunctions session = session(sessionID);
+        synchronized (session) {
+            for (MenuItem item : session.getItemsOrdered()) {
+                if (item.getMenuID() == menuID) {
+                    session.removeFromOrder(item);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a copy of the items in a session's cart.
+     *
+     * @param sessionID The ID of the session
+     * @return The items in the cart
+     */
+    public List<MenuItem> getItems(String sessionID) {
+        CashierFunctions session = session(sessionID);
+        synchronized (session) {
+            return new ArrayList<>(session.getItemsOrdered());
+        }
+    }
+
+    /**
+     * Returns a session's order total including tax.
+     *
+     * @param sessionID The ID of the session
+     * @return The total in cents
+     */
+    public long getTotalCents(String sessionID) {
+        CashierFunctions session = session(sessionID);
+        synchronized (session) {
+            return session.getTotalCents();
+        }
+    }
+
+    /**
+     * Returns the cashier functions behind a session, for clients that read
+     * the cart's totals directly.
+     *
+     * @param sessionID The ID of the session
+     * @return The session's cashier functions
+     */
+    public CashierFunctions getCashier(String sessionID) {
+        return session(sessionID);
+    }
+
+    /**
+     * Submits the items currently in a session's cart as an order. The cart is
+     * not locked while the order is written, so items added in the meantime
+     * stay in the cart; only the submitted items are removed on success. A
+     * session submits one order at a time: a second submit while one is in
+     * flight fails rather than writing the same items again.
+     *
+     * @param sessionID The ID of the session
+     * @return A future completed with the new order ID
+     */
+    public CompletableFuture<Integer> submit(String sessionID) {
+        CashierFunctions session = session(sessionID);
+        if (!submitting.add(sessionID)) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("An order is already being submitted for session " + sessionID));
+        }
+        List<MenuItem> submitted;
+        synchronized (session) {
+            submitted = new ArrayList<>(session.getItemsOrdered());
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    int orderID = session.submitOrder(submitted);
+                    synchronized (session) {
+                        for (MenuItem item : submitted) {
+                            session.removeFromOrder(item);
+                        }
+                    }
+                    return orderID;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Error submitting order: " + e.getMessage(), e);
+                } finally {
+                    // Cleared before the future completes so the next submit is accepted straight away
+                    submitting.remove(sessionID);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            submitting.remove(sessionID);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the executor sessions run their database work on.
+     *
+     * @return The executor
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the shared connection pool.
+     *
+     * @return The connection pool
+     */
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the shared menu catalog.
+     *
+     * @return The menu catalog
+     */
+    public MenuCatalog getMenuCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns the shared live sales counters.
+     *
+     * @return The live sales counters
+     */
+    public LiveSalesCounters getSalesCounters() {
+        return salesCounters;
+    }
+
+    /**
+     * Returns the per-item sales totals submitted orders are recorded in.
+     *
+     * @return The sales cube
+     */
+    public SalesCube getSalesCube() {
+        return salesCube;
+    }
+
+    /**
+     * Returns the order bitmap index submitted orders are added to.
+     *
+     * @return The order bitmap index
+     */
+    public OrderBitmapIndex getOrderIndex() {
+        return orderIndex;
+    }
+
+    /**
+     * Reads every inventory item's stock and reorder threshold into the stock
+     * levels, so submitted orders raise low-stock alerts.
+     *
+     * @throws SQLException If the inventory cannot be read
+     */
+    public void loadStockLevels() throws SQLException {
+        inventoryUsage.loadStockLevels();
+    }
+
+    /**
+     * Returns the demand forecast submitted orders are recorded in.
+     *
+     * @return The demand forecast
+     */
+    public DemandForecast getDemandForecast() {
+        return demandForecast;
+    }
+
+    /**
+     * Returns the bus submitted orders are published to.
+     *
+     * @return The order event bus
+     */
+    public OrderEventBus getOrderEvents() {
+        return orderEvents;
+    }
+
+    /**
+     * Returns the ledger of stock movements.
+     *
+     * @return The inventory ledger
+     */
+    public InventoryLedger getInventoryLedger() {
+        return inventoryLedger;
+    }
+
+    /**
+     * Returns the stock levels submitted orders are taken off.
+     *
+     * @return The stock levels
+     */
+    public StockLevels getStockLevels() {
+        return inventoryUsage.getStockLevels();
+    }
+
+    /**
+     * Waits for in-flight orders, for the order event subscribers to catch
+     * up and for the audit log to write what is queued, then flushes
+     * inventory usage and the sales cube and closes the catalog listener and
+     * connection pool.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        orderEvents.close();
+        auditLog.close();
+        synchronized (this) {
+            if (refresher != null) {
+                refresher.shutdownNow();
+            }
+        }
+        catalog.close();
+        inventoryUsage.close();
+        inventoryLedger.close();
+        salesCube.close();
+        pool.close();
+    }
+
+    private CashierFunctions session(String sessionID) {
+        CashierFunctions session = sessions.get(sessionID);
+        if (session == null) {
+            throw new IllegalArgumentException("No such session: " + sessionID);
+        }
+        return session;
+    }
+
+    /**
+     * One part of the startup loads.
+     */
+    @FunctionalInterface
+    private interface Loader {
+        void load() throws SQLException;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task when
+     * the JVM supports them (Java 21 and later), falling back to a cached pool
+     * of platform threads otherwise.
+     *
+     * @return The executor
+     */
+    private static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "order-service-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory copy of the MenuItemInventory recipe table. For each menu ID it
+ * holds the inventory IDs the item uses and how much of each, in primitive
+ * arrays indexed by menu ID, so the ingredients of a whole order can be
+ * totalled without a database join. The recipes are held as an immutable
+ * {@link Recipes} snapshot that a reload replaces whole, so a caller that
+ * needs several answers to agree takes one {@link #snapshot()} and asks it.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class RecipeCache {
+    private static final int[] NO_INGREDIENTS = new int[0];
+    private static final double[] NO_QUANTITIES = new double[0];
+
+    private final ConnectionPool pool;
+    private volatile Recipes recipes;
+
+    /**
+     * Creates a recipe cache that loads the recipes lazily on first use.
+     *
+     * @param pool The pool database connections are borrowed from
+     */
+    public RecipeCache(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Drops the loaded recipes so the next lookup reloads them.
+     */
+    public void invalidate() {
+        recipes = null;
+    }
+
+    /**
+     * Returns the inventory IDs used by a menu item.
+     *
+     * @param menuID The ID of the menu item
+     * @return The inventory IDs, parallel to {@link #getQuantitiesUsed(int)}; do not modify
+     * @throws SQLException If the recipes have to be loaded and the load fails
+     */
+    public int[] getInventoryIDs(int menuID) throws SQLException {
+        Recipes current = current();
+        return menuID >= 0 && menuID < current.inventoryIDs.length ? current.inventoryIDs[menuID] : NO_INGREDIENTS;
+    }
+
+    /**
+     * Returns how much of each ingredient a menu item uses.
+     *
+     * @param menuID The ID of the menu item
+     * @return The quantities used, parallel to {@link #getInventoryIDs(int)}; do not modify
+     * @throws SQLException If the recipes have to be loaded and the load fails
+     */
+    public double[] getQuantitiesUsed(int menuID) throws SQLException {
+        Recipes current = current();
+        return menuID >= 0 && menuID < current.quantitiesUsed.length ? current.quantitiesUsed[menuID] : NO_QUANTITIES;
+    }
+
+    /**
+     * Returns the highest inventory ID used by any recipe.
+     *
+     * @return The highest inventory ID, or -1 if there are no recipes
+     * @throws SQLException If the recipes have to be loaded and the load fails
+     */
+    public int getMaxInventoryID() throws SQLException {
+        return current().getMaxInventoryID();
+    }
+
+    /**
+     * Returns the current recipes, loading them if needed. The snapshot never
+     * changes, even if the cache is invalidated and reloaded meanwhile.
+     *
+     * @return The recipes
+     * @throws SQLException If the recipes have to be loaded and the load fails
+     */
+    public Recipes snapshot() throws SQLException {
+        return current();
+    }
+
+    /**
+     * Receives one ingredient used by an order.
+     */
+    @FunctionalInterface
+    public interface UsageConsumer {
+        /**
+         * Receives an ingredient and how much of it one menu item uses.
+         *
+         * @param inventoryID The ID of the ingredient
+         * @param quantity The quantity used
+         */
+        void use(int inventoryID, double quantity);
+    }
+
+    /**
+     * Hands every ingredient used by a list of menu items to a consumer, once
+     * per menu item that uses it. All ingredients come from the same snapshot
+     * of the recipes.
+     *
+     * @param menuIDs The menu items ordered
+     * @param usage Called with each ingredient and quantity used
+     * @throws SQLException If the recipes have to be loaded and the load fails
+     */
+    public void forEachUsage(int[] menuIDs, UsageConsumer usage) throws SQLException {
+        current().forEachUsage(menuIDs, usage);
+    }
+
+    private Recipes current() throws SQLException {
+        Recipes current = recipes;
+        if (current == null) {
+            synchronized (this) {
+                current = recipes;
+                if (current == null) {
+                    current = load();
+                    recipes = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Reads the whole MenuItemInventory table into primitive arrays.
+     *
+     * @return The loaded recipes
+     * @throws SQLException If there's an error retrieving the recipes
+     */
+    private Recipes load() throws SQLException {
+        String query = "SELECT menuID, inventoryID, quantityUsed FROM MenuItemInventory ORDER BY menuID, inventoryID";
+        List<int[]> ids = new ArrayList<>();
+        List<Double> quantities = new ArrayList<>();
+        int maxMenuID = -1;
+        int maxInventoryID = -1;
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet result = pstmt.executeQuery()) {
+            while (result.next()) {
+                int menuID = result.getInt("menuID");
+                int inventoryID = result.getInt("inventoryID");
+                ids.add(new int[] {menuID, inventoryID});
+                quantities.add(result.getDouble("quantityUsed"));
+                maxMenuID = Math.max(maxMenuID, menuID);
+                maxInventoryID = Math.max(maxInventoryID, inventoryID);
+            }
+        }
+
+        int[] counts = new int[maxMenuID + 1];
+        for (int[] row : ids) {
+            counts[row[0]]++;
+        }
+        int[][] inventoryIDs = new int[maxMenuID + 1][];
+        double[][] quantitiesUsed = new double[maxMenuID + 1][];
+        for (int menuID = 0; menuID <= maxMenuID; menuID++) {
+            inventoryIDs[menuID] = counts[menuID] == 0 ? NO_INGREDIENTS : new int[counts[menuID]];
+            quantitiesUsed[menuID] = counts[menuID] == 0 ? NO_QUANTITIES : new double[counts[menuID]];
+            counts[menuID] = 0;
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            int menuID = ids.get(i)[0];
+            int slot = counts[menuID]++;
+            inventoryIDs[menuID][slot] = ids.get(i)[1];
+            quantitiesUsed[menuID][slot] = quantities.get(i);
+        }
+        return new Recipes(inventoryIDs, quantitiesUsed, maxInventoryID);
+    }
+
+    /**
+     * An immutable snapshot of every recipe.
+     */
+    public static final class Recipes {
+        private final int[][] inventoryIDs;
+        private final double[][] quantitiesUsed;
+        private final int maxInventoryID;
+
+        private Recipes(int[][] inventoryIDs, double[][] quantitiesUsed, int maxInventoryID) {
+            this.inventoryIDs = inventoryIDs;
+            this.quantitiesUsed = quantitiesUsed;
+            this.maxInventoryID = maxInventoryID;
+        }
+
+        /**
+         * Gets the highest inventory ID used by any recipe in the snapshot.
+         *
+         * @return the highest inventory ID, or -1 if there are no recipes
+         */
+        public int getMaxInventoryID() {
+            return maxInventoryID;
+        }
+
+        /**
+         * Hands every ingredient used by a list of menu items to a consumer,
+         * once per menu item that uses it.
+         *
+         * @param menuIDs The menu items ordered
+         * @param usage Called with each ingredient and quantity used
+         */
+        public void forEachUsage(int[] menuIDs, UsageConsumer usage) {
+            for (int menuID : menuIDs) {
+                if (menuID < 0 || menuID >= inventoryIDs.length) {
+                    continue;
+                }
+                int[] ids = inventoryIDs[menuID];
+                double[] quantities = quantitiesUsed[menuID];
+                for (int i = 0; i < ids.length; i++) {
+                    usage.use(ids[i], quantities[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The food cost of each menu item, rolled up from its recipe in
+ * MenuItemInventory and the unit prices in Inventory. The costs are read in
+ * one query, kept in an array indexed by menu ID and only read again after
+ * {@link #invalidate()}, which is called when a recipe or a unit price
+ * changes.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class RecipeCosts {
+    private static final String LOAD_QUERY =
+            "SELECT mii.menuID, SUM(mii.quantityUsed * COALESCE(i.unitPrice, 0)) AS foodCost " +
+            "FROM MenuItemInventory mii JOIN Inventory i ON mii.inventoryID = i.inventoryID " +
+            "GROUP BY mii.menuID";
+
+    private final ConnectionPool pool;
+    private volatile double[] foodCosts;
+
+    /**
+     * Creates a cost rollup that loads the costs lazily on first use.
+     *
+     * @param pool The pool database connections are borrowed from
+     */
+    public RecipeCosts(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Drops the loaded costs so the next lookup reads them again.
+     */
+    public void invalidate() {
+        foodCosts = null;
+    }
+
+    /**
+     * Returns what the ingredients of one of a menu item cost.
+     *
+     * @param menuID The ID of the menu item
+     * @return The food cost in dollars, or 0 if the item has no recipe
+     * @throws SQLException If the costs have to be loaded and the load fails
+     */
+    public double getFoodCost(int menuID) throws SQLException {
+        double[] current = current();
+        return menuID >= 0 && menuID < current.length ? current[menuID] : 0;
+    }
+
+    private double[] current() throws SQLException {
+        double[] current = foodCosts;
+        if (current == null) {
+            synchronized (this) {
+                current = foodCosts;
+                if (current == null) {
+                    current = load();
+                    foodCosts = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Reads the food cost of every menu item with a recipe.
+     *
+     * @return The food costs, indexed by menu ID
+     * @throws SQLException If there's an error reading the recipes
+     */
+    private double[] load() throws SQLException {
+        List<double[]> rows = new ArrayList<>();
+        int maxMenuID = -1;
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(LOAD_QUERY);
+             ResultSet result = pstmt.executeQuery()) {
+            while (result.next()) {
+                int menuID = result.getInt("menuID");
+                rows.add(new double[] {menuID, result.getDouble("foodCost")});
+                maxMenuID = Math.max(maxMenuID, menuID);
+            }
+        }
+
+        double[] costs = new double[maxMenuID + 1];
+        for (double[] row : rows) {
+            costs[(int) row[0]] = row[1];
+        }
+        return costs;
+    }
+}
@@ -0,0 +1,440 @@
+package backend;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Caches the per-day totals behind the date range reports. A requested range
+ * is split into days, and each day's totals are kept as a segment. Days
+ * before today are closed, so once loaded their segments never change and
+ * are kept in memory and, if a directory is given, on disk across restarts.
+ * Only today and the days not seen before are read from the database, one
+ * query per run of consecutive missing days, through a {@link ReportCursor}.
+ * Days are handed over in order as each is read, so a report can show its
+ * totals growing instead of waiting for the whole range.
+ *
+ * After the order or shift history is rebuilt, call {@link #clear()} or
+ * delete the cache directory so stale segments are not served.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class ReportCache {
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The per-day totals that can be cached.
+     */
+    public enum Kind {
+        /**
+         * Items sold and the sales of the orders they were in, by menu item.
+         */
+        MENU_ITEM_SALES(
+            "SELECT o.orderdate AS day, mi.menuid AS id, mi.menuname AS label, NULL AS units, " +
+            "COUNT(omi.menuitemid) AS firstValue, SUM(o.orderprice) AS secondValue " +
+            "FROM Orders o " +
+            "JOIN OrderMenuItem omi ON o.orderid = omi.orderid " +
+            "JOIN MenuItem mi ON omi.menuitemid = mi.menuid " +
+            "WHERE o.orderdate >= ? AND o.orderdate < ? " +
+            "AND omi.orderdate >= ? AND omi.orderdate < ? " +
+            "GROUP BY o.orderdate, mi.menuid, mi.menuname", 2),
+
+        /**
+         * Quantity of each inventory item used by the items sold.
+         */
+        INVENTORY_USAGE(
+            "SELECT o.orderdate AS day, i.inventoryid AS id, i.itemname AS label, i.quantityUnits AS units, " +
+            "SUM(mii.quantityUsed) AS firstValue, 0 AS secondValue " +
+            "FROM Orders o " +
+            "JOIN OrderMenuItem omi ON o.orderid = omi.orderid " +
+            "JOIN MenuItemInventory mii ON omi.menuItemID = mii.menuID " +
+            "JOIN Inventory i ON mii.inventoryid = i.inventoryid " +
+            "WHERE o.orderdate >= ? AND o.orderdate < ? " +
+            "AND omi.orderdate >= ? AND omi.orderdate < ? " +
+            "GROUP BY o.orderdate, i.inventoryid, i.itemname, i.quantityUnits", 2),
+
+        /**
+         * Hours worked by each employee.
+         */
+        EMPLOYEE_HOURS(
+            "SELECT s.shiftdate AS day, e.employeeid AS id, e.employeename AS label, NULL AS units, " +
+            "SUM(EXTRACT(EPOCH FROM (s.shiftendtime - s.shiftstarttime)) / 3600) AS firstValue, 0 AS secondValue " +
+            "FROM EmployeeShifts es " +
+            "JOIN Employees e ON es.employeeid = e.employeeid " +
+            "JOIN Shifts s ON es.shiftid = s.shiftid " +
+            "WHERE s.shiftdate >= ? AND s.shiftdate < ? " +
+            "GROUP BY s.shiftdate, e.employeeid, e.employeename", 1);
+
+        private final String query;
+        private final int dateRanges;
+
+        Kind(String query, int dateRanges) {
+            this.query = query;
+            this.dateRanges = dateRanges;
+        }
+    }
+
+    /**
+     * One row of totals over a range of days.
+     */
+    public static final class Row {
+        private final int id;
+        private final String label;
+        private final String units;
+        private final double firstValue;
+        private final double secondValue;
+
+        Row(int id, String label, String units, double firstValue, double secondValue) {
+            this.id = id;
+            this.label = label;
+            this.units = units;
+            this.firstValue = firstValue;
+            this.secondValue = secondValue;
+        }
+
+        /**
+         * Gets the ID of the menu item, inventory item or employee.
+         *
+         * @return the ID
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Gets the name of the menu item, inventory item or employee.
+         *
+         * @return the name
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Gets the units of an inventory item.
+         *
+         * @return the units, or null for other reports
+         */
+        public String getUnits() {
+            return units;
+        }
+
+        /**
+         * Gets the items sold, quantity used or hours worked.
+         *
+         * @return the first total
+         */
+        public double getFirstValue() {
+            return firstValue;
+        }
+
+        /**
+         * Gets the sales of a menu item.
+         *
+         * @return the second total, or 0 for other reports
+         */
+        public double getSecondValue() {
+            return secondValue;
+        }
+
+        /**
+         * Adds a later day's totals for the same ID to these. The name is
+         * taken from the later day, so a renamed item is shown under its
+         * current name.
+         *
+         * @param later The later day's row
+         * @return the combined totals
+         */
+        public Row plus(Row later) {
+            return new Row(later.id, later.label, later.units,
+                    firstValue + later.firstValue, secondValue + later.secondValue);
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final Path directory;
+    private final Map<Kind, Map<LocalDate, List<Row>>> closedDays = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a report cache.
+     *
+     * @param pool The pool database connections are borrowed from
+     * @param directory Where closed days are kept across restarts, or null to keep them in memory only
+     */
+    public ReportCache(ConnectionPool pool, Path directory) {
+        this.pool = pool;
+        this.directory = directory;
+        for (Kind kind : Kind.values()) {
+            closedDays.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Returns the totals over a range of days.
+     *
+     * @param kind The totals to return
+     * @param start The first day of the range
+     * @param end The day after the last day of the range
+     * @return One row per menu item, inventory item or employee with any totals in the range
+     * @throws SQLException If days that are not cached cannot be read
+     */
+    public List<Row> get(Kind kind, LocalDate start, LocalDate end) throws SQLException {
+        List<List<Row>> segments = new ArrayList<>();
+        stream(kind, start, end, (day, segment) -> segments.add(segment));
+        return merge(segments);
+    }
+
+    /**
+     * Hands over each day's totals in a range, in day order, as each day is
+     * read. Cached days are handed over as they are read from memory or
+     * disk; each run of days that are not cached is read through a cursor,
+     * and its days are handed over as the rows of each one arrive. Rows are
+     * not combined across days.
+     *
+     * @param kind The totals to hand over
+     * @param start The first day of the range
+     * @param end The day after the last day of the range
+     * @param days Called with each day and its rows, on the calling thread
+     * @throws SQLException If days that are not cached cannot be read, or the thread is interrupted
+     */
+    public void stream(Kind kind, LocalDate start, LocalDate end,
+                       BiConsumer<LocalDate, List<Row>> days) throws SQLException {
+        LocalDate today = LocalDate.now();
+        LocalDate firstMissing = null;
+
+        for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new SQLException("Report cancelled");
+            }
+            List<Row> segment = day.isBefore(today) ? cached(kind, day) : null;
+            if (segment == null) {
+                firstMissing = firstMissing == null ? day : firstMissing;
+                continue;
+            }
+            if (firstMissing != null) {
+                load(kind, firstMissing, day, today, days);
+                firstMissing = null;
+            }
+            days.accept(day, segment);
+        }
+        if (firstMissing != null) {
+            load(kind, firstMissing, end, today, days);
+        }
+    }
+
+    /**
+     * Drops every cached day, in memory and on disk.
+     */
+    public void clear() {
+        for (Map<LocalDate, List<Row>> days : closedDays.values()) {
+            days.clear();
+        }
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    System.err.println("Error deleting cached report " + file + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error clearing report cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns a closed day's segment from memory or disk.
+     *
+     * @return The segment, or null if the day has not been cached
+     */
+    private List<Row> cached(Kind kind, LocalDate day) {
+        Map<LocalDate, List<Row>> cached = closedDays.get(kind);
+        List<Row> segment = cached.get(day);
+        if (segment == null && directory != null) {
+            segment = readSegment(kind, day);
+            if (segment != null) {
+                cached.put(day, segment);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Reads a run of days from the database in one query, handing each day
+     * over once its rows have all arrived and caching the days that are
+     * closed.
+     *
+     * @throws SQLException If the days cannot be read
+     */
+    private void load(Kind kind, LocalDate from, LocalDate to, LocalDate today,
+                      BiConsumer<LocalDate, List<Row>> days) throws SQLException {
+        DayCollector collector = new DayCollector(kind, from, today, days);
+        ReportCursor.stream(pool, kind.query + " ORDER BY day", pstmt -> {
+            for (int range = 0; range < kind.dateRanges; range++) {
+                pstmt.setDate(range * 2 + 1, Date.valueOf(from));
+                pstmt.setDate(range * 2 + 2, Date.valueOf(to));
+            }
+        }, rs -> new SimpleEntry<>(rs.getDate("day").toLocalDate(), new Row(rs.getInt("id"),
+                rs.getString("label"), rs.getString("units"),
+                rs.getDouble("firstValue"), rs.getDouble("secondValue"))), 1000, chunk -> {
+            for (Map.Entry<LocalDate, Row> entry : chunk) {
+                collector.add(entry.getKey(), entry.getValue());
+            }
+        });
+        while (collector.day.isBefore(to)) {
+            collector.finish();
+        }
+    }
+
+    /**
+     * Gathers the rows of a run of days as they arrive in day order, and
+     * hands over each day when the rows of a later day start.
+     */
+    private final class DayCollector {
+        private final Kind kind;
+        private final LocalDate today;
+        private final BiConsumer<LocalDate, List<Row>> days;
+        private LocalDate day;
+        private List<Row> rows = new ArrayList<>();
+
+        DayCollector(Kind kind, LocalDate from, LocalDate today, BiConsumer<LocalDate, List<Row>> days) {
+            this.kind = kind;
+            this.day = from;
+            this.today = today;
+            this.days = days;
+        }
+
+        /**
+         * Adds a row, first handing over the days before it, including any
+         * with no rows at all.
+         */
+        void add(LocalDate rowDay, Row row) {
+            while (day.isBefore(rowDay)) {
+                finish();
+            }
+            rows.add(row);
+        }
+
+        /**
+         * Hands over the current day, caching it if it is closed, and moves
+         * on to the next.
+         */
+        void finish() {
+            List<Row> segment = Collections.unmodifiableList(rows);
+            if (day.isBefore(today) && !closedDays.get(kind).containsKey(day)) {
+                closedDays.get(kind).put(day, segment);
+                writeSegment(kind, day, segment);
+            }
+            days.accept(day, segment);
+            day = day.plusDays(1);
+            rows = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Adds up segments by ID. Names are taken from the latest segment, so a
+     * renamed item is shown under its current name.
+     */
+    private static List<Row> merge(List<List<Row>> segments) {
+        Map<Integer, Row> totals = new LinkedHashMap<>();
+        for (List<Row> segment : segments) {
+            for (Row row : segment) {
+                totals.merge(row.id, row, Row::plus);
+            }
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    private Path segmentFile(Kind kind, LocalDate day) {
+        return directory.resolve(kind.name().toLowerCase()).resolve(day + ".seg");
+    }
+
+    /**
+     * Reads a segment from disk.
+     *
+     * @return The segment, or null if it is missing or unreadable
+     */
+    private List<Row> readSegment(Kind kind, LocalDate day) {
+        Path file = segmentFile(kind, day);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int rows = in.readInt();
+            List<Row> segment = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                int id = in.readInt();
+                String label = in.readUTF();
+                String units = in.readBoolean() ? in.readUTF() : null;
+                segment.add(new Row(id, label, units, in.readDouble(), in.readDouble()));
+            }
+            return Collections.unmodifiableList(segment);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable cached report " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a segment to disk, replacing the file atomically so a crash
+     * never leaves a partial segment behind.
+     */
+    private void writeSegment(Kind kind, LocalDate day, List<Row> segment) {
+        if (directory == null) {
+            return;
+        }
+        Path file = segmentFile(kind, day);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), day.toString(), ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(segment.size());
+                for (Row row : segment) {
+                    out.writeInt(row.id);
+                    out.writeUTF(row.label == null ? "" : row.label);
+                    out.writeBoolean(row.units != null);
+                    if (row.units != null) {
+                        out.writeUTF(row.units);
+                    }
+                    out.writeDouble(row.firstValue);
+                    out.writeDouble(row.secondValue);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error caching report for " + day + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Streams the rows of a report query through a server-side cursor. The
+ * PostgreSQL driver otherwise reads a whole result into memory before the
+ * first row is returned; with autocommit off and a fetch size set, it reads
+ * one batch of rows at a time, so memory stays flat however long the
+ * report's date range is.
+ *
+ * Rows are handed to a consumer in chunks as they arrive. If the calling
+ * thread is interrupted, such as when a background task is cancelled,
+ * streaming stops with an exception so a partial result is never mistaken
+ * for a whole one. Interrupting does not reach a query the server is still
+ * running, so {@link #cancel(Thread)} cancels the statement itself.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class ReportCursor {
+    /**
+     * Sets the parameters of a report query.
+     */
+    @FunctionalInterface
+    public interface Parameters {
+        /**
+         * Sets the parameters.
+         *
+         * @param pstmt The statement to set the parameters of
+         * @throws SQLException If a parameter cannot be set
+         */
+        void set(PreparedStatement pstmt) throws SQLException;
+    }
+
+    /**
+     * Turns the current row of a result into a report row.
+     *
+     * @param <T> The type of the report rows
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        /**
+         * Reads the current row.
+         *
+         * @param rs The result, positioned on a row
+         * @return The report row
+         * @throws SQLException If a column cannot be read
+         */
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private static final Map<Thread, Statement> RUNNING = new ConcurrentHashMap<>();
+
+    private ReportCursor() {
+    }
+
+    /**
+     * Cancels the report query a thread is running, if any. The thread's
+     * stream then fails with an exception.
+     *
+     * @param thread The thread running the query
+     */
+    public static void cancel(Thread thread) {
+        Statement statement = RUNNING.get(thread);
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                System.err.println("Error cancelling report query: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Runs a query and hands its rows to a consumer in chunks.
+     *
+     * @param <T> The type of the report rows
+     * @param pool The pool database connections are borrowed from
+     * @param query The query to run
+     * @param parameters Sets the parameters of the query
+     * @param mapper Turns each result row into a report row
+     * @param chunkSize How many rows to fetch and hand over at a time
+     * @param chunks Called with each chunk of rows, on the calling thread
+     * @return The number of rows streamed
+     * @throws SQLException If the query fails or the thread is interrupted
+     */
+    public static <T> int stream(ConnectionPool pool, String query, Parameters parameters, RowMapper<T> mapper,
+                                 int chunkSize, Consumer<List<T>> chunks) throws SQLException {
+        int rows = 0;
+        try (Connection conn = pool.getConnection()) {
+            // A cursor is only used outside autocommit
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setFetchSize(chunkSize);
+                parameters.set(pstmt);
+                RUNNING.put(Thread.currentThread(), pstmt);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    List<T> chunk = new ArrayList<>(chunkSize);
+                    while (rs.next()) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new SQLException("Report cancelled");
+                        }
+                        chunk.add(mapper.map(rs));
+                        rows++;
+                        if (chunk.size() == chunkSize) {
+                            chunks.accept(chunk);
+                            chunk = new ArrayList<>(chunkSize);
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        chunks.accept(chunk);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                RUNNING.remove(Thread.currentThread());
+                conn.setAutoCommit(true);
+            }
+        }
+        return rows;
+    }
+}
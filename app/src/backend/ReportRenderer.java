@@ -0,0 +1,172 @@
+package backend;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a report as it is produced, one cell at a time, straight to a
+ * {@link Writer}. Reports describe their columns once and then hand over
+ * typed values, so the numbers are never formatted into intermediate
+ * strings and the same report can be written as text, CSV or JSON.
+ *
+ * A report is written as {@link #begin}, then for each row
+ * {@link #beginRow}, one value per column and {@link #endRow}, then
+ * {@link #end}.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public interface ReportRenderer {
+    /**
+     * A column of a report.
+     */
+    final class Column {
+        private final String key;
+        private final String heading;
+        private final int width;
+
+        /**
+         * Creates a column.
+         *
+         * @param key The name of the column in CSV and JSON
+         * @param heading The heading of the column in text
+         * @param width The width of the column in text
+         */
+        public Column(String key, String heading, int width) {
+            this.key = key;
+            this.heading = heading;
+            this.width = width;
+        }
+
+        /**
+         * Gets the name of the column in CSV and JSON.
+         *
+         * @return the key
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the heading of the column in text.
+         *
+         * @return the heading
+         */
+        public String getHeading() {
+            return heading;
+        }
+
+        /**
+         * Gets the width of the column in text.
+         *
+         * @return the width in characters
+         */
+        public int getWidth() {
+            return width;
+        }
+    }
+
+    /**
+     * Starts a report.
+     *
+     * @param title The title of the report
+     * @param columns The columns of the report
+     * @throws IOException If the report cannot be written
+     */
+    void begin(String title, Column... columns) throws IOException;
+
+    /**
+     * Starts a row.
+     *
+     * @throws IOException If the report cannot be written
+     */
+    void beginRow() throws IOException;
+
+    /**
+     * Writes a text value in the next column.
+     *
+     * @param value The value
+     * @throws IOException If the report cannot be written
+     */
+    void text(String value) throws IOException;
+
+    /**
+     * Writes a whole number in the next column.
+     *
+     * @param value The value
+     * @throws IOException If the report cannot be written
+     */
+    void number(long value) throws IOException;
+
+    /**
+     * Writes an amount of money in the next column.
+     *
+     * @param cents The amount in cents
+     * @throws IOException If the report cannot be written
+     */
+    void money(long cents) throws IOException;
+
+    /**
+     * Ends a row.
+     *
+     * @throws IOException If the report cannot be written
+     */
+    void endRow() throws IOException;
+
+    /**
+     * Ends the report and flushes the writer.
+     *
+     * @throws IOException If the report cannot be written
+     */
+    void end() throws IOException;
+
+    /**
+     * Creates a renderer for a format.
+     *
+     * @param format "text", "csv" or "json"
+     * @param out The writer to write the report to
+     * @return The renderer
+     * @throws IllegalArgumentException If the format is unknown
+     */
+    static ReportRenderer forFormat(String format, Writer out) {
+        switch (format.toLowerCase()) {
+            case "text":
+            case "txt":
+                return new TextReportRenderer(out);
+            case "csv":
+                return new CsvReportRenderer(out);
+            case "json":
+                return new JsonReportRenderer(out);
+            default:
+                throw new IllegalArgumentException("Unknown report format: " + format);
+        }
+    }
+
+    /**
+     * Writes an amount of money in cents as dollars with two decimals,
+     * without going through floating point or String.format.
+     *
+     * @param out The writer to write to
+     * @param cents The amount in cents
+     * @return The number of characters written
+     * @throws IOException If the amount cannot be written
+     */
+    static int writeMoney(Writer out, long cents) throws IOException {
+        int length = 0;
+        if (cents < 0) {
+            out.write('-');
+            length++;
+            cents = -cents;
+        }
+        String dollars = Long.toString(cents / 100);
+        out.write(dollars);
+        long fraction = cents % 100;
+        out.write('.');
+        out.write((char) ('0' + fraction / 10));
+        out.write((char) ('0' + fraction % 10));
+        return length + dollars.length() + 3;
+    }
+}
@@ -0,0 +1,476 @@
+package backend;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running totals of the items sold and their sales, per menu item per day.
+ * For each menu item the cube keeps prefix sums over days, so the totals of
+ * any date range are the difference of two array entries, whatever the
+ * length of the range.
+ *
+ * The sums live in one flat array of longs. Each menu item has a slot of
+ * item counts followed by a slot of sales in cents, both indexed by the
+ * number of days since the cube's first day. When the cube is opened on a
+ * file the array is memory-mapped, so the totals survive restarts and only
+ * the days since the last run are read again.
+ *
+ * Days before the last {@link #load(ConnectionPool)} are closed and never
+ * read again. The open days, today and later, are rebuilt order by order on
+ * every load: the orders read from the database, which include those of
+ * other registers, plus the orders recorded here that the query did not
+ * see yet. An order is counted once however often it is recorded or read,
+ * so loading again is safe at any time and keeps the cube current with
+ * every register. Orders recorded before the first load are skipped, since
+ * the load reads them from the database anyway. A file should be used by
+ * one POS at a time.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class SalesCube implements AutoCloseable {
+    private static final long MAGIC = 0x504f5343_00000001L;
+    private static final int HEADER_LONGS = 8;
+    private static final int FIRST_DAY = 1;
+    private static final int DAY_CAPACITY = 2;
+    private static final int ITEM_CAPACITY = 3;
+    private static final int DAYS = 4;
+    private static final int CLOSED_DAYS = 5;
+    private static final int ITEMS = 6;
+    private static final long UNLOADED = Long.MIN_VALUE;
+
+    private static final String LOAD_QUERY =
+            "SELECT omi.orderDate AS day, omi.menuItemID AS menuID, COUNT(*) AS quantity, SUM(o.orderPrice) AS sales " +
+            "FROM Orders o JOIN OrderMenuItem omi ON o.orderID = omi.orderID " +
+            "WHERE o.orderDate >= ? AND o.orderDate < ? AND omi.orderDate >= ? AND omi.orderDate < ? " +
+            "GROUP BY omi.orderDate, omi.menuItemID " +
+            "ORDER BY omi.orderDate";
+    private static final String OPEN_ORDERS_QUERY =
+            "SELECT o.orderID, o.orderDate, o.orderPrice, omi.menuItemID " +
+            "FROM Orders o JOIN OrderMenuItem omi ON o.orderID = omi.orderID " +
+            "WHERE o.orderDate >= ? AND omi.orderDate >= ? " +
+            "ORDER BY o.orderID";
+
+    private final FileChannel channel;
+    private LongBuffer data;
+    private MappedByteBuffer mapped;
+    /** The orders counted in the open days, by order ID. */
+    private final Map<Integer, OpenOrder> openOrders = new HashMap<>();
+
+    /**
+     * Creates a cube kept in memory only.
+     */
+    public SalesCube() {
+        this.channel = null;
+        this.data = LongBuffer.allocate(size(4096, 128));
+        writeHeader(data, 4096, 128);
+    }
+
+    private SalesCube(FileChannel channel) throws IOException {
+        this.channel = channel;
+        if (channel.size() >= HEADER_LONGS * Long.BYTES) {
+            map(channel.size());
+            if (data.get(0) == MAGIC) {
+                return;
+            }
+        }
+        map((long) size(4096, 128) * Long.BYTES);
+        writeHeader(data, 4096, 128);
+    }
+
+    /**
+     * Opens a cube kept in a memory-mapped file, creating the file if it
+     * does not exist.
+     *
+     * @param file The file the cube is kept in
+     * @return The cube
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    public static SalesCube open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        return new SalesCube(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Returns whether the cube has been loaded from the database and is
+     * answering queries.
+     *
+     * @return True once {@link #load(ConnectionPool)} has completed
+     */
+    public synchronized boolean isLoaded() {
+        return data.get(FIRST_DAY) != UNLOADED;
+    }
+
+    /**
+     * Reads the days since the last load from the database. On an empty cube
+     * this reads the whole order history. The days before today are closed
+     * from totals per item and day; today and later are rebuilt from the
+     * orders themselves, keeping any order recorded here that the query did
+     * not see.
+     *
+     * @param pool The pool database connections are borrowed from
+     * @throws SQLException If the sales cannot be read
+     */
+    public void load(ConnectionPool pool) throws SQLException {
+        LocalDate today = LocalDate.now();
+        LocalDate from;
+        synchronized (this) {
+            from = isLoaded() ? LocalDate.ofEpochDay(firstDay() + closedDays()) : LocalDate.EPOCH;
+        }
+
+        List<long[]> rows = new ArrayList<>();
+        Map<Integer, OpenOrder> read = new HashMap<>();
+        try (Connection conn = pool.getConnection()) {
+            if (from.isBefore(today)) {
+                try (PreparedStatement pstmt = conn.prepareStatement(LOAD_QUERY)) {
+                    pstmt.setDate(1, Date.valueOf(from));
+                    pstmt.setDate(2, Date.valueOf(today));
+                    pstmt.setDate(3, Date.valueOf(from));
+                    pstmt.setDate(4, Date.valueOf(today));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            rows.add(new long[] {
+                                rs.getDate("day").toLocalDate().toEpochDay(),
+                                rs.getInt("menuID"),
+                                rs.getLong("quantity"),
+                                Math.round(rs.getDouble("sales") * 100)
+                            });
+                        }
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(OPEN_ORDERS_QUERY)) {
+                pstmt.setDate(1, Date.valueOf(today));
+                pstmt.setDate(2, Date.valueOf(today));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    List<Integer> menuIDs = new ArrayList<>();
+                    int orderID = 0;
+                    LocalDate date = null;
+                    long cents = 0;
+                    while (rs.next()) {
+                        if (rs.getInt("orderID") != orderID && !menuIDs.isEmpty()) {
+                            read.put(orderID, new OpenOrder(date, toArray(menuIDs), cents));
+                            menuIDs.clear();
+                        }
+                        orderID = rs.getInt("orderID");
+                        date = rs.getDate("orderDate").toLocalDate();
+                        cents = Math.round(rs.getDouble("orderPrice") * 100);
+                        menuIDs.add(rs.getInt("menuItemID"));
+                    }
+                    if (!menuIDs.isEmpty()) {
+                        read.put(orderID, new OpenOrder(date, toArray(menuIDs), cents));
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (!isLoaded()) {
+                data.put(FIRST_DAY, rows.isEmpty() ? today.toEpochDay() : rows.get(0)[0]);
+            }
+            // Drop the open days and rebuild them from the database
+            data.put(DAYS, closedDays());
+            for (long[] row : rows) {
+                add((int) (row[0] - firstDay()), (int) row[1], row[2], row[3]);
+            }
+            int todayIndex = (int) Math.max(0, today.toEpochDay() - firstDay());
+            openOrders.putAll(read);
+            Iterator<OpenOrder> orders = openOrders.values().iterator();
+            while (orders.hasNext()) {
+                OpenOrder order = orders.next();
+                int day = (int) (order.date.toEpochDay() - firstDay());
+                if (day < todayIndex) {
+                    // Closed from the totals read above
+                    orders.remove();
+                    continue;
+                }
+                for (int menuID : order.menuIDs) {
+                    add(day, menuID, 1, order.priceCents);
+                }
+            }
+            extend(todayIndex);
+            data.put(CLOSED_DAYS, todayIndex);
+        }
+    }
+
+    /**
+     * Records the items of a submitted order. An order already counted,
+     * whether recorded before or read by a load, is skipped.
+     *
+     * @param orderID The ID of the order
+     * @param date The date the order was placed
+     * @param menuIDs The menu item ID of every item in the order
+     * @param orderPriceCents The order total in cents, counted once per item
+     *                        to match the sales report
+     */
+    public synchronized void record(int orderID, LocalDate date, int[] menuIDs, long orderPriceCents) {
+        if (!isLoaded()) {
+            return;
+        }
+        int day = (int) (date.toEpochDay() - firstDay());
+        if (day < closedDays()
+                || openOrders.putIfAbsent(orderID, new OpenOrder(date, menuIDs.clone(), orderPriceCents)) != null) {
+            return;
+        }
+        for (int menuID : menuIDs) {
+            add(day, menuID, 1, orderPriceCents);
+        }
+    }
+
+    /**
+     * Returns the items sold and sales of every menu item over a date range,
+     * indexed by menu item ID.
+     *
+     * @param start The first day of the range
+     * @param end The day after the last day of the range
+     * @return The item counts and the sales in cents
+     */
+    public synchronized Totals getTotals(LocalDate start, LocalDate end) {
+        int items = (int) data.get(ITEMS);
+        long[] counts = new long[items];
+        long[] salesCents = new long[items];
+        if (isLoaded()) {
+            int from = index(start);
+            int to = Math.max(from, index(end));
+            for (int menuID = 0; menuID < items; menuID++) {
+                counts[menuID] = data.get(offset(menuID, 0, to)) - data.get(offset(menuID, 0, from));
+                salesCents[menuID] = data.get(offset(menuID, 1, to)) - data.get(offset(menuID, 1, from));
+            }
+        }
+        return new Totals(counts, salesCents);
+    }
+
+    /**
+     * Flushes a memory-mapped cube to its file and closes it.
+     */
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            mapped.force();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing sales cube: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The totals of every menu item over a date range.
+     */
+    public static final class Totals {
+        private final long[] counts;
+        private final long[] salesCents;
+
+        private Totals(long[] counts, long[] salesCents) {
+            this.counts = counts;
+            this.salesCents = salesCents;
+        }
+
+        /**
+         * Gets one more than the highest menu item ID with totals.
+         *
+         * @return the number of menu item IDs covered
+         */
+        public int getMenuIDLimit() {
+            return counts.length;
+        }
+
+        /**
+         * Gets the number of times a menu item was sold.
+         *
+         * @param menuID The ID of the menu item
+         * @return the item count
+         */
+        public long getCount(int menuID) {
+            return menuID < counts.length ? counts[menuID] : 0;
+        }
+
+        /**
+         * Gets the sales of the orders a menu item was sold in.
+         *
+         * @param menuID The ID of the menu item
+         * @return the sales in cents
+         */
+        public long getSalesCents(int menuID) {
+            return menuID < salesCents.length ? salesCents[menuID] : 0;
+        }
+    }
+
+    /**
+     * An order counted in the open days.
+     */
+    private static final class OpenOrder {
+        private final LocalDate date;
+        private final int[] menuIDs;
+        private final long priceCents;
+
+        private OpenOrder(LocalDate date, int[] menuIDs, long priceCents) {
+            this.date = date;
+            this.menuIDs = menuIDs;
+            this.priceCents = priceCents;
+        }
+    }
+
+    /**
+     * Adds to a menu item's totals on a day and every later day.
+     */
+    private void add(int day, int menuID, long count, long cents) {
+        if (day < 0 || menuID < 0) {
+            return;
+        }
+        extend(day);
+        if (menuID >= data.get(ITEM_CAPACITY)) {
+            grow(day + 1, menuID + 1);
+        }
+        int days = (int) data.get(DAYS);
+        if (menuID >= data.get(ITEMS)) {
+            for (int item = (int) data.get(ITEMS); item <= menuID; item++) {
+                for (int i = 0; i <= days; i++) {
+                    data.put(offset(item, 0, i), 0);
+                    data.put(offset(item, 1, i), 0);
+                }
+            }
+            data.put(ITEMS, menuID + 1);
+        }
+        for (int i = day + 1; i <= days; i++) {
+            data.put(offset(menuID, 0, i), data.get(offset(menuID, 0, i)) + count);
+            data.put(offset(menuID, 1, i), data.get(offset(menuID, 1, i)) + cents);
+        }
+    }
+
+    /**
+     * Extends the prefix sums of every menu item through a day, carrying the
+     * last totals forward.
+     */
+    private void extend(int day) {
+        int days = (int) data.get(DAYS);
+        if (day < days) {
+            return;
+        }
+        if (day + 1 > data.get(DAY_CAPACITY)) {
+            grow(day + 1, (int) data.get(ITEMS));
+        }
+        int items = (int) data.get(ITEMS);
+        for (int menuID = 0; menuID < items; menuID++) {
+            long count = data.get(offset(menuID, 0, days));
+            long cents = data.get(offset(menuID, 1, days));
+            for (int i = days + 1; i <= day + 1; i++) {
+                data.put(offset(menuID, 0, i), count);
+                data.put(offset(menuID, 1, i), cents);
+            }
+        }
+        data.put(DAYS, day + 1);
+    }
+
+    /**
+     * Copies the cube into a larger array, doubling whichever capacity is
+     * too small.
+     */
+    private void grow(int days, int items) {
+        int dayCapacity = (int) data.get(DAY_CAPACITY);
+        int itemCapacity = (int) data.get(ITEM_CAPACITY);
+        int newDayCapacity = dayCapacity;
+        int newItemCapacity = itemCapacity;
+        while (newDayCapacity < days) {
+            newDayCapacity *= 2;
+        }
+        while (newItemCapacity < items) {
+            newItemCapacity *= 2;
+        }
+
+        LongBuffer old = LongBuffer.allocate(data.capacity());
+        old.put(data.duplicate().clear());
+        try {
+            if (channel == null) {
+                data = LongBuffer.allocate(size(newDayCapacity, newItemCapacity));
+            } else {
+                map((long) size(newDayCapacity, newItemCapacity) * Long.BYTES);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot grow sales cube", e);
+        }
+
+        for (int i = 0; i < HEADER_LONGS; i++) {
+            data.put(i, old.get(i));
+        }
+        data.put(DAY_CAPACITY, newDayCapacity);
+        data.put(ITEM_CAPACITY, newItemCapacity);
+        int usedDays = (int) old.get(DAYS);
+        int usedItems = (int) old.get(ITEMS);
+        for (int menuID = 0; menuID < usedItems; menuID++) {
+            for (int slot = 0; slot < 2; slot++) {
+                int from = HEADER_LONGS + (menuID * 2 + slot) * (dayCapacity + 1);
+                for (int i = 0; i <= usedDays; i++) {
+                    data.put(offset(menuID, slot, i), old.get(from + i));
+                }
+            }
+        }
+    }
+
+    private void map(long bytes) throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        mapped.order(ByteOrder.nativeOrder());
+        data = mapped.asLongBuffer();
+    }
+
+    private static void writeHeader(LongBuffer data, int dayCapacity, int itemCapacity) {
+        data.put(0, MAGIC);
+        data.put(FIRST_DAY, UNLOADED);
+        data.put(DAY_CAPACITY, dayCapacity);
+        data.put(ITEM_CAPACITY, itemCapacity);
+        data.put(DAYS, 0);
+        data.put(CLOSED_DAYS, 0);
+        data.put(ITEMS, 0);
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int size(int dayCapacity, int itemCapacity) {
+        return HEADER_LONGS + itemCapacity * 2 * (dayCapacity + 1);
+    }
+
+    private int offset(int menuID, int slot, int day) {
+        int dayCapacity = (int) data.get(DAY_CAPACITY);
+        return HEADER_LONGS + (menuID * 2 + slot) * (dayCapacity + 1) + day;
+    }
+
+    private int index(LocalDate date) {
+        long day = date.toEpochDay() - firstDay();
+        return (int) Math.max(0, Math.min(day, data.get(DAYS)));
+    }
+
+    private long firstDay() {
+        return data.get(FIRST_DAY);
+    }
+
+    private int closedDays() {
+        return (int) data.get(CLOSED_DAYS);
+    }
+}
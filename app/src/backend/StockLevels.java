@@ -0,0 +1,118 @@
+package backend;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import models.LowStockAlert;
+
+/**
+ * In-memory copy of each inventory item's quantity in stock and reorder
+ * threshold, in arrays indexed by inventory ID. The
+ * {@link InventoryDeltaBuffer} takes every order's ingredients off these
+ * levels as the order is recorded, and an item that falls to or below its
+ * reorder threshold is reported to the alert listeners right away, so low
+ * stock is noticed without querying the Inventory table.
+ *
+ * Only the order that takes an item across its threshold raises an alert.
+ * Restocking the item above the threshold arms it again.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class StockLevels {
+    private final List<Consumer<LowStockAlert>> alertListeners = new CopyOnWriteArrayList<>();
+    private String[] itemNames = new String[0];
+    private double[] quantities = new double[0];
+    private double[] thresholds = new double[0];
+
+    /**
+     * Registers a listener called with each alert. Listeners run on the thread
+     * that recorded the order, so they must return quickly.
+     *
+     * @param listener The listener to call
+     */
+    public void addAlertListener(Consumer<LowStockAlert> listener) {
+        alertListeners.add(listener);
+    }
+
+    /**
+     * Returns whether the levels have been loaded.
+     *
+     * @return True once the levels have been loaded from the database
+     */
+    public synchronized boolean isLoaded() {
+        return itemNames.length > 0;
+    }
+
+    /**
+     * Returns every item at or below its reorder threshold.
+     *
+     * @return The items low on stock, by inventory ID
+     */
+    public synchronized List<LowStockAlert> getLowStock() {
+        List<LowStockAlert> lowStock = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int id = 0; id < itemNames.length; id++) {
+            if (itemNames[id] != null && quantities[id] <= thresholds[id]) {
+                lowStock.add(new LowStockAlert(id, itemNames[id], quantities[id], thresholds[id], now));
+            }
+        }
+        return lowStock;
+    }
+
+    /**
+     * Replaces the levels with ones read from the database.
+     *
+     * @param itemNames The item names, indexed by inventory ID, null where no item exists
+     * @param quantities The quantities in stock, indexed by inventory ID
+     * @param thresholds The reorder thresholds, indexed by inventory ID
+     */
+    synchronized void reset(String[] itemNames, double[] quantities, double[] thresholds) {
+        this.itemNames = itemNames;
+        this.quantities = quantities;
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * Takes an ingredient's usage off its level.
+     *
+     * @param inventoryID The ID of the ingredient
+     * @param quantity The quantity used
+     * @return An alert if the usage took the item to or below its reorder threshold, otherwise null
+     */
+    synchronized LowStockAlert use(int inventoryID, double quantity) {
+        if (inventoryID >= itemNames.length || itemNames[inventoryID] == null) {
+            return null;
+        }
+        double before = quantities[inventoryID];
+        double after = before - quantity;
+        quantities[inventoryID] = after;
+        if (before > thresholds[inventoryID] && after <= thresholds[inventoryID]) {
+            return new LowStockAlert(inventoryID, itemNames[inventoryID], after, thresholds[inventoryID],
+                    LocalDateTime.now());
+        }
+        return null;
+    }
+
+    /**
+     * Hands alerts to every listener.
+     *
+     * @param alerts The alerts to publish
+     */
+    void publish(List<LowStockAlert> alerts) {
+        for (LowStockAlert alert : alerts) {
+            for (Consumer<LowStockAlert> listener : alertListeners) {
+                try {
+                    listener.accept(alert);
+                } catch (RuntimeException e) {
+                    System.err.println("Error handling low stock alert: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
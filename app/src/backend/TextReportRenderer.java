@@ -0,0 +1,114 @@
+package backend;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a report as fixed-width text, laid out like the reports shown in
+ * the POS: a title, a rule, the column headings, a rule and then one
+ * left-aligned row per line.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class TextReportRenderer implements ReportRenderer {
+    private final Writer out;
+    private Column[] columns;
+    private int column;
+
+    /**
+     * Creates a renderer writing to a writer.
+     *
+     * @param out The writer to write the report to
+     */
+    public TextReportRenderer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Creates a renderer writing UTF-8 to a stream.
+     *
+     * @param out The stream to write the report to
+     */
+    public TextReportRenderer(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void begin(String title, Column... columns) throws IOException {
+        this.columns = columns;
+        int width = 0;
+        for (Column c : columns) {
+            width += c.getWidth() + 1;
+        }
+        out.write(title);
+        out.write('\n');
+        rule(width);
+        beginRow();
+        for (Column c : columns) {
+            text(c.getHeading());
+        }
+        endRow();
+        rule(width);
+    }
+
+    @Override
+    public void beginRow() {
+        column = 0;
+    }
+
+    @Override
+    public void text(String value) throws IOException {
+        String text = value == null ? "" : value;
+        out.write(text);
+        pad(text.length());
+    }
+
+    @Override
+    public void number(long value) throws IOException {
+        String text = Long.toString(value);
+        out.write(text);
+        pad(text.length());
+    }
+
+    @Override
+    public void money(long cents) throws IOException {
+        pad(ReportRenderer.writeMoney(out, cents));
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        out.write('\n');
+    }
+
+    @Override
+    public void end() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Pads the current column out to its width, leaving the last column unpadded.
+     */
+    private void pad(int length) throws IOException {
+        if (column < columns.length - 1) {
+            for (int i = length; i <= columns[column].getWidth(); i++) {
+                out.write(' ');
+            }
+        }
+        column++;
+    }
+
+    private void rule(int width) throws IOException {
+        for (int i = 0; i < width; i++) {
+            out.write('-');
+        }
+        out.write('\n');
+    }
+}
@@ -14,6 +14,11 @@ public final class dbSetup  {
    */
   public static final String pswd = "kindcake33";
 
+  /**
+   * Database JDBC URL.
+   */
+  public static final String url = "jdbc:postgresql://csce-315-db.engr.tamu.edu/" + user + "_db";
+
    /**
      * Private constructor to prevent instantiation of this utility class.
      */
@@ -0,0 +1,277 @@
+package frontend;
+
+import backend.ReportCursor;
+
+import javax.swing.*;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs database work off the Swing event dispatch thread. Each task runs on a
+ * SwingWorker and its result or error is handed back on the EDT, so listeners
+ * can update components directly in their callbacks.
+ *
+ * While tasks are running, a status bar shows what is in progress along with a
+ * progress bar and a button that cancels the running tasks that can be
+ * cancelled. Work that changes the database, such as submitting an order or
+ * saving edits, is run with {@link #runUncancellable} instead: interrupting
+ * the worker does not stop a statement already sent, so cancelling it would
+ * only lose the callback that updates the screen after the write commits.
+ * Cancelling a report stops its query on the server as well.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class BackgroundTasks {
+    /**
+     * Work to run in the background.
+     *
+     * @param <T> The type of the result handed back to the EDT
+     */
+    @FunctionalInterface
+    public interface Job<T> {
+        /**
+         * Runs the work.
+         *
+         * @param progress Used to report progress and check for cancellation
+         * @return The result of the work
+         * @throws Exception If the work fails
+         */
+        T run(Progress progress) throws Exception;
+    }
+
+    /**
+     * Lets a running job report how far along it is and whether it was cancelled.
+     */
+    public interface Progress {
+        /**
+         * Reports progress as a percentage from 0 to 100.
+         *
+         * @param percent How much of the work is done
+         */
+        void update(int percent);
+
+        /**
+         * Returns whether the job was cancelled and should stop early.
+         *
+         * @return Whether the job was cancelled
+         */
+        boolean isCancelled();
+    }
+
+    private final Component parent;
+    private final JPanel statusBar;
+    private final JLabel statusLabel;
+    private final JProgressBar progressBar;
+    private final JButton cancelButton;
+    private final List<Task<?>> running = new ArrayList<>();
+
+    /**
+     * Creates the task runner and its status bar.
+     *
+     * @param parent The component error dialogs are shown over
+     */
+    public BackgroundTasks(Component parent) {
+        this.parent = parent;
+
+        statusLabel = new JLabel(" ");
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setPreferredSize(new Dimension(150, 16));
+        cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> cancelAll());
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        controls.add(progressBar);
+        controls.add(cancelButton);
+
+        statusBar = new JPanel(new BorderLayout());
+        statusBar.setBorder(BorderFactory.createEmptyBorder(2, 10, 2, 10));
+        statusBar.add(statusLabel, BorderLayout.CENTER);
+        statusBar.add(controls, BorderLayout.EAST);
+        refreshStatus();
+    }
+
+    /**
+     * Returns the status bar showing the running tasks.
+     *
+     * @return JPanel representing the status bar.
+     */
+    public JPanel getStatusBar() {
+        return statusBar;
+    }
+
+    /**
+     * Runs a job in the background. Errors are shown in a dialog.
+     *
+     * @param <T> The type of the job's result
+     * @param description What the job is doing, shown in the status bar
+     * @param trigger A component to disable while the job runs, or null
+     * @param job The work to run off the EDT
+     * @param onSuccess Called on the EDT with the job's result
+     * @return The worker running the job
+     */
+    public <T> SwingWorker<T, Integer> run(String description, JComponent trigger, Job<T> job, Consumer<T> onSuccess) {
+        return run(description, trigger, job, onSuccess, null);
+    }
+
+    /**
+     * Runs a job in the background.
+     *
+     * @param <T> The type of the job's result
+     * @param description What the job is doing, shown in the status bar
+     * @param trigger A component to disable while the job runs, or null
+     * @param job The work to run off the EDT
+     * @param onSuccess Called on the EDT with the job's result
+     * @param onFailure Called on the EDT if the job fails, or null to show an error dialog
+     * @return The worker running the job
+     */
+    public <T> SwingWorker<T, Integer> run(String description, JComponent trigger, Job<T> job,
+                                           Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+        return start(new Task<>(description, trigger, job, onSuccess, onFailure, true));
+    }
+
+    /**
+     * Runs a job in the background that the cancel button leaves running,
+     * for work that must finish once started. Errors are shown in a dialog.
+     *
+     * @param <T> The type of the job's result
+     * @param description What the job is doing, shown in the status bar
+     * @param trigger A component to disable while the job runs, or null
+     * @param job The work to run off the EDT
+     * @param onSuccess Called on the EDT with the job's result
+     * @return The worker running the job
+     */
+    public <T> SwingWorker<T, Integer> runUncancellable(String description, JComponent trigger, Job<T> job,
+                                                        Consumer<T> onSuccess) {
+        return start(new Task<>(description, trigger, job, onSuccess, null, false));
+    }
+
+    /**
+     * Shows a task in the status bar and starts it.
+     */
+    private <T> SwingWorker<T, Integer> start(Task<T> task) {
+        JComponent trigger = task.trigger;
+        if (trigger != null) {
+            trigger.setEnabled(false);
+        }
+        running.add(task);
+        refreshStatus();
+        task.execute();
+        return task;
+    }
+
+    /**
+     * Cancels every running task that can be cancelled, along with any report
+     * query it is waiting on. Their results are discarded and their callbacks
+     * are not run.
+     */
+    public void cancelAll() {
+        for (Task<?> task : new ArrayList<>(running)) {
+            if (task.cancellable && task.cancel(true)) {
+                Thread worker = task.worker;
+                if (worker != null) {
+                    ReportCursor.cancel(worker);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the status bar to match the running tasks.
+     */
+    private void refreshStatus() {
+        boolean busy = !running.isEmpty();
+        statusLabel.setText(busy ? running.get(running.size() - 1).description + "..." : "Ready");
+        progressBar.setVisible(busy);
+        cancelButton.setVisible(running.stream().anyMatch(task -> task.cancellable));
+        if (busy) {
+            int progress = running.get(running.size() - 1).getProgress();
+            progressBar.setIndeterminate(progress == 0);
+            progressBar.setValue(progress);
+        }
+    }
+
+    /**
+     * A single background job along with the callbacks for its result.
+     */
+    private final class Task<T> extends SwingWorker<T, Integer> implements Progress {
+        private final String description;
+        private final JComponent trigger;
+        private final Job<T> job;
+        private final Consumer<T> onSuccess;
+        private final Consumer<Exception> onFailure;
+        private final boolean cancellable;
+        private volatile Thread worker;
+
+        private Task(String description, JComponent trigger, Job<T> job,
+                     Consumer<T> onSuccess, Consumer<Exception> onFailure, boolean cancellable) {
+            this.description = description;
+            this.trigger = trigger;
+            this.job = job;
+            this.onSuccess = onSuccess;
+            this.onFailure = onFailure;
+            this.cancellable = cancellable;
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            worker = Thread.currentThread();
+            try {
+                return job.run(this);
+            } finally {
+                worker = null;
+            }
+        }
+
+        @Override
+        public void update(int percent) {
+            setProgress(Math.max(0, Math.min(100, percent)));
+            publish(percent);
+        }
+
+        @Override
+        protected void process(List<Integer> chunks) {
+            refreshStatus();
+        }
+
+        @Override
+        protected void done() {
+            running.remove(this);
+            refreshStatus();
+            if (trigger != null) {
+                trigger.setEnabled(true);
+            }
+
+            T result;
+            try {
+                result = get();
+            } catch (CancellationException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                if (onFailure != null) {
+                    onFailure.accept(cause);
+                } else {
+                    cause.printStackTrace();
+                    JOptionPane.showMessageDialog(parent, "Error while " + description.toLowerCase() + ": "
+                            + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+                return;
+            }
+            if (onSuccess != null) {
+                onSuccess.accept(result);
+            }
+        }
+    }
+}
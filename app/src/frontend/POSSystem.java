@@ -1,27 +1,55 @@
 package frontend;
 
 import backend.CashierFunctions;
+import backend.ConnectionPool;
+import backend.DemandForecast;
+import backend.LiveSalesCounters;
 import backend.ManagerFunctions;
-import backend.dbSetup;
+import backend.OrderEventBus;
+import backend.OrderHttpServer;
+import backend.OrderService;
+import backend.ReportCache;
+import backend.ReportRenderer;
+import backend.TextReportRenderer;
 import models.Employee;
 import models.Inventory;
 import models.InventoryUsage;
+import models.LowStockAlert;
 import models.MenuItem;
+import models.ScheduledShift;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
 
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * POSSystem class represents a Point of Sale (POS) system that allows users 
@@ -35,10 +63,19 @@ import java.time.format.DateTimeFormatter;
  * @author Richard Huynh
  */
 public class POSSystem {
+    /** How many 15-minute slots the cook-ahead plan covers. */
+    private static final int COOK_AHEAD_SLOTS = 8;
+    /** How many of the latest orders the kitchen display keeps. */
+    private static final int KITCHEN_TICKETS = 50;
+
     private JFrame frame;
     private JPanel mainPanel;
     private CardLayout cardLayout;
-    private Connection conn;
+    private OrderService orderService;
+    private ConnectionPool connectionPool;
+    private BackgroundTasks backgroundTasks;
+    private LiveSalesCounters salesCounters;
+    private String sessionID;
     private CashierFunctions cashier;
     private JLabel subtotalField;
     private JLabel taxesField;
@@ -46,10 +83,13 @@ public class POSSystem {
     private JLabel totalField;
     private String userName;
     private ManagerFunctions managerFunctions;
+    private final DefaultListModel<String> lowStockItems = new DefaultListModel<>();
+    private final DefaultListModel<String> kitchenTickets = new DefaultListModel<>();
 
     // Create shifts calendar of manager POS
     private JPanel shiftsCalendarPanel;
     private LocalDate currentWeekStartDate = LocalDate.of(2024, 7, 1).with(DayOfWeek.MONDAY);
+    private final Map<LocalDate, List<ScheduledShift>> shiftWeeks = new ConcurrentHashMap<>();
     
     
      /**
@@ -58,12 +98,19 @@ public class POSSystem {
      */
     public POSSystem() {
         establishDatabaseConnection();
-        this.cashier = new CashierFunctions(conn, 1);
-        this.managerFunctions = new ManagerFunctions(conn);
+        this.connectionPool = orderService.getConnectionPool();
+        this.salesCounters = orderService.getSalesCounters();
+        this.sessionID = orderService.openSession(Integer.getInteger("pos.cashierID", 1));
+        this.cashier = orderService.getCashier(sessionID);
+        Path reportCacheDir = Paths.get(System.getProperty("pos.reportCache.dir",
+                Paths.get(System.getProperty("user.home"), ".pos-report-cache").toString()));
+        this.managerFunctions = new ManagerFunctions(connectionPool, new ReportCache(connectionPool, reportCacheDir),
+                orderService.getSalesCube(), orderService.getOrderIndex(), orderService.getMenuCatalog());
         
         frame = new JFrame("POS System");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(800, 600);
+        backgroundTasks = new BackgroundTasks(frame);
         
         cardLayout = new CardLayout();
         mainPanel = new JPanel(cardLayout);
@@ -78,7 +125,47 @@ public class POSSystem {
         cardLayout.show(mainPanel, "LoginPage");
 
         frame.add(mainPanel);
+        frame.add(backgroundTasks.getStatusBar(), BorderLayout.SOUTH);
         frame.setVisible(true);
+
+        // The service started loading the history when it connected; this only shows it in the status bar
+        backgroundTasks.runUncancellable("Loading sales history", null, progress -> orderService.loadHistory().get(), null);
+        orderService.getStockLevels().addAlertListener(alert ->
+                SwingUtilities.invokeLater(() -> lowStockItems.addElement(alert.toString())));
+        refreshLowStock();
+        subscribeKitchenTickets();
+    }
+
+    /**
+     * Subscribes to submitted orders from every register and keeps a ticket
+     * for each of the latest ones, newest first, for the kitchen orders panel.
+     */
+    private void subscribeKitchenTickets() {
+        DateTimeFormatter ticketFormat = DateTimeFormatter.ofPattern("HH:mm:ss");
+        orderService.getOrderEvents().subscribe("kitchen", OrderEventBus.WaitStrategy.BLOCKING, event -> {
+            StringBuilder ticket = new StringBuilder();
+            ticket.append(event.getOrderTime().format(ticketFormat))
+                    .append("  #").append(event.getOrderID()).append(": ");
+            for (int i = 0; i < event.getItemCount(); i++) {
+                if (i > 0) {
+                    ticket.append(", ");
+                }
+                MenuItem item;
+                try {
+                    item = orderService.getMenuCatalog().getMenuItem(event.getMenuID(i));
+                } catch (SQLException ex) {
+                    item = null;
+                }
+                ticket.append(item != null ? item.getMenuName() : "Item " + event.getMenuID(i));
+            }
+            String text = ticket.toString();
+            SwingUtilities.invokeLater(() -> {
+                kitchenTickets.add(0, text);
+                if (kitchenTickets.size() > KITCHEN_TICKETS) {
+                    kitchenTickets.removeRange(KITCHEN_TICKETS, kitchenTickets.size() - 1);
+                }
+            });
+        });
     }
 
     /**
@@ -346,14 +433,18 @@ public class POSSystem {
                 try {
                     // int id = Integer.parseInt(idText);
                     double price = Double.parseDouble(priceText);
-                    managerFunctions.addMenuItem(itemName, category, price);
-                    JOptionPane.showMessageDialog(frame, "Item added successfully!");
-
-                    tableModel.addRow(new Object[]{itemName, price, category});
-                    // idField.setText("");
-                    nameField.setText("");
-                    priceField.setText("");
-                    categoryField.setText("");
+                    backgroundTasks.runUncancellable("Adding menu item", addButton, progress -> {
+                        managerFunctions.addMenuItem(itemName, category, price);
+                        return null;
+                    }, result -> {
+                        JOptionPane.showMessageDialog(frame, "Item added successfully!");
+
+                        tableModel.addRow(new Object[]{itemName, price, category});
+                        // idField.setText("");
+                        nameField.setText("");
+                        priceField.setText("");
+                        categoryField.setText("");
+                    });
                 } catch (NumberFormatException ex) {
                     JOptionPane.showMessageDialog(frame, "Please enter valid numeric values for ID and Price.", "Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -378,8 +469,10 @@ public class POSSystem {
                 String itemname = (String) tableModel.getValueAt(selectedRow, 0);
                 int response = JOptionPane.showConfirmDialog(frame, "Are you sure you want to delete this item?", "Confirm", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
                 if (response == JOptionPane.YES_OPTION) {
-                    managerFunctions.removeMenuItem(itemname);
-                    tableModel.removeRow(selectedRow); 
+                    backgroundTasks.runUncancellable("Deleting menu item", deleteButton, progress -> {
+                        managerFunctions.removeMenuItem(itemname);
+                        return null;
+                    }, result -> tableModel.removeRow(selectedRow));
                 }
             } else {
                 JOptionPane.showMessageDialog(frame, "Please select an item to delete.");
@@ -388,6 +481,7 @@ public class POSSystem {
 
         // Action Listener for Save All button
         saveAllButton.addActionListener(e -> {
+            List<Object[]> rows = new ArrayList<>();
             for (int i = 0; i < tableModel.getRowCount(); i++) {
                 // Retrieve the Menu ID and ensure it is parsed correctly
                 // Object menuIdObj = tableModel.getValueAt(i, 0);
@@ -403,9 +497,16 @@ public class POSSystem {
                 double price = Double.parseDouble(tableModel.getValueAt(i, 1).toString());
                 String category = (String) tableModel.getValueAt(i, 2);
                 
-                managerFunctions.setMenuItem(name, category, price);
+                rows.add(new Object[]{name, category, price});
             }
-            JOptionPane.showMessageDialog(frame, "All changes saved successfully!");
+            backgroundTasks.runUncancellable("Saving menu items", saveAllButton, progress -> {
+                for (int i = 0; i < rows.size(); i++) {
+                    Object[] row = rows.get(i);
+                    managerFunctions.setMenuItem((String) row[0], (String) row[1], (Double) row[2]);
+                    progress.update((i + 1) * 100 / rows.size());
+                }
+                return null;
+            }, result -> JOptionPane.showMessageDialog(frame, "All changes saved successfully!"));
         });
 
         // Add components to the main panel
@@ -422,9 +523,7 @@ public class POSSystem {
      * @param tableModel The table model to populate with menu items.
      */
     private void loadMenuItems(DefaultTableModel tableModel) {
-        try {
-            List<MenuItem> items = managerFunctions.getMenuItems(); // Get detailed menu items from database
-
+        backgroundTasks.run("Loading menu items", null, progress -> managerFunctions.getMenuItems(), items -> {
             for (MenuItem item : items) {
                 // int id = item.getMenuID();
                 String name = item.getMenuName();
@@ -434,10 +533,7 @@ public class POSSystem {
                 // Add the item details to the table model
                 tableModel.addRow(new Object[]{name, price, category});
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(frame, "Error loading menu items: " + ex.getMessage());
-        }
+        });
     }
 
    /**
@@ -457,8 +553,15 @@ public class POSSystem {
         inventoryTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane tableScrollPane = new JScrollPane(inventoryTable);
 
-        // Load inventory items into the table
-        loadInventoryItems(tableModel);
+        // Load inventory items into the table, keeping the loaded values to tell which rows were edited
+        Map<String, Object[]> loadedItems = new HashMap<>();
+        loadInventoryItems(tableModel, loadedItems);
+
+        // Items at or below their reorder threshold, added to as orders use up stock
+        JList<String> lowStockList = new JList<>(lowStockItems);
+        JScrollPane lowStockScrollPane = new JScrollPane(lowStockList);
+        lowStockScrollPane.setBorder(BorderFactory.createTitledBorder("Low Stock"));
+        lowStockScrollPane.setPreferredSize(new Dimension(250, 0));
 
         // Panel for adding new inventory items
         JPanel addItemPanel = new JPanel(new GridBagLayout());
@@ -527,15 +630,22 @@ public class POSSystem {
                     double reorderThreshold = Double.parseDouble(reorderText);
                     double unitPrice = Double.parseDouble(priceText);
                     
-                    managerFunctions.addInventory(itemName, quantityInStock, units, reorderThreshold, unitPrice);
-                    JOptionPane.showMessageDialog(frame, "Item added successfully!");
-
-                    tableModel.addRow(new Object[] {itemName, quantityInStock, units, reorderThreshold, unitPrice});
-                    nameField.setText("");
-                    quantityField.setText("");
-                    unitsField.setText("");
-                    reorderField.setText("");
-                    priceField.setText("");
+                    backgroundTasks.runUncancellable("Adding inventory item", addButton, progress -> {
+                        managerFunctions.addInventory(itemName, quantityInStock, units, reorderThreshold, unitPrice);
+                        return null;
+                    }, result -> {
+                        refreshLowStock();
+                        JOptionPane.showMessageDialog(frame, "Item added successfully!");
+
+                        Object[] row = {itemName, quantityInStock, units, reorderThreshold, unitPrice};
+                        tableModel.addRow(row);
+                        loadedItems.put(itemName, row.clone());
+                        nameField.setText("");
+                        quantityField.setText("");
+                        unitsField.setText("");
+                        reorderField.setText("");
+                        priceField.setText("");
+                    });
                 } catch (NumberFormatException ex) {
                     JOptionPane.showMessageDialog(frame, "Please enter valid numeric values for Inventory ID, Quantity, Reorder Threshold, and Unit Price.", "Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -547,12 +657,78 @@ public class POSSystem {
         // Panel for Delete and Save All buttons
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         
+        JButton stockAsOfButton = new JButton("Stock As Of...");
+        JButton deliveryButton = new JButton("Receive Delivery");
         JButton deleteButton = new JButton("Delete");
         JButton saveAllButton = new JButton("Save All");
 
+        buttonPanel.add(stockAsOfButton);
+        buttonPanel.add(deliveryButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(saveAllButton);
 
+        // Action Listener for Receive Delivery button, which adds to the stock instead of overwriting it
+        deliveryButton.addActionListener(e -> {
+            int selectedRow = inventoryTable.getSelectedRow();
+            if (selectedRow >= 0) {
+                String inventoryName = (String) tableModel.getValueAt(selectedRow, 0);
+                String quantityText = JOptionPane.showInputDialog(frame, "Quantity of " + inventoryName + " received:");
+                if (quantityText != null) {
+                    try {
+                        double quantity = Double.parseDouble(quantityText.trim());
+                        backgroundTasks.runUncancellable("Recording delivery", deliveryButton, progress -> {
+                            orderService.getInventoryLedger().recordDelivery(inventoryName, quantity);
+                            return null;
+                        }, result -> {
+                            loadInventoryItems(tableModel, loadedItems);
+                            refreshLowStock();
+                        });
+                    } catch (NumberFormatException ex) {
+                        JOptionPane.showMessageDialog(frame, "Please enter a valid quantity.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            } else {
+                JOptionPane.showMessageDialog(frame, "Please select an item to receive.");
+            }
+        });
+
+        // Action Listener for Stock As Of button, which works out every item's stock at a past time from the ledger
+        stockAsOfButton.addActionListener(e -> {
+            DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+            String timeText = JOptionPane.showInputDialog(frame, "Show stock as of (YYYY-MM-DD HH:MM):",
+                    LocalDateTime.now().format(format));
+            if (timeText == null) {
+                return;
+            }
+            LocalDateTime time;
+            try {
+                time = LocalDateTime.parse(timeText.trim(), format);
+            } catch (DateTimeParseException ex) {
+                JOptionPane.showMessageDialog(frame, "Invalid time format. Use YYYY-MM-DD HH:MM.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            backgroundTasks.run("Working out stock as of " + timeText.trim(), stockAsOfButton, progress -> {
+                Map<Integer, Double> stockThen = orderService.getInventoryLedger().getStockAt(time);
+                List<Object[]> rows = new ArrayList<>();
+                for (Inventory item : managerFunctions.getInventoryItems()) {
+                    rows.add(new Object[]{item.getItemname(), stockThen.getOrDefault(item.getInventoryID(), 0.0),
+                            item.getQuantityInStock(), item.getQuantityUnits()});
+                }
+                return rows;
+            }, rows -> {
+                DefaultTableModel stockModel = new DefaultTableModel(
+                        new String[]{"Item Name", "Stock As Of " + timeText.trim(), "Stock Now", "Quantity Units"}, 0);
+                for (Object[] row : rows) {
+                    stockModel.addRow(row);
+                }
+                JTable stockTable = new JTable(stockModel);
+                stockTable.setDefaultEditor(Object.class, null);
+                JScrollPane stockScrollPane = new JScrollPane(stockTable);
+                stockScrollPane.setPreferredSize(new Dimension(600, 400));
+                JOptionPane.showMessageDialog(frame, stockScrollPane, "Stock As Of " + timeText.trim(), JOptionPane.PLAIN_MESSAGE);
+            });
+        });
+
         // Action Listener for Delete button
         deleteButton.addActionListener(e -> {
             int selectedRow = inventoryTable.getSelectedRow();
@@ -560,47 +736,94 @@ public class POSSystem {
                 String inventoryName = (String) tableModel.getValueAt(selectedRow, 0);
                 int response = JOptionPane.showConfirmDialog(frame, "Are you sure you want to delete this item?", "Confirm", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
                 if (response == JOptionPane.YES_OPTION) {
-                    managerFunctions.removeInventory(inventoryName);
-                    tableModel.removeRow(selectedRow); 
+                    backgroundTasks.runUncancellable("Deleting inventory item", deleteButton, progress -> {
+                        managerFunctions.removeInventory(inventoryName);
+                        return null;
+                    }, result -> {
+                        tableModel.removeRow(selectedRow);
+                        loadedItems.remove(inventoryName);
+                        refreshLowStock();
+                    });
                 }
             } else {
                 JOptionPane.showMessageDialog(frame, "Please select an item to delete.");
             }
         });
 
-        // Action Listener for Save All button
+        // Action Listener for Save All button, which only writes the rows changed since they were loaded
         saveAllButton.addActionListener(e -> {
+            List<Object[]> rows = new ArrayList<>();
             for (int i = 0; i < tableModel.getRowCount(); i++) {
                 String itemName = tableModel.getValueAt(i, 0).toString();
                 double quantityInStock = Double.parseDouble(tableModel.getValueAt(i, 1).toString());
                 String units = tableModel.getValueAt(i, 2).toString();
                 double reorderThreshold = Double.parseDouble(tableModel.getValueAt(i, 3).toString());
                 double unitPrice = Double.parseDouble(tableModel.getValueAt(i, 4).toString());
-                
-                // Use setInventoryItem to update all fields at once
-                managerFunctions.setInventory(itemName, quantityInStock, units, reorderThreshold, unitPrice);
+
+                Object[] loaded = loadedItems.get(itemName);
+                double loadedQuantity = loaded == null ? quantityInStock : Double.parseDouble(loaded[1].toString());
+                if (loaded != null && loadedQuantity == quantityInStock && units.equals(String.valueOf(loaded[2]))
+                        && reorderThreshold == Double.parseDouble(loaded[3].toString())
+                        && unitPrice == Double.parseDouble(loaded[4].toString())) {
+                    continue;
+                }
+                rows.add(new Object[]{itemName, loadedQuantity, quantityInStock, units, reorderThreshold, unitPrice});
+            }
+            if (rows.isEmpty()) {
+                JOptionPane.showMessageDialog(frame, "No changes to save.");
+                return;
             }
-            JOptionPane.showMessageDialog(frame, "All changes saved successfully!");
+            backgroundTasks.runUncancellable("Saving inventory", saveAllButton, progress -> {
+                for (int i = 0; i < rows.size(); i++) {
+                    Object[] row = rows.get(i);
+                    managerFunctions.setInventory((String) row[0], (Double) row[1], (Double) row[2], (String) row[3],
+                            (Double) row[4], (Double) row[5]);
+                    progress.update((i + 1) * 100 / rows.size());
+                }
+                return null;
+            }, result -> {
+                // Shows the stock as it is now, including orders taken since the table was loaded
+                loadInventoryItems(tableModel, loadedItems);
+                refreshLowStock();
+                JOptionPane.showMessageDialog(frame, "Saved " + rows.size() + " changed items.");
+            });
         });
 
         // Add components to the main panel
         inventoryPanel.add(tableScrollPane, BorderLayout.CENTER);
         inventoryPanel.add(addItemPanel, BorderLayout.NORTH);
         inventoryPanel.add(buttonPanel, BorderLayout.SOUTH);
+        inventoryPanel.add(lowStockScrollPane, BorderLayout.EAST);
 
         return inventoryPanel;
     }
 
+    /**
+     * Reloads the stock levels orders are taken off and lists the items that are
+     * low on stock. Called at startup and whenever the manager changes the inventory.
+     */
+    private void refreshLowStock() {
+        backgroundTasks.runUncancellable("Loading stock levels", null, progress -> {
+            orderService.loadStockLevels();
+            return orderService.getStockLevels().getLowStock();
+        }, lowStock -> {
+            lowStockItems.clear();
+            for (LowStockAlert alert : lowStock) {
+                lowStockItems.addElement(alert.toString());
+            }
+        });
+    }
+
     /**
      * Loads inventory items from the database into the provided table model.
      * 
      * @param tableModel The table model to populate with inventory items.
+     * @param loadedItems Filled with the values loaded for each item, by item name.
      */
-    private void loadInventoryItems(DefaultTableModel tableModel) {
-        try {
-            List<Inventory> items = managerFunctions.getInventoryItems();
-    
+    private void loadInventoryItems(DefaultTableModel tableModel, Map<String, Object[]> loadedItems) {
+        backgroundTasks.run("Loading inventory items", null, progress -> managerFunctions.getInventoryItems(), items -> {
             tableModel.setRowCount(0);
+            loadedItems.clear();
     
             for (Inventory item : items) {
                 String itemName = item.getItemname();
@@ -609,12 +832,11 @@ public class POSSystem {
                 double reorderThreshold = item.getReorderThreshold();
                 double unitPrice = item.getUnitPrice();
     
-                tableModel.addRow(new Object[]{itemName, quantityInStock, quantityUnits, reorderThreshold, unitPrice});
+                Object[] row = {itemName, quantityInStock, quantityUnits, reorderThreshold, unitPrice};
+                tableModel.addRow(row);
+                loadedItems.put(itemName, row.clone());
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(frame, "Error loading inventory items: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     /**
@@ -691,15 +913,19 @@ public class POSSystem {
                 double hourlyWage = Double.parseDouble(hourlyWageField.getText().trim());
 
                 if (!name.isEmpty() && !jobTitle.isEmpty()) {
-                    managerFunctions.addEmployee(name, jobTitle, startDate, hourlyWage);
-                    JOptionPane.showMessageDialog(frame, "Employee added successfully!");
-
-                    // Update the table with the new employee
-                    tableModel.addRow(new Object[]{name, jobTitle, startDate, hourlyWage});
-                    nameField.setText("");
-                    jobTitleField.setText("");
-                    startDateField.setText("");
-                    hourlyWageField.setText("");
+                    backgroundTasks.runUncancellable("Adding employee", addButton, progress -> {
+                        managerFunctions.addEmployee(name, jobTitle, startDate, hourlyWage);
+                        return null;
+                    }, result -> {
+                        JOptionPane.showMessageDialog(frame, "Employee added successfully!");
+
+                        // Update the table with the new employee
+                        tableModel.addRow(new Object[]{name, jobTitle, startDate, hourlyWage});
+                        nameField.setText("");
+                        jobTitleField.setText("");
+                        startDateField.setText("");
+                        hourlyWageField.setText("");
+                    });
                 } else {
                     JOptionPane.showMessageDialog(frame, "Please fill in all fields.", "Warning", JOptionPane.WARNING_MESSAGE);
                 }
@@ -723,8 +949,13 @@ public class POSSystem {
                 String employeename = (String) tableModel.getValueAt(selectedRow, 0);
                 int response = JOptionPane.showConfirmDialog(frame, "Are you sure you want to delete this employee?", "Confirm", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
                 if (response == JOptionPane.YES_OPTION) {
-                    managerFunctions.removeEmployee(employeename);
-                    tableModel.removeRow(selectedRow);
+                    backgroundTasks.runUncancellable("Deleting employee", deleteButton, progress -> {
+                        managerFunctions.removeEmployee(employeename);
+                        return null;
+                    }, result -> {
+                        tableModel.removeRow(selectedRow);
+                        shiftWeeks.clear();
+                    });
                 }
             } else {
                 JOptionPane.showMessageDialog(frame, "Please select an employee to delete.");
@@ -733,15 +964,26 @@ public class POSSystem {
 
         // Action Listener for Save All button
         saveAllButton.addActionListener(e -> {
+            List<Object[]> rows = new ArrayList<>();
             for (int i = 0; i < tableModel.getRowCount(); i++) {
                 String name = tableModel.getValueAt(i, 0).toString();
                 String jobTitle = tableModel.getValueAt(i, 1).toString();
                 Date startDate = Date.valueOf(tableModel.getValueAt(i, 2).toString());
                 double hourlyWage = Double.parseDouble(tableModel.getValueAt(i, 3).toString());
 
-                managerFunctions.setEmployee(name, jobTitle, startDate, hourlyWage);
+                rows.add(new Object[]{name, jobTitle, startDate, hourlyWage});
             }
-            JOptionPane.showMessageDialog(frame, "All changes saved successfully!");
+            backgroundTasks.runUncancellable("Saving employees", saveAllButton, progress -> {
+                for (int i = 0; i < rows.size(); i++) {
+                    Object[] row = rows.get(i);
+                    managerFunctions.setEmployee((String) row[0], (String) row[1], (Date) row[2], (Double) row[3]);
+                    progress.update((i + 1) * 100 / rows.size());
+                }
+                return null;
+            }, result -> {
+                shiftWeeks.clear();
+                JOptionPane.showMessageDialog(frame, "All changes saved successfully!");
+            });
         });
 
         employeePanel.add(tableScrollPane, BorderLayout.CENTER);
@@ -757,9 +999,7 @@ public class POSSystem {
      * @param tableModel The table model to populate with employee details.
      */
     private void loadEmployees(DefaultTableModel tableModel) {
-        try {
-            List<Employee> employees = managerFunctions.getEmployees();
-
+        backgroundTasks.run("Loading employees", null, progress -> managerFunctions.getEmployees(), employees -> {
             // Clear the table first
             tableModel.setRowCount(0);
 
@@ -772,10 +1012,7 @@ public class POSSystem {
                     employee.getHourlyWage()
                 });
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(frame, "Error loading employees: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
     /**
@@ -798,65 +1035,10 @@ public class POSSystem {
     
         shiftsCalendarPanel.add(navigationPanel, BorderLayout.NORTH);
     
-        // Center panel for the calendar days
+        // Center panel for the calendar days, drawn empty until the week's shifts arrive
         JPanel daysPanel = new JPanel(new GridLayout(1, 7));
-        String[] daysOfWeek = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
-    
-        // Shift labels for display
-        String[] shiftLabels = {"10am - 2pm", "2pm - 6pm", "6pm - 9pm"};
-    
-        // Creating a sub-panel for each day of the week
-        for (int i = 0; i < daysOfWeek.length; i++) {
-            JPanel dayPanel = new JPanel(new BorderLayout());
-            dayPanel.setBackground(Color.LIGHT_GRAY);
-    
-            JLabel dayLabel = new JLabel(daysOfWeek[i], JLabel.CENTER);
-            dayLabel.setFont(new Font("Arial", Font.BOLD, 16));
-            dayPanel.add(dayLabel, BorderLayout.NORTH);
-    
-            // Only create shift buttons for Monday through Friday
-            if (i >= 1 && i <= 5) {
-                JPanel shiftsPanel = new JPanel(new GridLayout(3, 1, 5, 5));
-                shiftsPanel.setBackground(Color.DARK_GRAY);
-    
-                // Add shift buttons
-                for (int j = 0; j < shiftLabels.length; j++) {
-                    JButton shiftButton = new JButton(shiftLabels[j]);
-                    shiftButton.setBackground(new Color(34, 139, 34)); // Green button color
-                    shiftButton.setForeground(Color.WHITE);
-                    shiftButton.setFont(new Font("Arial", Font.PLAIN, 14));
-    
-                    // Store day and shift index for each button
-                    int dayIndex = i;
-                    int shiftIndex = j;
-    
-                    shiftButton.addActionListener(e -> {
-                        LocalDate shiftDate = currentWeekStartDate.plusDays(dayIndex - 1);
-                        String shiftStartTime = (shiftIndex == 0) ? "10:00:00" : (shiftIndex == 1) ? "14:00:00" : "18:00:00";
-                        Integer shiftID = managerFunctions.getShiftID(shiftDate, shiftStartTime);
-                    
-                        if (shiftID != null) {
-                            List<String> employees = managerFunctions.getEmployeesForShift(shiftID);
-                            if (employees != null && !employees.isEmpty()) {
-                                String employeeList = String.join("\n", employees);
-                                JOptionPane.showMessageDialog(shiftsCalendarPanel, "Employees:\n" + employeeList, "Shift Details", JOptionPane.INFORMATION_MESSAGE);
-                            } else {
-                                JOptionPane.showMessageDialog(shiftsCalendarPanel, "No employees assigned for this shift.", "Shift Details", JOptionPane.INFORMATION_MESSAGE);
-                            }
-                        } else {
-                            JOptionPane.showMessageDialog(shiftsCalendarPanel, "No shift scheduled at this time.", "Shift Details", JOptionPane.INFORMATION_MESSAGE);
-                        }
-                    });
-                    
-    
-                    shiftsPanel.add(shiftButton);
-                }
-    
-                dayPanel.add(shiftsPanel, BorderLayout.CENTER);
-            }
-    
-            daysPanel.add(dayPanel);
-        }
+        renderShiftsCalendar(daysPanel, currentWeekStartDate, new ArrayList<>());
+        updateShiftsCalendar(daysPanel, currentWeekStartDate);
     
         shiftsCalendarPanel.add(daysPanel, BorderLayout.CENTER);
     
@@ -879,16 +1061,84 @@ public class POSSystem {
     
     /**
      * Updates the shifts calendar display based on the specified start date of the week.
+     * A week that was already loaded or prefetched is drawn straight away; otherwise its
+     * shifts are loaded in the background and the calendar is redrawn once they arrive,
+     * unless the user has already moved on to another week. The weeks on either side
+     * are then prefetched so moving to them is instant.
      * 
      * @param daysPanel The panel to update with shift details.
      * @param weekStartDate The start date of the week to display.
      */
     private void updateShiftsCalendar(JPanel daysPanel, LocalDate weekStartDate) {
+        List<ScheduledShift> cached = shiftWeeks.get(weekStartDate);
+        if (cached != null) {
+            renderShiftsCalendar(daysPanel, weekStartDate, cached);
+            prefetchShiftWeeks(weekStartDate);
+            return;
+        }
+
+        backgroundTasks.run("Loading shifts", null, progress -> loadShiftWeeks(weekStartDate, 1), shifts -> {
+            if (weekStartDate.equals(currentWeekStartDate)) {
+                renderShiftsCalendar(daysPanel, weekStartDate, shifts);
+            }
+            prefetchShiftWeeks(weekStartDate);
+        });
+    }
+
+    /**
+     * Loads the weeks before and after a week in the background, in one query,
+     * unless both are loaded already.
+     * 
+     * @param weekStartDate The start date of the week being shown.
+     */
+    private void prefetchShiftWeeks(LocalDate weekStartDate) {
+        LocalDate previousWeek = weekStartDate.minusWeeks(1);
+        if (shiftWeeks.containsKey(previousWeek) && shiftWeeks.containsKey(weekStartDate.plusWeeks(1))) {
+            return;
+        }
+        // A failed prefetch only means the week is loaded when it is shown
+        backgroundTasks.run("Prefetching shifts", null, progress -> loadShiftWeeks(previousWeek, 3),
+                shifts -> { }, Exception::printStackTrace);
+    }
+
+    /**
+     * Loads consecutive weeks of shifts in one query and caches each week.
+     * 
+     * @param firstWeekStartDate The start date of the first week to load.
+     * @param weeks How many weeks to load.
+     * @return The shifts of every loaded week.
+     * @throws SQLException If the shifts cannot be read.
+     */
+    private List<ScheduledShift> loadShiftWeeks(LocalDate firstWeekStartDate, int weeks) throws SQLException {
+        List<ScheduledShift> shifts = managerFunctions.getShiftsBetween(firstWeekStartDate, firstWeekStartDate.plusWeeks(weeks));
+        for (int week = 0; week < weeks; week++) {
+            LocalDate weekStartDate = firstWeekStartDate.plusWeeks(week);
+            LocalDate weekEndDate = weekStartDate.plusWeeks(1);
+            List<ScheduledShift> weekShifts = new ArrayList<>();
+            for (ScheduledShift shift : shifts) {
+                if (!shift.getShiftDate().isBefore(weekStartDate) && shift.getShiftDate().isBefore(weekEndDate)) {
+                    weekShifts.add(shift);
+                }
+            }
+            shiftWeeks.put(weekStartDate, weekShifts);
+        }
+        return shifts;
+    }
+
+    /**
+     * Redraws the shifts calendar for a week whose shifts have been loaded.
+     * 
+     * @param daysPanel The panel to update with shift details.
+     * @param weekStartDate The start date of the week to display.
+     * @param shifts The shifts of the week along with their assigned employees.
+     */
+    private void renderShiftsCalendar(JPanel daysPanel, LocalDate weekStartDate, List<ScheduledShift> shifts) {
         // Remove all components first if refreshing the entire week
         daysPanel.removeAll();
     
         String[] daysOfWeek = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
         String[] shiftLabels = {"10am - 2pm", "2pm - 6pm", "6pm - 9pm"};
+        LocalTime[] shiftTimes = {LocalTime.of(10, 0), LocalTime.of(14, 0), LocalTime.of(18, 0)};
     
         // Loop through the days of the week
         for (int i = 0; i < daysOfWeek.length; i++) {
@@ -904,23 +1154,26 @@ public class POSSystem {
                 JPanel shiftsPanel = new JPanel(new GridLayout(3, 1, 5, 5));
                 shiftsPanel.setBackground(Color.DARK_GRAY);
     
-                // Calculate the date for the current day in the week
-                LocalDate dayDate = weekStartDate.plusDays(i - 1);
-    
                 // Add shift buttons for each shift on this day
                 for (int j = 0; j < shiftLabels.length; j++) {
-                    String shiftTime = (j == 0) ? "10:00:00" : (j == 1) ? "14:00:00" : "18:00:00";
-                    Integer shiftID = managerFunctions.getShiftID(dayDate, shiftTime);
+                    ScheduledShift shift = null;
+                    for (ScheduledShift candidate : shifts) {
+                        if (candidate.getShiftDate().equals(weekStartDate.plusDays(i - 1))
+                                && shiftTimes[j].equals(candidate.getShiftStartTime())) {
+                            shift = candidate;
+                            break;
+                        }
+                    }
     
                     JButton shiftButton = new JButton(shiftLabels[j]);
                     shiftButton.setBackground(new Color(34, 139, 34)); // Green button color
                     shiftButton.setForeground(Color.WHITE);
                     shiftButton.setFont(new Font("Arial", Font.PLAIN, 14));
     
-                    if (shiftID != null) {
+                    if (shift != null) {
+                        List<String> employees = shift.getEmployees();
                         shiftButton.addActionListener(e -> {
-                            List<String> employees = managerFunctions.getEmployeesForShift(shiftID);
-                            if (employees != null && !employees.isEmpty()) {
+                            if (!employees.isEmpty()) {
                                 String employeeList = String.join("\n", employees);
                                 JOptionPane.showMessageDialog(
                                     shiftsCalendarPanel, 
@@ -971,16 +1224,24 @@ public class POSSystem {
         
         JPanel productUsageChartPanel = createProductUsageChartPanel();
         JPanel xReportPanel = createXReportPanel();
+        JPanel cookAheadPanel = createCookAheadPanel();
+        JPanel kitchenOrdersPanel = createKitchenOrdersPanel();
         JPanel zReportPanel = createZReportPanel();
         JPanel salesReportPanel = createSalesReportPanel();
         JPanel popularityAnalysisPanel = createPopularityAnalysisPanel();
+        JPanel marketBasketPanel = createMarketBasketPanel();
+        JPanel menuEngineeringPanel = createMenuEngineeringPanel();
         JPanel employeeHoursReportPanel = createEmployeeHoursReportPanel();
         
         tabbedPane.addTab("Product Usage Chart", productUsageChartPanel);
         tabbedPane.addTab("X Report", xReportPanel);
+        tabbedPane.addTab("Cook-Ahead Plan", cookAheadPanel);
+        tabbedPane.addTab("Kitchen Orders", kitchenOrdersPanel);
         tabbedPane.addTab("Z Report", zReportPanel);
         tabbedPane.addTab("Sales Report", salesReportPanel);
         tabbedPane.addTab("Popularity Analysis", popularityAnalysisPanel);
+        tabbedPane.addTab("Market Basket", marketBasketPanel);
+        tabbedPane.addTab("Menu Engineering", menuEngineeringPanel);
         tabbedPane.addTab("Employee Hours Report", employeeHoursReportPanel);
         
         reportingPanel.add(tabbedPane, BorderLayout.CENTER);
@@ -1017,8 +1278,6 @@ public class POSSystem {
                 Date fromDate = Date.valueOf(fromDateField.getText().trim());
                 Date toDate = Date.valueOf(toDateField.getText().trim());
     
-                List<InventoryUsage> usageData = managerFunctions.getInventoryUsage(fromDate, toDate);
-    
                 // Clear previous chart
                 chartArea.removeAll();
     
@@ -1026,19 +1285,33 @@ public class POSSystem {
                 String[] columnNames = {"Item Name", "Quantity Used", "Units"};
                 DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0);
     
-                // Populate table model with usage data
-                for (InventoryUsage usage : usageData) {
-                    tableModel.addRow(new Object[]{usage.getItemName(), usage.getQuantityUsed(), usage.getUnits()});
-                }
-    
-                // Create table
+                // Create table, kept sorted by item name as totals arrive
                 JTable usageTable = new JTable(tableModel);
+                TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(tableModel);
+                sorter.setSortKeys(List.of(new RowSorter.SortKey(0, SortOrder.ASCENDING)));
+                usageTable.setRowSorter(sorter);
                 JScrollPane scrollPane = new JScrollPane(usageTable);
                 chartArea.add(scrollPane, BorderLayout.CENTER);
     
                 // Refresh the panel
                 chartArea.revalidate();
                 chartArea.repaint();
+    
+                // Add items and update their totals as each day is read
+                Map<String, Integer> rowByItem = new HashMap<>();
+                backgroundTasks.run("Generating product usage chart", generateChartButton,
+                        progress -> managerFunctions.streamInventoryUsage(fromDate, toDate,
+                                updates -> SwingUtilities.invokeLater(() -> {
+                                    for (InventoryUsage usage : updates) {
+                                        Integer row = rowByItem.get(usage.getItemName());
+                                        if (row == null) {
+                                            rowByItem.put(usage.getItemName(), tableModel.getRowCount());
+                                            tableModel.addRow(new Object[]{usage.getItemName(), usage.getQuantityUsed(), usage.getUnits()});
+                                        } else {
+                                            tableModel.setValueAt(usage.getQuantityUsed(), row, 1);
+                                        }
+                                    }
+                                })), null);
             } catch (IllegalArgumentException ex) {
                 JOptionPane.showMessageDialog(productUsageChartPanel, "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -1047,14 +1320,23 @@ public class POSSystem {
         return productUsageChartPanel;
     }
     
+    /**
+     * Creates the X report panel. While "Live" is checked the report refreshes
+     * every second from the in-process sales counters; the generate button
+     * reads the report from the database instead.
+     * 
+     * @return JPanel representing the X report panel.
+     */
     private JPanel createXReportPanel() {
         JPanel xReportPanel = new JPanel(new BorderLayout());
         
         // Button panel
         JPanel buttonPanel = new JPanel();
         JButton generateReportButton = new JButton("Generate X Report");
+        JCheckBox liveCheckBox = new JCheckBox("Live", true);
         
         buttonPanel.add(generateReportButton);
+        buttonPanel.add(liveCheckBox);
         
         xReportPanel.add(buttonPanel, BorderLayout.NORTH);
         
@@ -1065,26 +1347,169 @@ public class POSSystem {
         JScrollPane scrollPane = new JScrollPane(reportTextArea);
         
         xReportPanel.add(scrollPane, BorderLayout.CENTER);
+
+        // Refresh from the live counters, which never touches the database
+        Timer liveTimer = new Timer(1000, e -> {
+            if (xReportPanel.isShowing()) {
+                showXReport(reportTextArea, salesCounters.getXReport());
+            }
+        });
+        liveTimer.setInitialDelay(0);
+        liveTimer.start();
+
+        liveCheckBox.addActionListener(e -> {
+            if (liveCheckBox.isSelected()) {
+                liveTimer.restart();
+            } else {
+                liveTimer.stop();
+            }
+        });
         
         // Action listener for report generation
         generateReportButton.addActionListener(e -> {
-            List<String> xReport = managerFunctions.getXReport();
-            
-            // Clear the text area and add the report content
-            reportTextArea.setText(""); 
-            reportTextArea.append("X Report (Today's Summary)\n");
-            reportTextArea.append("==========================\n");
-            reportTextArea.append("Date: " + LocalDate.now() + "\n\n");
-            reportTextArea.append("Hour Range      Orders Sales\n");
-            reportTextArea.append("-----------------------------\n");
-            for (String line : xReport) {
-                reportTextArea.append(line + "\n");
-            }
+            liveCheckBox.setSelected(false);
+            liveTimer.stop();
+            backgroundTasks.run("Generating X report", generateReportButton,
+                    progress -> managerFunctions.getXReport(), xReport -> showXReport(reportTextArea, xReport));
         });
         
         return xReportPanel;
     }
 
+    /**
+     * Shows an X report in the given text area.
+     * 
+     * @param reportTextArea The text area to show the report in.
+     * @param xReport The lines of the report.
+     */
+    private void showXReport(JTextArea reportTextArea, List<String> xReport) {
+        StringBuilder text = new StringBuilder();
+        text.append("X Report (Today's Summary)\n");
+        text.append("==========================\n");
+        text.append("Date: " + LocalDate.now() + "\n\n");
+        text.append("Hour Range      Orders Sales\n");
+        text.append("-----------------------------\n");
+        for (String line : xReport) {
+            text.append(line + "\n");
+        }
+        if (!text.toString().equals(reportTextArea.getText())) {
+            reportTextArea.setText(text.toString());
+        }
+    }
+
+    /**
+     * Creates the cook-ahead panel, which shows how many of each menu item are
+     * expected to be ordered in each 15-minute slot of the next two hours. The
+     * plan is worked out in memory from the demand forecast and refreshed while
+     * the panel is showing.
+     * 
+     * @return JPanel representing the cook-ahead panel.
+     */
+    private JPanel createCookAheadPanel() {
+        JPanel cookAheadPanel = new JPanel(new BorderLayout());
+
+        // Text area for displaying the plan
+        JTextArea planTextArea = new JTextArea();
+        planTextArea.setEditable(false);
+        planTextArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        cookAheadPanel.add(new JScrollPane(planTextArea), BorderLayout.CENTER);
+
+        Timer planTimer = new Timer(15_000, e -> {
+            if (cookAheadPanel.isShowing()) {
+                showCookAheadPlan(planTextArea);
+            }
+        });
+        planTimer.setInitialDelay(0);
+        planTimer.start();
+        cookAheadPanel.addHierarchyListener(e -> {
+            if (cookAheadPanel.isShowing()) {
+                showCookAheadPlan(planTextArea);
+            }
+        });
+
+        return cookAheadPanel;
+    }
+
+    /**
+     * Shows the cook-ahead plan from now in the given text area.
+     * 
+     * @param planTextArea The text area to show the plan in.
+     */
+    private void showCookAheadPlan(JTextArea planTextArea) {
+        DemandForecast forecast = orderService.getDemandForecast();
+        if (!forecast.isLoaded()) {
+            planTextArea.setText("Loading demand history...");
+            return;
+        }
+        DemandForecast.Plan plan = forecast.getPlan(LocalDateTime.now(), COOK_AHEAD_SLOTS);
+        DateTimeFormatter slotFormat = DateTimeFormatter.ofPattern("HH:mm");
+
+        StringBuilder text = new StringBuilder();
+        text.append("Cook-Ahead Plan (Next Two Hours)\n");
+        text.append("================================\n");
+        text.append(String.format("Today is running at %.0f%% of a usual %s%n%n", plan.getTrend() * 100,
+                LocalDate.now().getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.US)));
+        text.append(String.format("%-30s", "Item"));
+        for (int slot = 0; slot < plan.getSlots(); slot++) {
+            text.append(String.format("%7s", plan.getSlotStart(slot).format(slotFormat)));
+        }
+        text.append(String.format("%8s%n", "Total"));
+
+        try {
+            for (MenuItem item : orderService.getMenuCatalog().getMenuItems()) {
+                double total = plan.getTotal(item.getMenuID());
+                if (total < 0.5) {
+                    continue;
+                }
+                text.append(String.format("%-30s", item.getMenuName()));
+                for (int slot = 0; slot < plan.getSlots(); slot++) {
+                    text.append(String.format("%7.0f", plan.getDemand(item.getMenuID(), slot)));
+                }
+                text.append(String.format("%8.0f%n", total));
+            }
+        } catch (SQLException ex) {
+            text.append("Menu unavailable: " + ex.getMessage() + "\n");
+        }
+        if (!text.toString().equals(planTextArea.getText())) {
+            planTextArea.setText(text.toString());
+        }
+    }
+
+    /**
+     * Creates the kitchen orders panel, which lists the latest orders as they
+     * are submitted from any register, newest first. The footer shows how far
+     * behind the registers each order event subscriber is.
+     * 
+     * @return JPanel representing the kitchen orders panel.
+     */
+    private JPanel createKitchenOrdersPanel() {
+        JPanel kitchenOrdersPanel = new JPanel(new BorderLayout());
+
+        JList<String> ticketList = new JList<>(kitchenTickets);
+        ticketList.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        kitchenOrdersPanel.add(new JScrollPane(ticketList), BorderLayout.CENTER);
+
+        JLabel lagLabel = new JLabel(" ");
+        kitchenOrdersPanel.add(lagLabel, BorderLayout.SOUTH);
+
+        OrderEventBus orderEvents = orderService.getOrderEvents();
+        Timer lagTimer = new Timer(1000, e -> {
+            if (kitchenOrdersPanel.isShowing()) {
+                StringBuilder text = new StringBuilder();
+                text.append(orderEvents.getPublished()).append(" orders, ")
+                        .append(orderEvents.getDropped()).append(" dropped");
+                for (OrderEventBus.SubscriberStats stats : orderEvents.getStats()) {
+                    text.append("  |  ").append(stats);
+                }
+                lagLabel.setText(text.toString());
+            }
+        });
+        lagTimer.setInitialDelay(0);
+        lagTimer.start();
+
+        return kitchenOrdersPanel;
+    }
+
     private JPanel createZReportPanel() {
         JPanel zReportPanel = new JPanel(new BorderLayout());
         
@@ -1105,16 +1530,15 @@ public class POSSystem {
         zReportPanel.add(scrollPane, BorderLayout.CENTER);
         
         // Action listener for report generation
-        generateReportButton.addActionListener(e -> {
-            String zReport = managerFunctions.getZReport();
-            
+        generateReportButton.addActionListener(e -> backgroundTasks.run("Generating Z report", generateReportButton,
+                progress -> managerFunctions.getZReport(), zReport -> {
             // Clear the text area and add the report content
             reportTextArea.setText(""); 
             reportTextArea.append("Z Report (Today's Summary)\n");
             reportTextArea.append("==========================\n\n");
             reportTextArea.append("Date: " + LocalDate.now() + "\n\n");
             reportTextArea.append(zReport);
-        });
+        }));
         
         return zReportPanel;
     }
@@ -1135,12 +1559,14 @@ public class POSSystem {
         JLabel toLabel = new JLabel("To:");
         JTextField toDateField = new JTextField(10);
         JButton generateReportButton = new JButton("Generate Report");
+        JButton exportButton = new JButton("Export Daily Sales...");
     
         datePanel.add(fromLabel);
         datePanel.add(fromDateField);
         datePanel.add(toLabel);
         datePanel.add(toDateField);
         datePanel.add(generateReportButton);
+        datePanel.add(exportButton);
     
         salesReportPanel.add(datePanel, BorderLayout.NORTH);
     
@@ -1158,17 +1584,45 @@ public class POSSystem {
                 Date fromDate = Date.valueOf(fromDateField.getText().trim());
                 Date toDate = Date.valueOf(toDateField.getText().trim());
     
-                List<String> salesReport = managerFunctions.getSalesReportByItem(fromDate, toDate);
-    
-                // Clear the text area and add the report content
-                reportTextArea.setText(""); 
-                for (String line : salesReport) {
-                    reportTextArea.append(line); // Add each line of the report to the text area
-                }
+                backgroundTasks.run("Generating sales report", generateReportButton, progress -> {
+                    StringWriter salesReport = new StringWriter();
+                    managerFunctions.writeSalesReportByItem(fromDate, toDate, new TextReportRenderer(salesReport));
+                    return salesReport.toString();
+                }, reportTextArea::setText);
             } catch (IllegalArgumentException ex) {
                 JOptionPane.showMessageDialog(salesReportPanel, "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
             }
         });
+
+        // Action listener for exporting every day's sales by item to a file
+        exportButton.addActionListener(e -> {
+            Date fromDate;
+            Date toDate;
+            try {
+                fromDate = Date.valueOf(fromDateField.getText().trim());
+                toDate = Date.valueOf(toDateField.getText().trim());
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(salesReportPanel, "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            JFileChooser chooser = new JFileChooser();
+            chooser.setSelectedFile(new File("sales-" + fromDate + "-to-" + toDate + ".csv"));
+            if (chooser.showSaveDialog(salesReportPanel) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            File file = chooser.getSelectedFile();
+            String name = file.getName();
+            String format = name.contains(".") ? name.substring(name.lastIndexOf('.') + 1) : "txt";
+
+            backgroundTasks.run("Exporting daily sales", exportButton, progress -> {
+                try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                    managerFunctions.exportDailyItemSales(fromDate, toDate, ReportRenderer.forFormat(format,
+                            new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))));
+                }
+                return null;
+            }, result -> JOptionPane.showMessageDialog(salesReportPanel, "Exported to " + file));
+        });
     
         return salesReportPanel;
     }
@@ -1202,34 +1656,139 @@ public class POSSystem {
                 Date fromDate = Date.valueOf(fromDateField.getText().trim());
                 Date toDate = Date.valueOf(toDateField.getText().trim());
 
-                List<String> popularityData = managerFunctions.getMenuItemsPopularityAnalysis(fromDate, toDate);
+                backgroundTasks.run("Generating popularity analysis", generateAnalysisButton, progress -> {
+                    StringWriter popularityData = new StringWriter();
+                    managerFunctions.writeMenuItemsPopularityAnalysis(fromDate, toDate, new TextReportRenderer(popularityData));
+                    return popularityData.toString();
+                }, popularityData -> {
+                    // Clear previous analysis
+                    analysisArea.removeAll();
+
+                    // Create text area for displaying the report
+                    JTextArea reportArea = new JTextArea();
+                    reportArea.setEditable(false);
+                    reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+                    // Populate text area with popularity data
+                    reportArea.setText(popularityData);
+
+                    // Add text area to a scroll pane
+                    JScrollPane scrollPane = new JScrollPane(reportArea);
+                    analysisArea.add(scrollPane, BorderLayout.CENTER);
+
+                    // Refresh the panel
+                    analysisArea.revalidate();
+                    analysisArea.repaint();
+                });
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(popularityAnalysisPanel, "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
 
-                // Clear previous analysis
-                analysisArea.removeAll();
+        return popularityAnalysisPanel;
+    }
 
-                // Create text area for displaying the report
-                JTextArea reportArea = new JTextArea();
-                reportArea.setEditable(false);
-                reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+    /**
+     * Creates the market basket panel where the manager can see which menu
+     * items are most often ordered together in a selected date range.
+     * 
+     * @return JPanel representing the market basket panel.
+     */
+    private JPanel createMarketBasketPanel() {
+        JPanel marketBasketPanel = new JPanel(new BorderLayout());
 
-                // Populate text area with popularity data
-                for (String line : popularityData) {
-                    reportArea.append(line + "\n");
-                }
+        // Date range selection panel
+        JPanel datePanel = new JPanel();
+        JLabel fromLabel = new JLabel("From:");
+        JTextField fromDateField = new JTextField(10); // For example, use YYYY-MM-DD format
+        JLabel toLabel = new JLabel("To:");
+        JTextField toDateField = new JTextField(10);
+        JButton generateReportButton = new JButton("Generate Report");
 
-                // Add text area to a scroll pane
-                JScrollPane scrollPane = new JScrollPane(reportArea);
-                analysisArea.add(scrollPane, BorderLayout.CENTER);
+        datePanel.add(fromLabel);
+        datePanel.add(fromDateField);
+        datePanel.add(toLabel);
+        datePanel.add(toDateField);
+        datePanel.add(generateReportButton);
 
-                // Refresh the panel
-                analysisArea.revalidate();
-                analysisArea.repaint();
+        marketBasketPanel.add(datePanel, BorderLayout.NORTH);
+
+        // Text area for displaying the item pairs
+        JTextArea reportArea = new JTextArea();
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        marketBasketPanel.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+
+        // Action listener for report generation
+        generateReportButton.addActionListener(e -> {
+            try {
+                Date fromDate = Date.valueOf(fromDateField.getText().trim());
+                Date toDate = Date.valueOf(toDateField.getText().trim());
+
+                backgroundTasks.run("Generating market basket analysis", generateReportButton,
+                        progress -> managerFunctions.getMarketBasketReport(fromDate, toDate, 20), basketData -> {
+                    reportArea.setText("");
+                    for (String line : basketData) {
+                        reportArea.append(line + "\n");
+                    }
+                });
             } catch (IllegalArgumentException ex) {
-                JOptionPane.showMessageDialog(popularityAnalysisPanel, "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(marketBasketPanel, "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
             }
         });
 
-        return popularityAnalysisPanel;
+        return marketBasketPanel;
+    }
+    
+    /**
+     * Creates the menu engineering panel where the manager can see each menu
+     * item's popularity and margin in a selected date range, and whether it is
+     * a star, plowhorse, puzzle or dog.
+     * 
+     * @return JPanel representing the menu engineering panel.
+     */
+    private JPanel createMenuEngineeringPanel() {
+        JPanel menuEngineeringPanel = new JPanel(new BorderLayout());
+
+        // Date range selection panel
+        JPanel datePanel = new JPanel();
+        JLabel fromLabel = new JLabel("From:");
+        JTextField fromDateField = new JTextField(10); // For example, use YYYY-MM-DD format
+        JLabel toLabel = new JLabel("To:");
+        JTextField toDateField = new JTextField(10);
+        JButton generateReportButton = new JButton("Generate Report");
+
+        datePanel.add(fromLabel);
+        datePanel.add(fromDateField);
+        datePanel.add(toLabel);
+        datePanel.add(toDateField);
+        datePanel.add(generateReportButton);
+
+        menuEngineeringPanel.add(datePanel, BorderLayout.NORTH);
+
+        // Text area for displaying each item's margin and quadrant
+        JTextArea reportArea = new JTextArea();
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        menuEngineeringPanel.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+
+        // Action listener for report generation
+        generateReportButton.addActionListener(e -> {
+            try {
+                Date fromDate = Date.valueOf(fromDateField.getText().trim());
+                Date toDate = Date.valueOf(toDateField.getText().trim());
+
+                backgroundTasks.run("Generating menu engineering report", generateReportButton, progress -> {
+                    StringWriter reportData = new StringWriter();
+                    managerFunctions.writeMenuEngineeringReport(fromDate, toDate, new TextReportRenderer(reportData));
+                    return reportData.toString();
+                }, reportArea::setText);
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(menuEngineeringPanel, "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        return menuEngineeringPanel;
     }
     
     /**
@@ -1260,6 +1819,11 @@ public class POSSystem {
         String[] columnNames = {"Employee ID", "Employee Name", "Total Hours"};
         DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0);
         JTable hoursTable = new JTable(tableModel);
+        // Kept sorted by employee ID as hours arrive
+        TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(tableModel);
+        sorter.setComparator(0, Comparator.comparingInt(id -> Integer.parseInt((String) id)));
+        sorter.setSortKeys(List.of(new RowSorter.SortKey(0, SortOrder.ASCENDING)));
+        hoursTable.setRowSorter(sorter);
         JScrollPane tableScrollPane = new JScrollPane(hoursTable);
     
         employeeHoursPanel.add(tableScrollPane, BorderLayout.CENTER);
@@ -1269,12 +1833,22 @@ public class POSSystem {
                 Date fromDate = Date.valueOf(fromDateField.getText().trim());
                 Date toDate = Date.valueOf(toDateField.getText().trim());
     
-                List<String[]> hoursData = managerFunctions.getEmployeeHoursReport(fromDate, toDate);
-    
                 tableModel.setRowCount(0); // Clear the table
-                for (String[] row : hoursData) {
-                    tableModel.addRow(row);
-                }
+                // Add employees and update their hours as each day is read
+                Map<String, Integer> rowByEmployee = new HashMap<>();
+                backgroundTasks.run("Generating employee hours report", generateReportButton,
+                        progress -> managerFunctions.streamEmployeeHoursReport(fromDate, toDate,
+                                updates -> SwingUtilities.invokeLater(() -> {
+                                    for (String[] hours : updates) {
+                                        Integer row = rowByEmployee.get(hours[0]);
+                                        if (row == null) {
+                                            rowByEmployee.put(hours[0], tableModel.getRowCount());
+                                            tableModel.addRow(hours);
+                                        } else {
+                                            tableModel.setValueAt(hours[2], row, 2);
+                                        }
+                                    }
+                                })), null);
             } catch (IllegalArgumentException ex) {
                 JOptionPane.showMessageDialog(employeeHoursPanel, "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -1313,11 +1887,6 @@ public class POSSystem {
         orderList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
         String[] categories = {"Combo", "Side", "Entree", "Appetizer"};
-        Map<String, List<MenuItem>> categoryItems = new HashMap<>();
-
-        for (String category : categories) {
-            categoryItems.put(category, new ArrayList<>());
-        }
 
         JButton[] categoryButtons = new JButton[categories.length];
 
@@ -1329,45 +1898,26 @@ public class POSSystem {
             categoryButtons[i].setBackground(new Color(0, 0, 128));
             categoryButtons[i].setForeground(Color.WHITE);
             String category = categories[i];
-            categoryButtons[i].addActionListener(e -> {
+            categoryButtons[i].addActionListener(e -> backgroundTasks.run("Loading menu items", null,
+                    // Served from the menu catalog, which only hits the database on its first load
+                    progress -> cashier.getMenuItems(category), itemsInCategory -> {
                 menuPanel.removeAll();
-                try {
-                    List<MenuItem> items = cashier.getMenuItems(); 
-                    
-                    for (String cat : categories) {
-                        categoryItems.get(cat).clear();
-                    }
-
-                    for (MenuItem item : items) {
-                        String itemCategory = item.getItemType(); 
-                        if (categoryItems.containsKey(itemCategory)) {
-                            categoryItems.get(itemCategory).add(item);
-                        }
-                    }
-
-                    List<MenuItem> itemsInCategory = categoryItems.get(category);
-                    if (itemsInCategory != null) {
-                        for (MenuItem item : itemsInCategory) {
-                            JButton itemButton = new JButton(item.getMenuName()); 
-                            itemButton.addActionListener(new ActionListener() {
-                                @Override
-                                public void actionPerformed(ActionEvent e1) {
-                                    orderListModel.addElement(item);
-                                    cashier.addToOrder(item);
-                                    updatePriceFields();
-                                }
-                            });
-                            menuPanel.add(itemButton);
-                            itemButton.setPreferredSize(new Dimension(100, 100));
+                for (MenuItem item : itemsInCategory) {
+                    JButton itemButton = new JButton(item.getMenuName()); 
+                    itemButton.addActionListener(new ActionListener() {
+                        @Override
+                        public void actionPerformed(ActionEvent e1) {
+                            orderListModel.addElement(item);
+                            orderService.addItem(sessionID, item);
+                            updatePriceFields();
                         }
-                    }
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                    JOptionPane.showMessageDialog(frame, "Error loading menu items: " + ex.getMessage());
+                    });
+                    menuPanel.add(itemButton);
+                    itemButton.setPreferredSize(new Dimension(100, 100));
                 }
                 menuPanel.revalidate();
                 menuPanel.repaint();
-            });
+            }));
             categoryPanel.add(categoryButtons[i]);
         }
 
@@ -1419,21 +1969,33 @@ public class POSSystem {
         cashierPOSPanel.add(orderPanel, BorderLayout.EAST);
 
         orderButton.addActionListener(e -> {
-            try {
-                cashier.submitOrder(cashier.getItemsOrdered());
+            // Submit a copy so items tapped while the order is in flight stay in the cart
+            List<MenuItem> submitted = orderService.getItems(sessionID);
+            if (submitted.isEmpty()) {
+                JOptionPane.showMessageDialog(frame, "Please add items to the order first.");
+                return;
+            }
+            backgroundTasks.runUncancellable("Submitting order", orderButton, progress -> {
+                try {
+                    return orderService.submit(sessionID).get();
+                } catch (ExecutionException ex) {
+                    throw ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+                }
+            }, orderID -> {
+                // The service has already taken the submitted items out of the cart
+                for (MenuItem item : submitted) {
+                    orderListModel.removeElement(item);
+                }
                 JOptionPane.showMessageDialog(frame, "Order submitted");
-                orderListModel.clear();
                 updatePriceFields();
-            } catch (SQLException e1) {
-                e1.printStackTrace();
-            }
+            });
         });
 
         removeButton.addActionListener(e -> {
             MenuItem selectedItem = orderList.getSelectedValue();
             if (selectedItem != null) {
                 orderListModel.removeElement(selectedItem);
-                cashier.removeFromOrder(selectedItem);
+                orderService.removeItem(sessionID, selectedItem);
                 updatePriceFields();
             } else {
                 JOptionPane.showMessageDialog(frame, "Please select an item to remove.");
@@ -1446,28 +2008,50 @@ public class POSSystem {
      * Updates the price fields (subtotal, taxes, tip, and total) in the cashier POS panel.
      */
     private void updatePriceFields() {
-        double subtotal = cashier.getSubtotal();
-        double taxes = cashier.getTaxes();
-        double tip = 0;  // Tip can be user-input later
-        double total = cashier.getTotal();
+        long subtotal = cashier.getSubtotalCents();
+        long taxes = cashier.getTaxCents();
+        long tip = 0;  // Tip can be user-input later
+        long total = cashier.getTotalCents();
 
         // Update the labels with the calculated values
-        subtotalField.setText(String.format("%.2f", subtotal));
-        taxesField.setText(String.format("%.2f", taxes));
-        tipField.setText(String.format("%.2f", tip));
-        totalField.setText(String.format("%.2f", total));
+        subtotalField.setText(formatCents(subtotal));
+        taxesField.setText(formatCents(taxes));
+        tipField.setText(formatCents(tip));
+        totalField.setText(formatCents(total));
     }
 
     /**
-     * Establishes a connection to the database for the POS system.
+     * Formats an amount in cents as dollars with two decimal places.
+     * 
+     * @param cents The amount in cents.
+     * @return The formatted amount.
      */
-    private void establishDatabaseConnection() {
-        String teamName = dbSetup.user;
-        String dbName = teamName + "_db";
-        String dbConnectionString = "jdbc:postgresql://csce-315-db.engr.tamu.edu/" + dbName;
+    private static String formatCents(long cents) {
+        return String.format("%d.%02d", cents / 100, Math.abs(cents % 100));
+    }
 
+    /**
+     * Starts the order service the POS system runs on. The pool size can be
+     * tuned with the pos.pool.min and pos.pool.max system properties. If the
+     * pos.http.port system property is set, the service is also served over
+     * HTTP so other registers can share it.
+     */
+    private void establishDatabaseConnection() {
         try {
-            this.conn = DriverManager.getConnection(dbConnectionString, dbSetup.user, dbSetup.pswd);
+            this.orderService = OrderService.connect();
+            OrderHttpServer httpServer = null;
+            Integer httpPort = Integer.getInteger("pos.http.port");
+            if (httpPort != null) {
+                httpServer = new OrderHttpServer(orderService, httpPort);
+                httpServer.start();
+            }
+            OrderHttpServer server = httpServer;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (server != null) {
+                    server.stop();
+                }
+                orderService.close();
+            }));
         } catch (Exception e) {
             e.printStackTrace();
             System.err.println(e.getClass().getName() + ": " + e.getMessage());
@@ -0,0 +1,70 @@
+package models;
+
+/**
+ * Represents the orders and sales of one hour of a day.
+ * 
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class HourlySales {
+    private final int hour;
+    private final long orderCount;
+    private final long salesCents;
+
+    /**
+     * Constructs an HourlySales object with the specified hour, order count and sales.
+     *
+     * @param hour        the hour of the day, from 0 to 23
+     * @param orderCount  the number of orders placed in the hour
+     * @param salesCents  the sales of those orders, in cents
+     */
+    public HourlySales(int hour, long orderCount, long salesCents) {
+        this.hour = hour;
+        this.orderCount = orderCount;
+        this.salesCents = salesCents;
+    }
+
+    /**
+     * Gets the hour of the day.
+     *
+     * @return the hour, from 0 to 23
+     */
+    public int getHour() {
+        return hour;
+    }
+
+    /**
+     * Gets the number of orders placed in the hour.
+     *
+     * @return the order count
+     */
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Gets the sales of the orders placed in the hour.
+     *
+     * @return the sales in cents
+     */
+    public long getSalesCents() {
+        return salesCents;
+    }
+
+    /**
+     * Returns a string representation of the HourlySales object.
+     *
+     * @return a string containing the hour, order count and sales
+     */
+    @Override
+    public String toString() {
+        return "HourlySales{" +
+                "hour=" + hour +
+                ", orderCount=" + orderCount +
+                ", salesCents=" + salesCents +
+                '}';
+    }
+}
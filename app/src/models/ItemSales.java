@@ -0,0 +1,94 @@
+package models;
+
+/**
+ * Represents the sales of one menu item over a report period.
+ * This class holds the menu item's ID and name, how many were sold, and the
+ * sales of the orders they were in.
+ * 
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class ItemSales {
+    private final int menuID;
+    private final String menuName;
+    private final long quantitySold;
+    private final long salesCents;
+
+    /**
+     * Constructs an ItemSales object with the specified menu item, quantity and sales.
+     *
+     * @param menuID        the ID of the menu item
+     * @param menuName      the name of the menu item
+     * @param quantitySold  how many of the menu item were sold
+     * @param salesCents    the sales of the orders the menu item was in, in cents
+     */
+    public ItemSales(int menuID, String menuName, long quantitySold, long salesCents) {
+        this.menuID = menuID;
+        this.menuName = menuName;
+        this.quantitySold = quantitySold;
+        this.salesCents = salesCents;
+    }
+
+    /**
+     * Gets the ID of the menu item.
+     *
+     * @return the menu item ID
+     */
+    public int getMenuID() {
+        return menuID;
+    }
+
+    /**
+     * Gets the name of the menu item.
+     *
+     * @return the menu item name
+     */
+    public String getMenuName() {
+        return menuName;
+    }
+
+    /**
+     * Gets how many of the menu item were sold.
+     *
+     * @return the quantity sold
+     */
+    public long getQuantitySold() {
+        return quantitySold;
+    }
+
+    /**
+     * Gets the sales of the orders the menu item was in.
+     *
+     * @return the sales in cents
+     */
+    public long getSalesCents() {
+        return salesCents;
+    }
+
+    /**
+     * Gets the sales of the orders the menu item was in.
+     *
+     * @return the sales in dollars
+     */
+    public double getSales() {
+        return salesCents / 100.0;
+    }
+
+    /**
+     * Returns a string representation of the ItemSales object.
+     *
+     * @return a string containing the menu item, quantity sold and sales
+     */
+    @Override
+    public String toString() {
+        return "ItemSales{" +
+                "menuID=" + menuID +
+                ", menuName='" + menuName + '\'' +
+                ", quantitySold=" + quantitySold +
+                ", salesCents=" + salesCents +
+                '}';
+    }
+}
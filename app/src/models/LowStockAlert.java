@@ -0,0 +1,94 @@
+package models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents an inventory item whose stock fell to or below its reorder
+ * threshold.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class LowStockAlert {
+    private final int inventoryID;
+    private final String itemName;
+    private final double quantityInStock;
+    private final double reorderThreshold;
+    private final LocalDateTime time;
+
+    /**
+     * Constructs a LowStockAlert with the specified item and stock level.
+     *
+     * @param inventoryID       the ID of the inventory item
+     * @param itemName          the name of the inventory item
+     * @param quantityInStock   the quantity left in stock
+     * @param reorderThreshold  the reorder threshold of the item
+     * @param time              when the stock fell below the threshold
+     */
+    public LowStockAlert(int inventoryID, String itemName, double quantityInStock, double reorderThreshold,
+                         LocalDateTime time) {
+        this.inventoryID = inventoryID;
+        this.itemName = itemName;
+        this.quantityInStock = quantityInStock;
+        this.reorderThreshold = reorderThreshold;
+        this.time = time;
+    }
+
+    /**
+     * Gets the inventory ID.
+     *
+     * @return the inventory ID
+     */
+    public int getInventoryID() {
+        return inventoryID;
+    }
+
+    /**
+     * Gets the name of the inventory item.
+     *
+     * @return the item name
+     */
+    public String getItemName() {
+        return itemName;
+    }
+
+    /**
+     * Gets the quantity left in stock.
+     *
+     * @return the quantity in stock
+     */
+    public double getQuantityInStock() {
+        return quantityInStock;
+    }
+
+    /**
+     * Gets the reorder threshold of the item.
+     *
+     * @return the reorder threshold
+     */
+    public double getReorderThreshold() {
+        return reorderThreshold;
+    }
+
+    /**
+     * Gets when the stock fell below the threshold.
+     *
+     * @return the time of the alert
+     */
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    /**
+     * Returns a string representation of the alert.
+     *
+     * @return a string representation of the alert
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: %.2f in stock, reorder at %.2f", itemName, quantityInStock, reorderThreshold);
+    }
+}
@@ -0,0 +1,130 @@
+package models;
+
+/**
+ * Represents one menu item in a menu engineering report: how well it sold
+ * and how much it earns over its food cost, and the quadrant those two put
+ * it in.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class MenuEngineeringItem {
+    /**
+     * The menu engineering quadrants.
+     */
+    public enum Category {
+        /** Popular and above average margin. */
+        STAR,
+        /** Popular but below average margin. */
+        PLOWHORSE,
+        /** Above average margin but not popular. */
+        PUZZLE,
+        /** Neither popular nor above average margin. */
+        DOG
+    }
+
+    private final int menuID;
+    private final String menuName;
+    private final long quantitySold;
+    private final double menuMix;
+    private final long priceCents;
+    private final long foodCostCents;
+    private final Category category;
+
+    /**
+     * Constructs a MenuEngineeringItem with the specified sales, costs and quadrant.
+     *
+     * @param menuID         the ID of the menu item
+     * @param menuName       the name of the menu item
+     * @param quantitySold   the number of the item sold in the period
+     * @param menuMix        the item's share of all items sold, from 0 to 1
+     * @param priceCents     the average price the item sold for, in cents
+     * @param foodCostCents  the cost of the item's ingredients, in cents
+     * @param category       the item's quadrant
+     */
+    public MenuEngineeringItem(int menuID, String menuName, long quantitySold, double menuMix, long priceCents,
+                               long foodCostCents, Category category) {
+        this.menuID = menuID;
+        this.menuName = menuName;
+        this.quantitySold = quantitySold;
+        this.menuMix = menuMix;
+        this.priceCents = priceCents;
+        this.foodCostCents = foodCostCents;
+        this.category = category;
+    }
+
+    /**
+     * Gets the menu item ID.
+     *
+     * @return the menu item ID
+     */
+    public int getMenuID() {
+        return menuID;
+    }
+
+    /**
+     * Gets the name of the menu item.
+     *
+     * @return the menu item name
+     */
+    public String getMenuName() {
+        return menuName;
+    }
+
+    /**
+     * Gets the number of the item sold in the period.
+     *
+     * @return the quantity sold
+     */
+    public long getQuantitySold() {
+        return quantitySold;
+    }
+
+    /**
+     * Gets the item's share of all items sold.
+     *
+     * @return the menu mix, from 0 to 1
+     */
+    public double getMenuMix() {
+        return menuMix;
+    }
+
+    /**
+     * Gets the average price the item sold for.
+     *
+     * @return the price in cents
+     */
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    /**
+     * Gets the cost of the item's ingredients.
+     *
+     * @return the food cost in cents
+     */
+    public long getFoodCostCents() {
+        return foodCostCents;
+    }
+
+    /**
+     * Gets what one of the item earns over its food cost.
+     *
+     * @return the contribution margin in cents
+     */
+    public long getMarginCents() {
+        return priceCents - foodCostCents;
+    }
+
+    /**
+     * Gets the item's quadrant.
+     *
+     * @return the category
+     */
+    public Category getCategory() {
+        return category;
+    }
+}
@@ -18,6 +18,7 @@ public class MenuItem {
     private String menuName;
     private String itemType;
     private double price;
+    private long priceCents;
 
     /**
      * Constructs a new MenuItem with the specified details.
@@ -32,6 +33,7 @@ public class MenuItem {
         this.menuName = menuName;
         this.itemType = itemType;
         this.price = price;
+        this.priceCents = Math.round(price * 100);
     }
 
     /**
@@ -70,6 +72,15 @@ public class MenuItem {
         return price;
     }
 
+    /**
+     * Gets the price of the menu item in whole cents.
+     * 
+     * @return the price in cents
+     */
+    public long getPriceCents() {
+        return priceCents;
+    }
+
     /**
      * Returns a string representation of the menu item.
      * 
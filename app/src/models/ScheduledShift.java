@@ -0,0 +1,103 @@
+package models;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * The ScheduledShift class represents a shift on the calendar along with the
+ * employees assigned to it, so the shift calendar can be drawn and its shifts
+ * opened without going back to the database.
+ * 
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public class ScheduledShift {
+    private final int shiftID;
+    private final LocalDate shiftDate;
+    private final LocalTime shiftStartTime;
+    private final LocalTime shiftEndTime;
+    private final List<String> employees;
+
+    /**
+     * Constructs a new ScheduledShift with the specified details.
+     * 
+     * @param shiftID the unique ID of the shift
+     * @param shiftDate the date of the shift
+     * @param shiftStartTime the start time of the shift
+     * @param shiftEndTime the end time of the shift
+     * @param employees a description of each employee assigned to the shift
+     */
+    public ScheduledShift(int shiftID, LocalDate shiftDate, LocalTime shiftStartTime, LocalTime shiftEndTime,
+                          List<String> employees) {
+        this.shiftID = shiftID;
+        this.shiftDate = shiftDate;
+        this.shiftStartTime = shiftStartTime;
+        this.shiftEndTime = shiftEndTime;
+        this.employees = employees;
+    }
+
+    /**
+     * Gets the shift ID.
+     * 
+     * @return the shift ID
+     */
+    public int getShiftID() {
+        return shiftID;
+    }
+
+    /**
+     * Gets the date of the shift.
+     * 
+     * @return the shift date
+     */
+    public LocalDate getShiftDate() {
+        return shiftDate;
+    }
+
+    /**
+     * Gets the start time of the shift.
+     * 
+     * @return the start time of the shift
+     */
+    public LocalTime getShiftStartTime() {
+        return shiftStartTime;
+    }
+
+    /**
+     * Gets the end time of the shift.
+     * 
+     * @return the end time of the shift
+     */
+    public LocalTime getShiftEndTime() {
+        return shiftEndTime;
+    }
+
+    /**
+     * Gets the employees assigned to the shift.
+     * 
+     * @return a description of each assigned employee
+     */
+    public List<String> getEmployees() {
+        return employees;
+    }
+
+    /**
+     * Returns a string representation of the shift.
+     * 
+     * @return a string representation of the shift
+     */
+    @Override
+    public String toString() {
+        return "ScheduledShift{" +
+                "shiftID=" + shiftID +
+                ", shiftDate=" + shiftDate +
+                ", shiftStartTime=" + shiftStartTime +
+                ", shiftEndTime=" + shiftEndTime +
+                ", employees=" + employees +
+                '}';
+    }
+}
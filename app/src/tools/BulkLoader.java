@@ -0,0 +1,309 @@
+package tools;
+
+import backend.Cart;
+import backend.dbSetup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Rebuilds a store's order and shift history with COPY instead of replaying
+ * the generated INSERT scripts. Orders are generated to match the order
+ * lines in ordermenuitem.csv, which are then streamed into OrderMenuItem
+ * along with the date of their order; shifts and their staffing are generated like PopulateShifts.py and
+ * CreateShifts.py. Everything is loaded in one transaction with foreign
+ * keys and secondary indexes dropped until the load is done.
+ *
+ * The MenuItem table must already be populated, since order prices are
+ * computed from it.
+ *
+ * Options, given as --name=value:
+ * <pre>
+ * --url        JDBC URL of the database to rebuild (required)
+ * --user       Database user (default dbSetup.user)
+ * --password   Database password (default dbSetup.pswd)
+ * --lines      Order lines to load (default ../Database/SeedData/Scripts/ordermenuitem.csv)
+ * --backfill   SQL that rebuilds HourlySales (default ../Database/Setup/BackfillHourlySales.sql)
+ * --employees  CSV of employeeName,jobTitle,startDate,hourlyWage with a header, loaded if not empty
+ * --start      First day of history (default 2023-09-01)
+ * --end        Last day of shifts (default 2024-09-01)
+ * --seed       Random seed for generated values (default 331)
+ * </pre>
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class BulkLoader {
+    private static final int ORDERS_PER_WEEK = 2500;
+    private static final String[] PAYMENT_METHODS = {"Credit Card", "Debit Card", "Cash", "Mobile Payment", "Gift Card"};
+    private static final String[][] SHIFT_TIMES = {
+        {"10:00:00", "14:00:00"},
+        {"14:00:00", "18:00:00"},
+        {"18:00:00", "21:00:00"},
+    };
+    /**
+     * Employee IDs that can work each role on a shift: manager, shift lead,
+     * cook, driver and cashier.
+     */
+    private static final int[][] SHIFT_ROLES = {{1, 8}, {3, 9}, {4, 7}, {5, 10}, {2, 6}};
+    private static final int EMPLOYEES = 10;
+
+    private BulkLoader() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Runs the bulk loader.
+     *
+     * @param args Command-line options.
+     * @throws Exception If the load fails, in which case nothing is changed
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String url = options.get("url");
+        if (url == null) {
+            System.err.println("Usage: java tools.BulkLoader --url=jdbc:postgresql://host/db [--user=... --password=...]");
+            System.err.println("The loader replaces every order and shift in the database, so the URL must be given explicitly.");
+            System.exit(1);
+        }
+        Path lines = Paths.get(options.getOrDefault("lines", "../Database/SeedData/Scripts/ordermenuitem.csv"));
+        Path backfill = Paths.get(options.getOrDefault("backfill", "../Database/Setup/BackfillHourlySales.sql"));
+        if (!Files.isReadable(backfill)) {
+            System.err.println("Cannot read the HourlySales backfill script " + backfill.toAbsolutePath()
+                    + ". Run from /app/ or pass --backfill=path/to/BackfillHourlySales.sql.");
+            System.exit(1);
+        }
+        String backfillSql = new String(Files.readAllBytes(backfill), StandardCharsets.UTF_8);
+        Path employees = options.containsKey("employees") ? Paths.get(options.get("employees")) : null;
+        LocalDate start = LocalDate.parse(options.getOrDefault("start", "2023-09-01"));
+        LocalDate end = LocalDate.parse(options.getOrDefault("end", "2024-09-01"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "331"));
+        boolean loadEmployees = employees != null && Files.size(employees) > 0;
+        if (employees != null && !loadEmployees) {
+            System.out.println("Skipping " + employees + " since it is empty, existing employees are kept");
+        }
+
+        long begin = System.nanoTime();
+        try (Connection conn = DriverManager.getConnection(url,
+                options.getOrDefault("user", dbSetup.user),
+                options.getOrDefault("password", dbSetup.pswd))) {
+            conn.setAutoCommit(false);
+            try {
+                double[] prices = loadPrices(conn);
+                String[] tables = loadEmployees
+                        ? new String[] {"orders", "ordermenuitem", "shifts", "employeeshifts", "hourlysales", "employees"}
+                        : new String[] {"orders", "ordermenuitem", "shifts", "employeeshifts", "hourlysales"};
+                DeferredConstraints deferred = DeferredConstraints.drop(conn, tables);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("TRUNCATE " + String.join(", ", tables) + " RESTART IDENTITY");
+                }
+
+                if (loadEmployees) {
+                    CopyLoader.copyCsv(conn, "Employees", "employeeName, jobTitle, startDate, hourlyWage", employees);
+                }
+                long shifts = CopyLoader.copy(conn, "Shifts", "shiftID, shiftStartTime, shiftEndTime, shiftDate",
+                        shiftRows(start, end));
+                CopyLoader.copy(conn, "EmployeeShifts", "employeeID, shiftID", employeeShiftRows(shifts, new Random(seed)));
+                long orders;
+                try (BufferedReader reader = Files.newBufferedReader(lines, StandardCharsets.UTF_8)) {
+                    orders = CopyLoader.copy(conn, "Orders", "orderID, orderTime, orderDate, employeeID, orderPrice, paymentMethod",
+                            orderRows(reader, prices, start, new Random(seed + 1)));
+                }
+                try (BufferedReader reader = Files.newBufferedReader(lines, StandardCharsets.UTF_8)) {
+                    CopyLoader.copy(conn, "OrderMenuItem", "orderID, menuItemID, orderDate", lineRows(reader, start));
+                }
+
+                deferred.restore(conn);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(backfillSql);
+                    stmt.execute("SELECT setval(pg_get_serial_sequence('orders', 'orderid'), " + Math.max(1, orders) + ")");
+                    stmt.execute("SELECT setval(pg_get_serial_sequence('shifts', 'shiftid'), " + Math.max(1, shifts) + ")");
+                    stmt.execute("ANALYZE " + String.join(", ", tables));
+                }
+                conn.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        System.out.printf("Rebuilt history in %.2f s%n", (System.nanoTime() - begin) / 1e9);
+    }
+
+    /**
+     * Reads menu prices from the MenuItem table.
+     *
+     * @param conn The connection to read over
+     * @return Prices indexed by menu ID
+     * @throws SQLException If the menu cannot be read
+     */
+    private static double[] loadPrices(Connection conn) throws SQLException {
+        Map<Integer, Double> prices = new HashMap<>();
+        int maxID = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT menuID, price FROM MenuItem");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                int menuID = rs.getInt("menuID");
+                prices.put(menuID, rs.getDouble("price"));
+                maxID = Math.max(maxID, menuID);
+            }
+        }
+        if (prices.isEmpty()) {
+            throw new SQLException("MenuItem is empty, load populateMenuItems.sql first");
+        }
+        double[] byID = new double[maxID + 1];
+        for (Map.Entry<Integer, Double> entry : prices.entrySet()) {
+            byID[entry.getKey()] = entry.getValue();
+        }
+        return byID;
+    }
+
+    /**
+     * Generates three shifts for every weekday in the range, numbered from 1.
+     */
+    private static CopyLoader.RowSource shiftRows(LocalDate start, LocalDate end) {
+        return new CopyLoader.RowSource() {
+            private LocalDate date = start;
+            private int shift;
+            private long shiftID;
+
+            @Override
+            public boolean next(StringBuilder row) {
+                while (!date.isAfter(end)) {
+                    if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY
+                            || shift == SHIFT_TIMES.length) {
+                        date = date.plusDays(1);
+                        shift = 0;
+                        continue;
+                    }
+                    String[] times = SHIFT_TIMES[shift++];
+                    row.append(++shiftID).append(',').append(times[0]).append(',').append(times[1]).append(',').append(date);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Staffs every shift with one employee for each role.
+     */
+    private static CopyLoader.RowSource employeeShiftRows(long shifts, Random random) {
+        return new CopyLoader.RowSource() {
+            private long shiftID = 1;
+            private int role;
+
+            @Override
+            public boolean next(StringBuilder row) {
+                if (role == SHIFT_ROLES.length) {
+                    role = 0;
+                    shiftID++;
+                }
+                if (shiftID > shifts) {
+                    return false;
+                }
+                int[] candidates = SHIFT_ROLES[role++];
+                row.append(candidates[random.nextInt(candidates.length)]).append(',').append(shiftID);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Generates one order for each order ID in the order lines, priced from
+     * its lines plus tax, at a random time between 8:00 and 20:59. Tax is
+     * added the way submitOrder and HistoryGenerator add it, so loaded
+     * history totals match live sales; PopulateOrders.py left it out.
+     */
+    private static CopyLoader.RowSource orderRows(BufferedReader lines, double[] prices, LocalDate start, Random random)
+            throws IOException {
+        lines.readLine(); // Skip header
+        return new CopyLoader.RowSource() {
+            private String pending = lines.readLine();
+
+            @Override
+            public boolean next(StringBuilder row) throws IOException {
+                if (pending == null) {
+                    return false;
+                }
+                String orderID = pending.substring(0, pending.indexOf(','));
+                long subtotalCents = 0;
+                while (pending != null && pending.startsWith(orderID) && pending.charAt(orderID.length()) == ',') {
+                    int menuID = Integer.parseInt(pending.substring(orderID.length() + 1).trim());
+                    if (menuID >= prices.length || prices[menuID] == 0) {
+                        throw new IOException("Order " + orderID + " has unknown menu item " + menuID);
+                    }
+                    subtotalCents += Math.round(prices[menuID] * 100);
+                    pending = lines.readLine();
+                }
+                long cents = subtotalCents + Cart.taxCents(subtotalCents);
+
+                row.append(orderID).append(',')
+                   .append(String.format("%02d:%02d:00", 8 + random.nextInt(13), random.nextInt(60))).append(',')
+                   .append(orderDate(start, Long.parseLong(orderID))).append(',')
+                   .append(1 + random.nextInt(EMPLOYEES)).append(',')
+                   .append(cents / 100).append('.').append(cents % 100 < 10 ? "0" : "").append(cents % 100).append(',')
+                   .append(PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)]);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Passes the order lines through with the date of their order added.
+     */
+    private static CopyLoader.RowSource lineRows(BufferedReader lines, LocalDate start) throws IOException {
+        lines.readLine(); // Skip header
+        return row -> {
+            String line = lines.readLine();
+            if (line == null) {
+                return false;
+            }
+            long orderID = Long.parseLong(line.substring(0, line.indexOf(',')));
+            row.append(line.trim()).append(',').append(orderDate(start, orderID));
+            return true;
+        };
+    }
+
+    /**
+     * Returns the date of a generated order. Like PopulateOrders.py,
+     * {@value #ORDERS_PER_WEEK} orders are placed each week, spread over its days.
+     *
+     * @param start The first day of history
+     * @param orderID The ID of the order, counted from 1
+     * @return The date of the order
+     */
+    private static LocalDate orderDate(LocalDate start, long orderID) {
+        long index = orderID - 1;
+        return start.plusWeeks(index / ORDERS_PER_WEEK).plusDays(index % ORDERS_PER_WEEK * 7 / ORDERS_PER_WEEK);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,190 @@
+package tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Streams rows into a table with the Postgres COPY protocol. Rows are
+ * produced one at a time as the driver reads them, so memory use stays
+ * bounded no matter how many rows are loaded. Progress and the load rate
+ * are printed while the copy runs.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class CopyLoader {
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+
+    /**
+     * Produces the rows of a COPY in CSV format.
+     */
+    @FunctionalInterface
+    public interface RowSource {
+        /**
+         * Appends the next row, without a line terminator.
+         *
+         * @param row The buffer to append the row to, empty on entry
+         * @return Whether a row was appended, false once the rows run out
+         * @throws IOException If the row cannot be produced
+         */
+        boolean next(StringBuilder row) throws IOException;
+    }
+
+    private CopyLoader() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Copies generated rows into a table.
+     *
+     * @param conn The connection to copy over
+     * @param table The table to load
+     * @param columns The columns the rows hold, comma separated
+     * @param source The rows to load
+     * @return The number of rows loaded
+     * @throws SQLException If the copy fails
+     * @throws IOException If a row cannot be produced
+     */
+    public static long copy(Connection conn, String table, String columns, RowSource source)
+            throws SQLException, IOException {
+        return copy(conn, table, columns, false, new RowReader(table, source));
+    }
+
+    /**
+     * Copies generated rows into a table without printing progress, for
+     * loaders that copy in many small chunks and report progress themselves.
+     *
+     * @param conn The connection to copy over
+     * @param table The table to load
+     * @param columns The columns the rows hold, comma separated
+     * @param source The rows to load
+     * @return The number of rows loaded
+     * @throws SQLException If the copy fails
+     * @throws IOException If a row cannot be produced
+     */
+    public static long copyQuietly(Connection conn, String table, String columns, RowSource source)
+            throws SQLException, IOException {
+        CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+        RowReader rows = new RowReader(null, source);
+        return copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)", rows);
+    }
+
+    /**
+     * Copies a CSV file with a header line into a table, without parsing it.
+     *
+     * @param conn The connection to copy over
+     * @param table The table to load
+     * @param columns The columns of the file, comma separated
+     * @param csv The CSV file
+     * @return The number of rows loaded
+     * @throws SQLException If the copy fails
+     * @throws IOException If the file cannot be read
+     */
+    public static long copyCsv(Connection conn, String table, String columns, Path csv)
+            throws SQLException, IOException {
+        try (BufferedReader file = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            return copy(conn, table, columns, true, new RowReader(table, row -> {
+                String line = file.readLine();
+                if (line == null) {
+                    return false;
+                }
+                row.append(line);
+                return true;
+            }));
+        }
+    }
+
+    private static long copy(Connection conn, String table, String columns, boolean header, RowReader rows)
+            throws SQLException, IOException {
+        CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+        String sql = "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv" + (header ? ", HEADER true" : "") + ")";
+        long loaded = copyManager.copyIn(sql, rows);
+        rows.finish(loaded);
+        return loaded;
+    }
+
+    /**
+     * Adapts a row source to the Reader the driver streams from, printing
+     * progress as rows are handed over.
+     */
+    private static final class RowReader extends Reader {
+        private final String table;
+        private final RowSource source;
+        private final StringBuilder buffer = new StringBuilder(256);
+        private final long start = System.nanoTime();
+        private int position;
+        private boolean exhausted;
+        private long rows;
+        private long lastReport = start;
+
+        private RowReader(String table, RowSource source) {
+            this.table = table;
+            this.source = source;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int copied = 0;
+            while (copied < length) {
+                if (position == buffer.length()) {
+                    if (exhausted || !fill()) {
+                        break;
+                    }
+                }
+                int n = Math.min(length - copied, buffer.length() - position);
+                buffer.getChars(position, position + n, chars, offset + copied);
+                position += n;
+                copied += n;
+            }
+            return copied == 0 ? -1 : copied;
+        }
+
+        /**
+         * Loads the next row into the buffer.
+         *
+         * @return Whether there was another row
+         */
+        private boolean fill() throws IOException {
+            buffer.setLength(0);
+            position = 0;
+            if (!source.next(buffer)) {
+                exhausted = true;
+                return false;
+            }
+            buffer.append('\n');
+            rows++;
+
+            long now = System.nanoTime();
+            if (table != null && now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                lastReport = now;
+                System.out.printf("  %-16s %,12d rows  %,10.0f rows/s%n", table, rows, rows * 1e9 / (now - start));
+            }
+            return true;
+        }
+
+        private void finish(long loaded) {
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Loaded %-16s %,12d rows in %6.2f s  %,10.0f rows/s%n",
+                    table, loaded, elapsed / 1e9, loaded * 1e9 / Math.max(1, elapsed));
+        }
+
+        @Override
+        public void close() {
+            // The underlying source is owned by the caller
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package tools;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drops the foreign keys and secondary indexes touching a set of tables
+ * before a bulk load and recreates them afterwards, so rows are loaded
+ * without being checked or indexed one at a time. Primary keys are kept.
+ * Constraints and indexes of partitioned tables are handled on the parent,
+ * which covers every partition.
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+final class DeferredConstraints {
+    private static final String FOREIGN_KEYS_QUERY =
+            "SELECT conrelid::regclass::text AS tableName, conname, pg_get_constraintdef(oid) AS definition " +
+            "FROM pg_constraint " +
+            "WHERE contype = 'f' AND conparentid = 0 " +
+            "AND (conrelid = ANY(?::regclass[]) OR confrelid = ANY(?::regclass[]))";
+    private static final String INDEXES_QUERY =
+            "SELECT indexrelid::regclass::text AS indexName, pg_get_indexdef(indexrelid) AS definition " +
+            "FROM pg_index " +
+            "WHERE indrelid = ANY(?::regclass[]) " +
+            "AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = pg_index.indexrelid)";
+
+    private final List<String> restoreStatements = new ArrayList<>();
+
+    private DeferredConstraints() {
+        // Created by drop
+    }
+
+    /**
+     * Drops the foreign keys referencing or referenced by the tables and the
+     * indexes on them that do not back a constraint.
+     *
+     * @param conn The connection to run the changes on
+     * @param tables The tables about to be loaded
+     * @return A handle that recreates everything dropped
+     * @throws SQLException If the catalog cannot be read or a drop fails
+     */
+    static DeferredConstraints drop(Connection conn, String... tables) throws SQLException {
+        DeferredConstraints deferred = new DeferredConstraints();
+        List<String> dropStatements = new ArrayList<>();
+
+        try (PreparedStatement pstmt = conn.prepareStatement(FOREIGN_KEYS_QUERY)) {
+            pstmt.setArray(1, conn.createArrayOf("text", tables));
+            pstmt.setArray(2, conn.createArrayOf("text", tables));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString("tableName");
+                    String name = rs.getString("conname");
+                    dropStatements.add("ALTER TABLE " + table + " DROP CONSTRAINT " + quote(name));
+                    deferred.restoreStatements.add("ALTER TABLE " + table + " ADD CONSTRAINT " + quote(name)
+                            + " " + rs.getString("definition"));
+                }
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(INDEXES_QUERY)) {
+            pstmt.setArray(1, conn.createArrayOf("text", tables));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    dropStatements.add("DROP INDEX " + rs.getString("indexName"));
+                    // Indexes go first so the foreign key checks can use them
+                    // Indexes on a partitioned table are recreated on every partition, not just the parent
+                    deferred.restoreStatements.add(0, rs.getString("definition").replace(" ON ONLY ", " ON "));
+                }
+            }
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : dropStatements) {
+                stmt.execute(sql);
+            }
+        }
+        System.out.println("Deferred " + dropStatements.size() + " constraints and indexes");
+        return deferred;
+    }
+
+    /**
+     * Recreates the dropped indexes and foreign keys, validating the loaded rows.
+     *
+     * @param conn The connection to run the changes on
+     * @throws SQLException If the loaded rows violate a constraint
+     */
+    void restore(Connection conn) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : restoreStatements) {
+                stmt.execute(sql);
+            }
+        }
+        System.out.printf("Restored %d constraints and indexes in %.2f s%n",
+                restoreStatements.size(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,431 @@
+package tools;
+
+import backend.Cart;
+import backend.ConnectionPool;
+import backend.dbSetup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates years of synthetic order history at any scale and streams it
+ * into Orders and OrderMenuItem with COPY, one week per task across all
+ * cores. The menu, recipes and staff are read from the live MenuItem,
+ * MenuItemInventory and Employees tables, so the history matches the store
+ * it is loaded into.
+ *
+ * Orders follow day-of-week and hour-of-day curves with lunch and dinner
+ * rushes. Every day is generated from its own seed derived from the base
+ * seed, so the same options always produce the same history no matter how
+ * many threads are used.
+ *
+ * Options, given as --name=value:
+ * <pre>
+ * --url           JDBC URL of the database to load (required)
+ * --user          Database user (default dbSetup.user)
+ * --password      Database password (default dbSetup.pswd)
+ * --start         First day of history (default 2023-09-01)
+ * --years         Years of history to generate (default 1)
+ * --stores        Number of stores whose orders are generated (default 1)
+ * --ordersPerDay  Average orders a day for each store (default 360)
+ * --threads       Worker threads (default the number of cores)
+ * --seed          Base random seed (default 331)
+ * --append        true to keep the existing orders and add after them (default false)
+ * </pre>
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class HistoryGenerator {
+    /**
+     * Relative order volume from Monday to Sunday.
+     */
+    private static final double[] DAY_OF_WEEK_WEIGHTS = {0.85, 0.85, 0.9, 0.95, 1.2, 1.3, 1.05};
+    /**
+     * Relative order volume by hour of the day; the store is open 10:00 to 21:59.
+     */
+    private static final double[] HOUR_WEIGHTS = {
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0.6, 1.4, 2.0, 1.6, 0.8, 0.5, 0.7, 1.5, 1.8, 1.3, 0.8, 0.4, 0, 0,
+    };
+    /**
+     * Relative chance of an order having 1 to 5 items.
+     */
+    private static final double[] ITEM_COUNT_WEIGHTS = {0.25, 0.3, 0.25, 0.13, 0.07};
+    private static final String[] PAYMENT_METHODS = {"Credit Card", "Debit Card", "Cash", "Mobile Payment", "Gift Card"};
+    private static final String ORDER_COLUMNS = "orderID, orderTime, orderDate, employeeID, orderPrice, paymentMethod";
+
+    private final ConnectionPool pool;
+    private final LocalDate start;
+    private final int days;
+    private final double ordersPerDay;
+    private final long seed;
+    private final int[] menuIDs;
+    private final long[] menuPriceCents;
+    private final double[] menuCumulativeWeights;
+    private final int[] employeeIDs;
+    private final double[] hourCumulativeWeights = cumulative(HOUR_WEIGHTS);
+    private final double[] itemCountCumulativeWeights = cumulative(ITEM_COUNT_WEIGHTS);
+    private final AtomicLong ordersLoaded = new AtomicLong();
+    private final AtomicLong linesLoaded = new AtomicLong();
+
+    private HistoryGenerator(ConnectionPool pool, LocalDate start, int days, double ordersPerDay, long seed)
+            throws SQLException {
+        this.pool = pool;
+        this.start = start;
+        this.days = days;
+        this.ordersPerDay = ordersPerDay;
+        this.seed = seed;
+
+        // Only items with a recipe are sold; entrees and sides sell more often than extras
+        List<Integer> ids = new ArrayList<>();
+        List<Long> prices = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        String menuQuery = "SELECT menuID, price, itemType FROM MenuItem m " +
+                           "WHERE EXISTS (SELECT 1 FROM MenuItemInventory mi WHERE mi.menuID = m.menuID) ORDER BY menuID";
+        List<Integer> employees = new ArrayList<>();
+        try (Connection conn = pool.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(menuQuery);
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt("menuID"));
+                    prices.add(Math.round(rs.getDouble("price") * 100));
+                    weights.add(typeWeight(rs.getString("itemType")));
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT employeeID FROM Employees ORDER BY employeeID");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    employees.add(rs.getInt("employeeID"));
+                }
+            }
+        }
+        if (ids.isEmpty() || employees.isEmpty()) {
+            throw new SQLException("MenuItem, MenuItemInventory and Employees must be populated first");
+        }
+
+        menuIDs = new int[ids.size()];
+        menuPriceCents = new long[ids.size()];
+        double[] menuWeights = new double[ids.size()];
+        for (int i = 0; i < menuIDs.length; i++) {
+            menuIDs[i] = ids.get(i);
+            menuPriceCents[i] = prices.get(i);
+            menuWeights[i] = weights.get(i);
+        }
+        menuCumulativeWeights = cumulative(menuWeights);
+        employeeIDs = employees.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Runs the history generator.
+     *
+     * @param args Command-line options.
+     * @throws Exception If the load fails
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String url = options.get("url");
+        if (url == null) {
+            System.err.println("Usage: java tools.HistoryGenerator --url=jdbc:postgresql://host/db [--years=1 --stores=1 ...]");
+            System.err.println("Unless --append=true is given every order in the database is replaced, so the URL must be given explicitly.");
+            System.exit(1);
+        }
+        LocalDate start = LocalDate.parse(options.getOrDefault("start", "2023-09-01"));
+        int years = Integer.parseInt(options.getOrDefault("years", "1"));
+        int stores = Integer.parseInt(options.getOrDefault("stores", "1"));
+        double ordersPerDay = Double.parseDouble(options.getOrDefault("ordersPerDay", "360")) * stores;
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long seed = Long.parseLong(options.getOrDefault("seed", "331"));
+        boolean append = Boolean.parseBoolean(options.getOrDefault("append", "false"));
+        int days = (int) ChronoUnit.DAYS.between(start, start.plusYears(years));
+
+        try (ConnectionPool pool = new ConnectionPool(url, options.getOrDefault("user", dbSetup.user),
+                options.getOrDefault("password", dbSetup.pswd), 1, threads + 1, 60_000, 60_000)) {
+            HistoryGenerator generator = new HistoryGenerator(pool, start, days, ordersPerDay, seed);
+            generator.run(threads, append);
+        }
+    }
+
+    /**
+     * Generates and loads the history. Constraints and indexes on the order
+     * tables are dropped for the load and recreated at the end.
+     *
+     * @param threads The number of weeks loaded at once
+     * @param append Whether to keep the existing orders
+     * @throws Exception If the load fails
+     */
+    private void run(int threads, boolean append) throws Exception {
+        long begin = System.nanoTime();
+        long[] firstOrderID = new long[days + 1];
+        DeferredConstraints deferred;
+
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            deferred = DeferredConstraints.drop(conn, "orders", "ordermenuitem", "hourlysales");
+            long lastOrderID = 0;
+            try (Statement stmt = conn.createStatement()) {
+                if (append) {
+                    try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(orderID), 0) FROM Orders")) {
+                        rs.next();
+                        lastOrderID = rs.getLong(1);
+                    }
+                } else {
+                    stmt.execute("TRUNCATE Orders, OrderMenuItem, HourlySales RESTART IDENTITY");
+                }
+            }
+            conn.commit();
+
+            // Order IDs are assigned by day up front so weeks can load in any order
+            firstOrderID[0] = lastOrderID + 1;
+            for (int day = 0; day < days; day++) {
+                firstOrderID[day + 1] = firstOrderID[day] + ordersOn(day);
+            }
+        }
+        System.out.printf("Generating %,d orders over %d days from %s on %d threads%n",
+                firstOrderID[days] - firstOrderID[0], days, start, threads);
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "history-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progress.scheduleAtFixedRate(() -> printProgress(begin), 2, 2, TimeUnit.SECONDS);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> weeks = new ArrayList<>();
+            for (int week = 0; week * 7 < days; week++) {
+                int firstDay = week * 7;
+                int lastDay = Math.min(days, firstDay + 7);
+                weeks.add(workers.submit(() -> {
+                    loadDays(firstDay, lastDay, firstOrderID);
+                    return null;
+                }));
+            }
+            for (Future<?> week : weeks) {
+                week.get();
+            }
+        } catch (Exception e) {
+            // Weeks already committed stay loaded; put the constraints back so the store stays usable
+            System.err.println("History load failed, restoring constraints: " + e.getMessage());
+            try (Connection conn = pool.getConnection()) {
+                deferred.restore(conn);
+            } catch (SQLException restoreError) {
+                System.err.println("Error restoring constraints: " + restoreError.getMessage());
+            }
+            throw e;
+        } finally {
+            workers.shutdownNow();
+            progress.shutdownNow();
+            printProgress(begin);
+        }
+
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            deferred.restore(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT INTO HourlySales (salesDate, salesHour, orderCount, totalSales) " +
+                             "SELECT orderDate, EXTRACT(HOUR FROM orderTime)::int, COUNT(orderID), COALESCE(SUM(orderPrice), 0) " +
+                             "FROM Orders GROUP BY orderDate, EXTRACT(HOUR FROM orderTime) " +
+                             "ON CONFLICT (salesDate, salesHour) DO UPDATE " +
+                             "SET orderCount = EXCLUDED.orderCount, totalSales = EXCLUDED.totalSales");
+                stmt.execute("SELECT setval(pg_get_serial_sequence('orders', 'orderid'), " + Math.max(1, firstOrderID[days] - 1) + ")");
+                stmt.execute("ANALYZE Orders, OrderMenuItem, HourlySales");
+            }
+            conn.commit();
+        }
+        System.out.printf("Generated history in %.2f s%n", (System.nanoTime() - begin) / 1e9);
+    }
+
+    /**
+     * Generates the orders of a range of days and copies them in, committing
+     * once the range is loaded.
+     *
+     * @param firstDay The first day, counted from the start date
+     * @param lastDay The day after the last day
+     * @param firstOrderID The first order ID of each day
+     * @throws SQLException If the copy fails
+     * @throws IOException If a row cannot be produced
+     */
+    private void loadDays(int firstDay, int lastDay, long[] firstOrderID) throws SQLException, IOException {
+        // Lines are kept for the range only, since they are copied after the orders they belong to
+        long totalOrders = firstOrderID[lastDay] - firstOrderID[firstDay];
+        long[] lineOrderIDs = new long[(int) Math.min(Integer.MAX_VALUE - 8, totalOrders * ITEM_COUNT_WEIGHTS.length)];
+        int[] lineMenuIDs = new int[lineOrderIDs.length];
+        int[] lineDays = new int[lineOrderIDs.length];
+        int[] lineCount = new int[1];
+
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            long orders = CopyLoader.copyQuietly(conn, "Orders", ORDER_COLUMNS, new CopyLoader.RowSource() {
+                private int day = firstDay;
+                private long orderID = firstOrderID[firstDay];
+                private SplittableRandom random = dayRandom(firstDay);
+
+                @Override
+                public boolean next(StringBuilder row) {
+                    while (orderID == firstOrderID[day + 1]) {
+                        if (++day == lastDay) {
+                            return false;
+                        }
+                        random = dayRandom(day);
+                    }
+                    int firstLine = lineCount[0];
+                    generateOrder(row, start.plusDays(day), orderID++, random, lineOrderIDs, lineMenuIDs, lineCount);
+                    Arrays.fill(lineDays, firstLine, lineCount[0], day);
+                    return true;
+                }
+            });
+            long lines = CopyLoader.copyQuietly(conn, "OrderMenuItem", "orderID, menuItemID, orderDate", new CopyLoader.RowSource() {
+                private int line;
+
+                @Override
+                public boolean next(StringBuilder row) {
+                    if (line == lineCount[0]) {
+                        return false;
+                    }
+                    row.append(lineOrderIDs[line]).append(',').append(lineMenuIDs[line]).append(',')
+                       .append(start.plusDays(lineDays[line]));
+                    line++;
+                    return true;
+                }
+            });
+            conn.commit();
+            ordersLoaded.addAndGet(orders);
+            linesLoaded.addAndGet(lines);
+        }
+    }
+
+    /**
+     * Appends one order row and records its lines.
+     */
+    private void generateOrder(StringBuilder row, LocalDate date, long orderID, SplittableRandom random,
+                               long[] lineOrderIDs, int[] lineMenuIDs, int[] lineCount) {
+        int items = pick(itemCountCumulativeWeights, random) + 1;
+        long subtotalCents = 0;
+        for (int i = 0; i < items; i++) {
+            int menu = pick(menuCumulativeWeights, random);
+            subtotalCents += menuPriceCents[menu];
+            lineOrderIDs[lineCount[0]] = orderID;
+            lineMenuIDs[lineCount[0]] = menuIDs[menu];
+            lineCount[0]++;
+        }
+        long cents = subtotalCents + Cart.taxCents(subtotalCents);
+        int hour = pick(hourCumulativeWeights, random);
+        int minute = random.nextInt(60);
+        int second = random.nextInt(60);
+
+        row.append(orderID).append(',');
+        appendTwoDigits(row, hour).append(':');
+        appendTwoDigits(row, minute).append(':');
+        appendTwoDigits(row, second).append(',');
+        row.append(date).append(',')
+           .append(employeeIDs[random.nextInt(employeeIDs.length)]).append(',')
+           .append(cents / 100).append('.');
+        appendTwoDigits(row, (int) (cents % 100)).append(',')
+           .append(PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)]);
+    }
+
+    /**
+     * Returns how many orders are placed on a day: the average scaled by the
+     * day of the week, give or take 10%.
+     *
+     * @param day The day, counted from the start date
+     * @return The number of orders
+     */
+    private int ordersOn(int day) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + day);
+        double weight = DAY_OF_WEEK_WEIGHTS[start.plusDays(day).getDayOfWeek().getValue() - 1];
+        return (int) Math.round(ordersPerDay * weight * (0.9 + 0.2 * random.nextDouble()));
+    }
+
+    /**
+     * Returns the random numbers the orders of a day are generated from.
+     */
+    private SplittableRandom dayRandom(int day) {
+        return new SplittableRandom((seed ^ 0x5DEECE66DL) * 0x9E3779B97F4A7C15L + day);
+    }
+
+    private void printProgress(long begin) {
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long lines = linesLoaded.get();
+        System.out.printf("  %,14d orders %,14d lines  %,12.0f lines/s%n", ordersLoaded.get(), lines, lines / seconds);
+    }
+
+    private static double typeWeight(String itemType) {
+        if ("Entree".equals(itemType)) {
+            return 3;
+        }
+        if ("Side".equals(itemType) || "Combo".equals(itemType)) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cumulative = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Picks an index with probability proportional to its weight.
+     */
+    private static int pick(double[] cumulativeWeights, SplittableRandom random) {
+        double r = random.nextDouble();
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] <= r) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder row, int value) {
+        return row.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,416 @@
+package tools;
+
+import backend.dbSetup;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves an existing Orders and OrderMenuItem pair from plain tables into the
+ * monthly partitioned tables defined in CreateTables.sql while the POS keeps
+ * taking orders.
+ *
+ * The migration runs in steps, each safe to rerun if it is interrupted:
+ * <ol>
+ * <li>Add the orderDate column to OrderMenuItem, index its order IDs
+ *     concurrently, and create orders_new and ordermenuitem_new with
+ *     partitions covering every month that has orders.</li>
+ * <li>Install triggers that copy every new, changed or deleted order and
+ *     order line into the new tables as it happens.</li>
+ * <li>Copy the existing orders across in small batches by order ID, each
+ *     in its own short transaction.</li>
+ * <li>Check both pairs of tables hold the same rows, then swap the names in
+ *     one short transaction. The old tables are kept as orders_old and
+ *     ordermenuitem_old unless --dropOld=true is given.</li>
+ * </ol>
+ *
+ * Options, given as --name=value:
+ * <pre>
+ * --url        JDBC URL of the database to migrate (default dbSetup.url)
+ * --user       Database user (default dbSetup.user)
+ * --password   Database password (default dbSetup.pswd)
+ * --batch      Orders copied per batch (default 20000)
+ * --cutover    false to stop after copying, leaving the triggers in place (default true)
+ * --dropOld    true to drop the old tables after the cutover (default false)
+ * --partitions Path of OrderPartitions.sql (default ../Database/Setup/OrderPartitions.sql)
+ * </pre>
+ *
+ * @author Nicholas Griffin
+ * @author Daniel Warren
+ * @author Joseph Dillard
+ * @author Keshav Dharshan
+ * @author Richard Huynh
+ */
+public final class PartitionMigrator {
+    private static final String CREATE_NEW_TABLES =
+            "CREATE TABLE IF NOT EXISTS orders_new (" +
+            "    orderID int NOT NULL DEFAULT nextval('orders_orderid_seq')," +
+            "    orderTime time," +
+            "    orderDate date NOT NULL," +
+            "    employeeID int," +
+            "    orderPrice float," +
+            "    paymentMethod varchar(100)," +
+            "    PRIMARY KEY (orderID, orderDate)," +
+            "    FOREIGN KEY (employeeID) REFERENCES employees(employeeID)" +
+            ") PARTITION BY RANGE (orderDate);" +
+            "CREATE TABLE IF NOT EXISTS orders_new_default PARTITION OF orders_new DEFAULT;" +
+            "CREATE TABLE IF NOT EXISTS ordermenuitem_new (" +
+            "    orderID int," +
+            "    menuItemID int," +
+            "    orderDate date NOT NULL," +
+            "    FOREIGN KEY (orderID, orderDate) REFERENCES orders_new(orderID, orderDate)," +
+            "    FOREIGN KEY (menuItemID) REFERENCES MenuItem(menuID)" +
+            ") PARTITION BY RANGE (orderDate);" +
+            "CREATE TABLE IF NOT EXISTS ordermenuitem_new_default PARTITION OF ordermenuitem_new DEFAULT;" +
+            "CREATE INDEX IF NOT EXISTS orders_new_orderdate_brin ON orders_new USING brin (orderDate);" +
+            "CREATE INDEX IF NOT EXISTS ordermenuitem_new_orderdate_brin ON ordermenuitem_new USING brin (orderDate);" +
+            "CREATE INDEX IF NOT EXISTS ordermenuitem_new_orderid_idx ON ordermenuitem_new (orderID);" +
+            "CREATE INDEX IF NOT EXISTS ordermenuitem_new_menuitemid_idx ON ordermenuitem_new (menuItemID);";
+
+    private static final String CREATE_TRIGGERS =
+            "CREATE OR REPLACE FUNCTION mirror_orders() RETURNS trigger LANGUAGE plpgsql AS $$ " +
+            "BEGIN " +
+            "    IF TG_OP = 'INSERT' THEN " +
+            "        INSERT INTO orders_new (orderID, orderTime, orderDate, employeeID, orderPrice, paymentMethod) " +
+            "        VALUES (NEW.orderID, NEW.orderTime, NEW.orderDate, NEW.employeeID, NEW.orderPrice, NEW.paymentMethod) " +
+            "        ON CONFLICT DO NOTHING; " +
+            "    ELSIF TG_OP = 'UPDATE' THEN " +
+            "        UPDATE orders_new SET orderID = NEW.orderID, orderTime = NEW.orderTime, orderDate = NEW.orderDate, " +
+            "            employeeID = NEW.employeeID, orderPrice = NEW.orderPrice, paymentMethod = NEW.paymentMethod " +
+            "        WHERE orderID = OLD.orderID; " +
+            "    ELSE " +
+            "        DELETE FROM ordermenuitem_new WHERE orderID = OLD.orderID; " +
+            "        DELETE FROM orders_new WHERE orderID = OLD.orderID; " +
+            "    END IF; " +
+            "    RETURN NULL; " +
+            "END $$;" +
+            "CREATE OR REPLACE FUNCTION mirror_order_lines() RETURNS trigger LANGUAGE plpgsql AS $$ " +
+            "BEGIN " +
+            // A changed line whose order has not been copied yet is left to the backfill, which copies it as it is now
+            "    IF TG_OP = 'UPDATE' AND NOT EXISTS (SELECT 1 FROM ordermenuitem_new WHERE orderID = OLD.orderID) THEN " +
+            "        RETURN NULL; " +
+            "    END IF; " +
+            "    IF TG_OP IN ('UPDATE', 'DELETE') THEN " +
+            "        DELETE FROM ordermenuitem_new WHERE (tableoid, ctid) = (" +
+            "            SELECT tableoid, ctid FROM ordermenuitem_new " +
+            "            WHERE orderID = OLD.orderID AND menuItemID = OLD.menuItemID LIMIT 1); " +
+            "    END IF; " +
+            "    IF TG_OP IN ('INSERT', 'UPDATE') THEN " +
+            "        INSERT INTO ordermenuitem_new (orderID, menuItemID, orderDate) " +
+            "        VALUES (NEW.orderID, NEW.menuItemID, " +
+            "                COALESCE(NEW.orderDate, (SELECT orderDate FROM orders WHERE orderID = NEW.orderID))); " +
+            "    END IF; " +
+            "    RETURN NULL; " +
+            "END $$;" +
+            "DROP TRIGGER IF EXISTS orders_mirror ON orders;" +
+            "CREATE TRIGGER orders_mirror AFTER INSERT OR UPDATE OR DELETE ON orders " +
+            "    FOR EACH ROW EXECUTE PROCEDURE mirror_orders();" +
+            "DROP TRIGGER IF EXISTS ordermenuitem_mirror ON ordermenuitem;" +
+            "CREATE TRIGGER ordermenuitem_mirror AFTER INSERT OR UPDATE OR DELETE ON ordermenuitem " +
+            "    FOR EACH ROW EXECUTE PROCEDURE mirror_order_lines();";
+
+    private static final String COPY_ORDERS =
+            "INSERT INTO orders_new (orderID, orderTime, orderDate, employeeID, orderPrice, paymentMethod) " +
+            "SELECT orderID, orderTime, orderDate, employeeID, orderPrice, paymentMethod FROM orders " +
+            "WHERE orderID >= ? AND orderID < ? " +
+            "ON CONFLICT DO NOTHING";
+
+    /**
+     * Copies the lines of a batch of orders, skipping orders whose lines the
+     * triggers have already copied. Lines are written in the same transaction
+     * as their order, so an order's lines are either all copied or none are.
+     */
+    private static final String COPY_LINES =
+            "INSERT INTO ordermenuitem_new (orderID, menuItemID, orderDate) " +
+            "SELECT omi.orderID, omi.menuItemID, o.orderDate " +
+            "FROM ordermenuitem omi JOIN orders o ON o.orderID = omi.orderID " +
+            "WHERE omi.orderID >= ? AND omi.orderID < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM ordermenuitem_new n WHERE n.orderID = omi.orderID)";
+
+    private final Connection conn;
+    private final Path partitionsScript;
+
+    private PartitionMigrator(Connection conn, Path partitionsScript) {
+        this.conn = conn;
+        this.partitionsScript = partitionsScript;
+    }
+
+    /**
+     * Runs the migration.
+     *
+     * @param args Command-line options.
+     * @throws Exception If a step fails; rerunning picks up where it stopped
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int batch = Integer.parseInt(options.getOrDefault("batch", "20000"));
+        boolean cutover = Boolean.parseBoolean(options.getOrDefault("cutover", "true"));
+        boolean dropOld = Boolean.parseBoolean(options.getOrDefault("dropOld", "false"));
+        Path partitionsScript = Paths.get(options.getOrDefault("partitions", "../Database/Setup/OrderPartitions.sql"));
+        if (!Files.isReadable(partitionsScript)) {
+            System.err.println("Cannot read " + partitionsScript.toAbsolutePath()
+                    + "; give the path of OrderPartitions.sql with --partitions=...");
+            System.exit(1);
+        }
+
+        try (Connection conn = DriverManager.getConnection(options.getOrDefault("url", dbSetup.url),
+                options.getOrDefault("user", dbSetup.user), options.getOrDefault("password", dbSetup.pswd))) {
+            PartitionMigrator migrator = new PartitionMigrator(conn, partitionsScript);
+            if (migrator.isPartitioned("orders")) {
+                System.out.println("Orders is already partitioned, nothing to migrate");
+                return;
+            }
+
+            migrator.prepare();
+            long lastOrderID = migrator.installTriggers();
+            migrator.copyExisting(lastOrderID, batch);
+            if (!cutover) {
+                System.out.println("Copy done; the triggers keep the new tables in sync until the cutover is run");
+                return;
+            }
+            migrator.cutover();
+            if (dropOld) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("DROP TABLE ordermenuitem_old, orders_old");
+                }
+                System.out.println("Dropped the old tables");
+            }
+        }
+    }
+
+    /**
+     * Creates the partitioned tables and the partitions the existing orders
+     * need, and indexes the old order lines so they can be copied in batches.
+     *
+     * @throws Exception If a table cannot be created
+     */
+    private void prepare() throws Exception {
+        long start = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE ordermenuitem ADD COLUMN IF NOT EXISTS orderDate date");
+            // Built concurrently so the POS can keep inserting while it builds
+            stmt.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS ordermenuitem_migrate_orderid_idx ON ordermenuitem (orderID)");
+            stmt.execute(CREATE_NEW_TABLES);
+            stmt.execute(new String(Files.readAllBytes(partitionsScript), StandardCharsets.UTF_8));
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT create_order_partitions('orders_new', 'ordermenuitem_new', " +
+                    "COALESCE(MIN(orderDate), current_date), " +
+                    "(date_trunc('month', GREATEST(MAX(orderDate), current_date)) + interval '12 months')::date) " +
+                    "FROM orders")) {
+                rs.next();
+                System.out.println("Created " + rs.getInt(1) + " partitions");
+            }
+        }
+        System.out.printf("Prepared the partitioned tables in %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Installs the mirroring triggers. Creating a trigger waits for any
+     * transaction writing to the table, so every order committed before the
+     * triggers exist is at or below the returned order ID, and every order
+     * committed after is mirrored.
+     *
+     * @return The highest order ID that has to be copied by the backfill
+     * @throws SQLException If the triggers cannot be installed
+     */
+    private long installTriggers() throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET LOCAL lock_timeout = '5s'");
+            stmt.execute(CREATE_TRIGGERS);
+            long lastOrderID;
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(orderID), 0) FROM orders")) {
+                rs.next();
+                lastOrderID = rs.getLong(1);
+            }
+            conn.commit();
+            System.out.println("Mirroring new orders; copying orders up to " + lastOrderID);
+            return lastOrderID;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Copies the orders that existed before the triggers were installed,
+     * one short transaction per batch.
+     *
+     * @param lastOrderID The highest order ID to copy
+     * @param batch The number of order IDs per batch
+     * @throws SQLException If a batch fails
+     */
+    private void copyExisting(long lastOrderID, int batch) throws SQLException {
+        long start = System.nanoTime();
+        long lastReport = start;
+        long orders = 0;
+        long lines = 0;
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement copyOrders = conn.prepareStatement(COPY_ORDERS);
+             PreparedStatement copyLines = conn.prepareStatement(COPY_LINES)) {
+            for (long from = 0; from <= lastOrderID; from += batch) {
+                long to = Math.min(from + batch, lastOrderID + 1);
+                copyOrders.setLong(1, from);
+                copyOrders.setLong(2, to);
+                orders += copyOrders.executeUpdate();
+                copyLines.setLong(1, from);
+                copyLines.setLong(2, to);
+                lines += copyLines.executeUpdate();
+                conn.commit();
+
+                long now = System.nanoTime();
+                if (now - lastReport >= 2_000_000_000L || to > lastOrderID) {
+                    lastReport = now;
+                    System.out.printf("  copied up to order %,d of %,d: %,d orders, %,d lines%n", to - 1, lastOrderID, orders, lines);
+                }
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        System.out.printf("Copied existing orders in %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Verifies the new tables match the old ones and swaps them in. The
+     * comparison runs on one snapshot without blocking the POS; only the
+     * renames take exclusive locks.
+     *
+     * @throws SQLException If the tables differ or the swap fails
+     */
+    private void cutover() throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT (SELECT COUNT(*) FROM orders), (SELECT COUNT(*) FROM orders_new), " +
+                    "(SELECT COUNT(*) FROM ordermenuitem), (SELECT COUNT(*) FROM ordermenuitem_new)")) {
+                rs.next();
+                if (rs.getLong(1) != rs.getLong(2) || rs.getLong(3) != rs.getLong(4)) {
+                    throw new SQLException(String.format("New tables do not match: %d/%d orders, %d/%d lines",
+                            rs.getLong(2), rs.getLong(1), rs.getLong(4), rs.getLong(3)));
+                }
+                System.out.printf("Verified %,d orders and %,d lines%n", rs.getLong(1), rs.getLong(3));
+            }
+            conn.commit();
+
+            long start = System.nanoTime();
+            stmt.execute("SET LOCAL lock_timeout = '5s'");
+            stmt.execute("LOCK TABLE orders, ordermenuitem IN ACCESS EXCLUSIVE MODE");
+            stmt.execute("DROP TRIGGER orders_mirror ON orders");
+            stmt.execute("DROP TRIGGER ordermenuitem_mirror ON ordermenuitem");
+            stmt.execute("DROP FUNCTION mirror_orders(), mirror_order_lines()");
+            for (String table : new String[] {"orders", "ordermenuitem"}) {
+                stmt.execute("ALTER TABLE " + table + " RENAME TO " + table + "_old");
+                renamePrefix(table + "_old", table + "_", table + "_old_");
+                stmt.execute("ALTER TABLE " + table + "_new RENAME TO " + table);
+                renamePrefix(table, table + "_new_", table + "_");
+            }
+            stmt.execute("ALTER SEQUENCE orders_orderid_seq OWNED BY orders.orderID");
+            stmt.execute("ANALYZE orders, ordermenuitem");
+            conn.commit();
+            System.out.printf("Swapped in the partitioned tables in %.2f s%n", (System.nanoTime() - start) / 1e9);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Renames the partitions, indexes and foreign keys of a table that start
+     * with one prefix to start with another, so orders_new_2024_01 becomes
+     * orders_2024_01.
+     *
+     * @param table The table whose partitions and indexes are renamed
+     * @param from The prefix to replace
+     * @param to The new prefix
+     * @throws SQLException If a rename fails
+     */
+    private void renamePrefix(String table, String from, String to) throws SQLException {
+        String query = "SELECT c.relname, c.relkind FROM pg_class c " +
+                       "WHERE c.oid IN (" +
+                       "    SELECT inhrelid FROM pg_inherits WHERE inhparent = ?::regclass " +
+                       "    UNION SELECT indexrelid FROM pg_index WHERE indrelid = ?::regclass " +
+                       "    UNION SELECT indexrelid FROM pg_index WHERE indrelid IN (" +
+                       "        SELECT inhrelid FROM pg_inherits WHERE inhparent = ?::regclass)" +
+                       ") AND starts_with(c.relname, ?)";
+        List<String> renames = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, table);
+            pstmt.setString(3, table);
+            pstmt.setString(4, from);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString("relname");
+                    String kind = rs.getString("relkind");
+                    String type = kind.equals("i") || kind.equals("I") ? "INDEX" : "TABLE";
+                    renames.add("ALTER " + type + " " + quote(name) + " RENAME TO " + quote(to + name.substring(from.length())));
+                }
+            }
+        }
+        // Foreign keys are not backed by an index, so they are renamed on their own
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT conname FROM pg_constraint WHERE conrelid = ?::regclass AND contype = 'f' AND starts_with(conname, ?)")) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, from);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString("conname");
+                    renames.add("ALTER TABLE " + quote(table) + " RENAME CONSTRAINT " + quote(name)
+                            + " TO " + quote(to + name.substring(from.length())));
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : renames) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    private boolean isPartitioned(String table) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT relkind FROM pg_class WHERE oid = to_regclass(?)")) {
+            pstmt.setString(1, table);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && "p".equals(rs.getString("relkind"));
+            }
+        }
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}